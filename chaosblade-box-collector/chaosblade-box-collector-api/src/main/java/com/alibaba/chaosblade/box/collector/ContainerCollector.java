@@ -17,10 +17,21 @@
 package com.alibaba.chaosblade.box.collector;
 
 import com.alibaba.chaosblade.box.collector.model.Container;
+import com.alibaba.chaosblade.box.collector.model.Query;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author yefei
  */
 public interface ContainerCollector extends Collector<Container> {
 
+    /**
+     * containers of all pods in the cluster, delivered page by page
+     *
+     * @param query
+     * @param listener
+     * @return total container size
+     */
+    CompletableFuture<Integer> collectAll(Query query, PageListener<Container> listener);
 }
@@ -17,10 +17,21 @@
 package com.alibaba.chaosblade.box.collector;
 
 import com.alibaba.chaosblade.box.collector.model.Pod;
+import com.alibaba.chaosblade.box.collector.model.Query;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author yefei
  */
 public interface PodCollector extends Collector<Pod> {
 
+    /**
+     * pods of all nodes in the cluster, delivered page by page, {@link Pod#getNode()} tells the node
+     *
+     * @param query
+     * @param listener
+     * @return total pod size
+     */
+    CompletableFuture<Integer> collectAll(Query query, PageListener<Pod> listener);
 }
@@ -19,6 +19,8 @@ package com.alibaba.chaosblade.box.collector.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * @author yefei
  */
@@ -35,4 +37,6 @@ public class Pod {
     private String name;
 
     private String ip;
+
+    private List<Container> containers;
 }
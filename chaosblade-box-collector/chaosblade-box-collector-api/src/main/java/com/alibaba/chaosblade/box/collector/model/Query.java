@@ -19,6 +19,8 @@ package com.alibaba.chaosblade.box.collector.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * @author yefei
  */
@@ -38,5 +40,15 @@ public class Query {
 
     private String labelSelector;
 
+    /**
+     * page size of chunked listing
+     */
+    private Integer limit;
+
     private volatile boolean stop;
+
+    /**
+     * response bytes received by the collector for this query
+     */
+    private final LongAdder receivedBytes = new LongAdder();
 }
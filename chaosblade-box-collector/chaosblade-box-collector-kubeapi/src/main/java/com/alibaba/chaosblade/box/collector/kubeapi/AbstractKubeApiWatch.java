@@ -0,0 +1,228 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.collector.kubeapi;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.collector.CollectorWatch;
+import com.alibaba.chaosblade.box.collector.WatchEventType;
+import com.alibaba.chaosblade.box.collector.WatchListener;
+import com.alibaba.chaosblade.box.collector.model.Query;
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.util.Watch;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * List once with a resourceVersion, then apply the watch events from that version on.
+ * Relists only when the api server answers 410 Gone, page by page with limit/continue.
+ *
+ * @author yefei
+ */
+@Slf4j
+public abstract class AbstractKubeApiWatch<O extends KubernetesObject, T> implements CollectorWatch, Runnable {
+
+    protected static final int WATCH_TIMEOUT_SECONDS = 300;
+
+    private static final long RETRY_INTERVAL_MILLIS = 5000;
+
+    private static final int HTTP_GONE = 410;
+
+    private static final String EVENT_ERROR = "ERROR";
+
+    private static final String EVENT_BOOKMARK = "BOOKMARK";
+
+    protected final Query query;
+
+    private final ApiClient client;
+
+    private final CoreV1Api api;
+
+    private final WatchListener<T> listener;
+
+    private volatile Watch<O> watch;
+
+    private volatile boolean synced;
+
+    private volatile boolean closed;
+
+    private String resourceVersion;
+
+    /**
+     * @param client of its own, see {@link com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry#newWatchClient}
+     */
+    protected AbstractKubeApiWatch(ApiClient client, Query query, WatchListener<T> listener) {
+        this.client = client;
+        this.api = new CoreV1Api(this.client);
+        this.query = query;
+        this.listener = listener;
+    }
+
+    static ExecutorService newExecutor(String name) {
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+
+            final AtomicInteger atomicInteger = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName(name + "-" + atomicInteger.getAndIncrement());
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * one page of the full list, the resource version of the list is where the watch starts
+     */
+    protected abstract KubernetesListObject list(CoreV1Api api, String _continue, Integer limit) throws ApiException;
+
+    protected abstract Call watchCall(CoreV1Api api, String resourceVersion) throws ApiException;
+
+    protected abstract Type watchType();
+
+    protected abstract T convert(O object);
+
+    @Override
+    public void run() {
+        while (!isStopped()) {
+            try {
+                if (resourceVersion == null) {
+                    resourceVersion = relist();
+                    if (resourceVersion == null) {
+                        break;
+                    }
+                }
+                watch = Watch.createWatch(client, watchCall(api, resourceVersion), watchType());
+                synced = true;
+                for (Watch.Response<O> response : watch) {
+                    if (isStopped()) {
+                        break;
+                    }
+                    if (EVENT_ERROR.equals(response.type)) {
+                        if (response.status != null && Integer.valueOf(HTTP_GONE).equals(response.status.getCode())) {
+                            log.info("watch resource version {} expired, relist", resourceVersion);
+                            resourceVersion = null;
+                        }
+                        break;
+                    }
+                    if (response.object == null) {
+                        continue;
+                    }
+                    resourceVersion = response.object.getMetadata().getResourceVersion();
+                    if (EVENT_BOOKMARK.equals(response.type)) {
+                        continue;
+                    }
+                    fire(WatchEventType.valueOf(response.type), response.object);
+                }
+            } catch (Throwable e) {
+                if (isStopped()) {
+                    break;
+                }
+                synced = false;
+                log.warn("watch fail, cluster: {}, retry later, error: {}", query.getClusterId(), e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_INTERVAL_MILLIS);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                closeWatch();
+            }
+        }
+        synced = false;
+    }
+
+    /**
+     * an expired continue token fails the relist, it is retried from the first page
+     */
+    @SuppressWarnings("unchecked")
+    private String relist() throws ApiException {
+        Integer limit = query.getLimit() == null ? KubeApiPodPager.DEFAULT_LIMIT : query.getLimit();
+        Set<String> keys = new HashSet<>();
+        String _continue = null;
+        KubernetesListObject list;
+        do {
+            list = list(api, _continue, limit);
+            for (KubernetesObject item : list.getItems()) {
+                keys.add(key(item));
+                fire(WatchEventType.ADDED, (O) item);
+            }
+            _continue = list.getMetadata() == null ? null : list.getMetadata().getContinue();
+        } while (StrUtil.isNotBlank(_continue) && !isStopped());
+        if (isStopped()) {
+            return null;
+        }
+        listener.onRelisted(keys);
+        return list.getMetadata().getResourceVersion();
+    }
+
+    private static String key(KubernetesObject object) {
+        String namespace = object.getMetadata().getNamespace();
+        return StrUtil.isBlank(namespace) ? object.getMetadata().getName() : namespace + "/" + object.getMetadata().getName();
+    }
+
+    private void fire(WatchEventType type, O object) {
+        try {
+            listener.onEvent(type, convert(object));
+        } catch (Exception e) {
+            log.error("handle watch event fail, type: {}, name: {}", type, object.getMetadata().getName(), e);
+        }
+    }
+
+    private boolean isStopped() {
+        return closed || query.isStop() || Thread.currentThread().isInterrupted();
+    }
+
+    private void closeWatch() {
+        Watch<O> w = watch;
+        watch = null;
+        if (w != null) {
+            try {
+                w.close();
+            } catch (Exception e) {
+                log.debug("close watch fail", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isSynced() {
+        return synced && !closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeWatch();
+    }
+}
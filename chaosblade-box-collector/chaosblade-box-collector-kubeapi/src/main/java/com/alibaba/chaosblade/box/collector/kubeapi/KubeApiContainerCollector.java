@@ -21,37 +21,30 @@ import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.collector.CollectorStrategy;
 import com.alibaba.chaosblade.box.collector.CollectorType;
 import com.alibaba.chaosblade.box.collector.ContainerCollector;
+import com.alibaba.chaosblade.box.collector.PageListener;
 import com.alibaba.chaosblade.box.collector.model.Container;
 import com.alibaba.chaosblade.box.collector.model.Query;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
 import io.kubernetes.client.openapi.ApiCallback;
-import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
 import io.kubernetes.client.openapi.models.V1PodList;
-import io.kubernetes.client.util.Config;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author yefei
  */
 @Component
 @CollectorStrategy(CollectorType.KUBE_API)
-public class KubeApiContainerCollector implements ContainerCollector, InitializingBean {
-
-    private ApiClient client;
-
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
-    }
+public class KubeApiContainerCollector implements ContainerCollector {
 
     @Override
     public CompletableFuture<List<Container>> collect(Query query) {
@@ -63,12 +56,7 @@ public class KubeApiContainerCollector implements ContainerCollector, Initializi
         CompletableFuture<List<Container>> future = new CompletableFuture<>();
         CoreV1Api api;
         try {
-            if (StrUtil.isBlank(query.getConfig())) {
-                api = new CoreV1Api(client);
-            } else {
-                ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(query.getConfig().getBytes());
-                api = new CoreV1Api(Config.fromConfig(byteArrayInputStream));
-            }
+            api = new CoreV1Api(KubeClientRegistry.getClient(query.getClusterId(), query.getConfig()));
 
             api.listPodForAllNamespacesAsync(null, null, fieldSelector, labelSelector,
                     null, null, null, null, null,
@@ -81,17 +69,9 @@ public class KubeApiContainerCollector implements ContainerCollector, Initializi
                         @Override
                         public void onSuccess(V1PodList result, int statusCode, Map<String, List<String>> responseHeaders) {
                             List<Container> containers = result.getItems().stream()
-                                    .filter(v1Pod -> Objects.equals(v1Pod.getMetadata().getName(), query.getPodName())
-                                            && CollUtil.isNotEmpty(v1Pod.getStatus().getContainerStatuses()))
-                                    .flatMap(v1Pod ->
-                                            v1Pod.getStatus().getContainerStatuses().stream()
-                                                    .map(v1ContainerStatus ->
-                                                            Container.builder().pod(v1Pod.getMetadata().getName())
-                                                                    .name(v1ContainerStatus.getName())
-                                                                    .containerId(v1ContainerStatus.getContainerID())
-                                                                    .build()
-                                                    )
-                                    ).collect(Collectors.toList());
+                                    .filter(v1Pod -> Objects.equals(v1Pod.getMetadata().getName(), query.getPodName()))
+                                    .flatMap(KubeApiContainerCollector::toContainers)
+                                    .collect(Collectors.toList());
                             future.complete(containers);
                         }
 
@@ -110,4 +90,25 @@ public class KubeApiContainerCollector implements ContainerCollector, Initializi
         }
         return future;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Integer> collectAll(Query query, PageListener<Container> listener) {
+        return KubeApiPodPager.list(query,
+                (api, _continue, limit, callback) -> api.listPodForAllNamespacesAsync(null, _continue,
+                        query.getFieldSelector(), query.getLabelSelector(), limit, null, null, null, null, callback),
+                KubeApiContainerCollector::toContainers, listener);
+    }
+
+    static Stream<Container> toContainers(V1Pod v1Pod) {
+        if (v1Pod.getStatus() == null || CollUtil.isEmpty(v1Pod.getStatus().getContainerStatuses())) {
+            return Stream.empty();
+        }
+        return v1Pod.getStatus().getContainerStatuses().stream()
+                .map(v1ContainerStatus -> Container.builder()
+                        .pod(v1Pod.getMetadata().getName())
+                        .namespace(v1Pod.getMetadata().getNamespace())
+                        .name(v1ContainerStatus.getName())
+                        .containerId(v1ContainerStatus.getContainerID())
+                        .build());
+    }
+}
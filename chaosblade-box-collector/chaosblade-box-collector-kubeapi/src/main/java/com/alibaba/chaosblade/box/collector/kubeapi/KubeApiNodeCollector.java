@@ -16,25 +16,34 @@
 
 package com.alibaba.chaosblade.box.collector.kubeapi;
 
-import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.collector.CollectorStrategy;
 import com.alibaba.chaosblade.box.collector.CollectorType;
+import com.alibaba.chaosblade.box.collector.CollectorWatch;
 import com.alibaba.chaosblade.box.collector.NodeCollector;
+import com.alibaba.chaosblade.box.collector.WatchCollector;
+import com.alibaba.chaosblade.box.collector.WatchListener;
 import com.alibaba.chaosblade.box.collector.model.Node;
 import com.alibaba.chaosblade.box.collector.model.Query;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
+import com.google.gson.reflect.TypeToken;
 import io.kubernetes.client.openapi.ApiCallback;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.openapi.models.V1Node;
 import io.kubernetes.client.openapi.models.V1NodeList;
-import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.Watch;
+import okhttp3.Call;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -42,13 +51,18 @@ import java.util.stream.Collectors;
  */
 @Component
 @CollectorStrategy(CollectorType.KUBE_API)
-public class KubeApiNodeCollector implements NodeCollector, InitializingBean {
+public class KubeApiNodeCollector implements NodeCollector, WatchCollector<Node>, InitializingBean, DisposableBean {
 
-    private ApiClient client;
+    private ExecutorService watchExecutor;
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
+        watchExecutor = AbstractKubeApiWatch.newExecutor("kube-api-node-watch");
+    }
+
+    @Override
+    public void destroy() {
+        watchExecutor.shutdownNow();
     }
 
     @Override
@@ -56,12 +70,7 @@ public class KubeApiNodeCollector implements NodeCollector, InitializingBean {
         CompletableFuture<List<Node>> future = new CompletableFuture<>();
         CoreV1Api api;
         try {
-            if (StrUtil.isBlank(query.getConfig())) {
-                api = new CoreV1Api(client);
-            } else {
-                ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(query.getConfig().getBytes());
-                api = new CoreV1Api(Config.fromConfig(byteArrayInputStream));
-            }
+            api = new CoreV1Api(KubeClientRegistry.getClient(query.getClusterId(), query.getConfig()));
             api.listNodeAsync(null,
                     null, null,
                     null, null, null,
@@ -74,11 +83,9 @@ public class KubeApiNodeCollector implements NodeCollector, InitializingBean {
 
                         @Override
                         public void onSuccess(V1NodeList result, int statusCode, Map<String, List<String>> responseHeaders) {
-                            List<Node> nodes = result.getItems().stream().map(v1Node ->
-                                    Node.builder().name(v1Node.getMetadata().getName())
-                                            .ip(v1Node.getStatus().getAddresses().get(0).getAddress())
-                                            .build()
-                            ).collect(Collectors.toList());
+                            List<Node> nodes = result.getItems().stream()
+                                    .map(KubeApiNodeCollector::toNode)
+                                    .collect(Collectors.toList());
                             future.complete(nodes);
                         }
 
@@ -89,7 +96,9 @@ public class KubeApiNodeCollector implements NodeCollector, InitializingBean {
 
                         @Override
                         public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
-
+                            if (done) {
+                                query.getReceivedBytes().add(bytesRead);
+                            }
                         }
                     });
 
@@ -98,4 +107,51 @@ public class KubeApiNodeCollector implements NodeCollector, InitializingBean {
         }
         return future;
     }
+
+    @Override
+    public CollectorWatch watch(Query query, WatchListener<Node> listener) {
+        try {
+            NodeWatch watch = new NodeWatch(KubeClientRegistry.newWatchClient(query.getConfig()), query, listener);
+            watchExecutor.execute(watch);
+            return watch;
+        } catch (Exception e) {
+            throw new IllegalStateException("create node watch fail", e);
+        }
+    }
+
+    private static Node toNode(V1Node v1Node) {
+        return Node.builder().name(v1Node.getMetadata().getName())
+                .ip(v1Node.getStatus().getAddresses().get(0).getAddress())
+                .build();
+    }
+
+    static class NodeWatch extends AbstractKubeApiWatch<V1Node, Node> {
+
+        NodeWatch(ApiClient client, Query query, WatchListener<Node> listener) {
+            super(client, query, listener);
+        }
+
+        @Override
+        protected KubernetesListObject list(CoreV1Api api, String _continue, Integer limit) throws ApiException {
+            return api.listNode(null, null, _continue, null, null,
+                    limit, null, null, null);
+        }
+
+        @Override
+        protected Call watchCall(CoreV1Api api, String resourceVersion) throws ApiException {
+            return api.listNodeCall(null, true, null, null, null,
+                    null, resourceVersion, WATCH_TIMEOUT_SECONDS, true, null);
+        }
+
+        @Override
+        protected Type watchType() {
+            return new TypeToken<Watch.Response<V1Node>>() {
+            }.getType();
+        }
+
+        @Override
+        protected Node convert(V1Node object) {
+            return toNode(object);
+        }
+    }
 }
@@ -16,40 +16,56 @@
 
 package com.alibaba.chaosblade.box.collector.kubeapi;
 
-import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.collector.CollectorStrategy;
 import com.alibaba.chaosblade.box.collector.CollectorType;
+import com.alibaba.chaosblade.box.collector.CollectorWatch;
+import com.alibaba.chaosblade.box.collector.PageListener;
 import com.alibaba.chaosblade.box.collector.PodCollector;
+import com.alibaba.chaosblade.box.collector.WatchCollector;
+import com.alibaba.chaosblade.box.collector.WatchListener;
 import com.alibaba.chaosblade.box.collector.model.Pod;
 import com.alibaba.chaosblade.box.collector.model.Query;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
+import com.google.gson.reflect.TypeToken;
+import io.kubernetes.client.common.KubernetesListObject;
 import io.kubernetes.client.openapi.ApiCallback;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
 import io.kubernetes.client.openapi.models.V1PodList;
-import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.Watch;
+import okhttp3.Call;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author yefei
  */
 @Component
 @CollectorStrategy(CollectorType.KUBE_API)
-public class KubeApiPodCollector implements PodCollector, InitializingBean {
+public class KubeApiPodCollector implements PodCollector, WatchCollector<Pod>, InitializingBean, DisposableBean {
 
-    private ApiClient client;
+    private ExecutorService watchExecutor;
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
+        watchExecutor = AbstractKubeApiWatch.newExecutor("kube-api-pod-watch");
+    }
+
+    @Override
+    public void destroy() {
+        watchExecutor.shutdownNow();
     }
 
     @Override
@@ -57,12 +73,7 @@ public class KubeApiPodCollector implements PodCollector, InitializingBean {
         CompletableFuture<List<Pod>> future = new CompletableFuture<>();
         CoreV1Api api;
         try {
-            if (StrUtil.isBlank(query.getConfig())) {
-                api = new CoreV1Api(client);
-            } else {
-                ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(query.getConfig().getBytes());
-                api = new CoreV1Api(Config.fromConfig(byteArrayInputStream));
-            }
+            api = new CoreV1Api(KubeClientRegistry.getClient(query.getClusterId(), query.getConfig()));
             api.listPodForAllNamespacesAsync(null, null, query.getFieldSelector(), query.getLabelSelector(),
                     null, null, null, null, null,
                     new ApiCallback<V1PodList>() {
@@ -75,13 +86,8 @@ public class KubeApiPodCollector implements PodCollector, InitializingBean {
                         public void onSuccess(V1PodList result, int statusCode, Map<String, List<String>> responseHeaders) {
                             List<Pod> pods = result.getItems().stream()
                                     .filter(v1Pod -> Objects.equals(v1Pod.getSpec().getNodeName(), query.getNodeName()))
-                                    .map(v1Pod ->
-                                            Pod.builder()
-                                                    .name(v1Pod.getMetadata().getName())
-                                                    .namespace(v1Pod.getMetadata().getNamespace())
-                                                    .ip(v1Pod.getStatus().getPodIP())
-                                                    .build()
-                                    ).collect(Collectors.toList());
+                                    .map(KubeApiPodCollector::toPod)
+                                    .collect(Collectors.toList());
                             future.complete(pods);
                         }
 
@@ -100,4 +106,66 @@ public class KubeApiPodCollector implements PodCollector, InitializingBean {
         }
         return future;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Integer> collectAll(Query query, PageListener<Pod> listener) {
+        // unscheduled pods have no node yet
+        return KubeApiPodPager.list(query,
+                (api, _continue, limit, callback) -> api.listPodForAllNamespacesAsync(null, _continue,
+                        query.getFieldSelector(), query.getLabelSelector(), limit, null, null, null, null, callback),
+                v1Pod -> v1Pod.getSpec() == null || v1Pod.getSpec().getNodeName() == null ?
+                Stream.empty() : Stream.of(toPod(v1Pod)), listener);
+    }
+
+    private static Pod toPod(V1Pod v1Pod) {
+        return Pod.builder()
+                .name(v1Pod.getMetadata().getName())
+                .namespace(v1Pod.getMetadata().getNamespace())
+                .node(v1Pod.getSpec() == null ? null : v1Pod.getSpec().getNodeName())
+                .ip(v1Pod.getStatus() == null ? null : v1Pod.getStatus().getPodIP())
+                .build();
+    }
+
+    @Override
+    public CollectorWatch watch(Query query, WatchListener<Pod> listener) {
+        try {
+            PodWatch watch = new PodWatch(KubeClientRegistry.newWatchClient(query.getConfig()), query, listener);
+            watchExecutor.execute(watch);
+            return watch;
+        } catch (Exception e) {
+            throw new IllegalStateException("create pod watch fail", e);
+        }
+    }
+
+    static class PodWatch extends AbstractKubeApiWatch<V1Pod, Pod> {
+
+        PodWatch(ApiClient client, Query query, WatchListener<Pod> listener) {
+            super(client, query, listener);
+        }
+
+        @Override
+        protected KubernetesListObject list(CoreV1Api api, String _continue, Integer limit) throws ApiException {
+            return api.listPodForAllNamespaces(null, _continue, query.getFieldSelector(), query.getLabelSelector(),
+                    limit, null, null, null, null);
+        }
+
+        @Override
+        protected Call watchCall(CoreV1Api api, String resourceVersion) throws ApiException {
+            return api.listPodForAllNamespacesCall(true, null, query.getFieldSelector(), query.getLabelSelector(),
+                    null, null, resourceVersion, WATCH_TIMEOUT_SECONDS, true, null);
+        }
+
+        @Override
+        protected Type watchType() {
+            return new TypeToken<Watch.Response<V1Pod>>() {
+            }.getType();
+        }
+
+        @Override
+        protected Pod convert(V1Pod v1Pod) {
+            Pod pod = toPod(v1Pod);
+            pod.setContainers(KubeApiContainerCollector.toContainers(v1Pod).collect(Collectors.toList()));
+            return pod;
+        }
+    }
+}
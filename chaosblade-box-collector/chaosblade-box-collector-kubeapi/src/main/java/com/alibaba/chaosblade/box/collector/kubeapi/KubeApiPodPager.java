@@ -0,0 +1,124 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.collector.kubeapi;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.collector.PageListener;
+import com.alibaba.chaosblade.box.collector.model.Query;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
+import io.kubernetes.client.openapi.ApiCallback;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * List pods of all namespaces with limit/continue, only one page is held in memory at a time.
+ * An expired continue token (410 Gone) restarts the listing from the first page once.
+ *
+ * @author yefei
+ */
+@Slf4j
+class KubeApiPodPager {
+
+    static final int DEFAULT_LIMIT = 500;
+
+    private static final int HTTP_GONE = 410;
+
+    interface PageCall {
+
+        Call call(CoreV1Api api, String _continue, Integer limit, ApiCallback<V1PodList> callback) throws ApiException;
+    }
+
+    static <T> CompletableFuture<Integer> list(Query query, PageCall pageCall, Function<V1Pod, Stream<T>> mapper,
+                                               PageListener<T> listener) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        try {
+            CoreV1Api api = new CoreV1Api(KubeClientRegistry.getClient(query.getClusterId(), query.getConfig()));
+            listPage(api, query, null, false, pageCall, mapper, listener, new AtomicInteger(), future);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> void listPage(CoreV1Api api, Query query, String _continue, boolean restarted,
+                                     PageCall pageCall, Function<V1Pod, Stream<T>> mapper, PageListener<T> listener,
+                                     AtomicInteger total, CompletableFuture<Integer> future) throws ApiException {
+        Integer limit = query.getLimit() == null ? DEFAULT_LIMIT : query.getLimit();
+        pageCall.call(api, _continue, limit, new ApiCallback<V1PodList>() {
+            @Override
+            public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                if (statusCode != HTTP_GONE || _continue == null || restarted || query.isStop()) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // the pages already saved are upserted again
+                log.warn("continue token expired, list pods from the first page, cluster: {}", query.getClusterId());
+                total.set(0);
+                try {
+                    listPage(api, query, null, true, pageCall, mapper, listener, total, future);
+                } catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void onSuccess(V1PodList result, int statusCode, Map<String, List<String>> responseHeaders) {
+                try {
+                    List<T> items = result.getItems().stream()
+                            .flatMap(mapper)
+                            .collect(Collectors.toList());
+                    total.addAndGet(items.size());
+                    listener.onPage(items);
+
+                    String next = result.getMetadata() == null ? null : result.getMetadata().getContinue();
+                    if (StrUtil.isBlank(next) || query.isStop()) {
+                        future.complete(total.get());
+                        return;
+                    }
+                    listPage(api, query, next, restarted, pageCall, mapper, listener, total, future);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+
+            }
+
+            @Override
+            public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                if (done) {
+                    query.getReceivedBytes().add(bytesRead);
+                }
+            }
+        });
+    }
+}
@@ -92,4 +92,13 @@ public class KubeApiContainerCollectorTest {
         Assert.assertEquals("tomcat", containers.get(0).getName());
     }
 
+    @Test
+    public void testCollectAll() throws Exception {
+        List<Container> containers = new ArrayList<>();
+        CompletableFuture<Integer> collect = containerCollector.collectAll(Query.builder().build(), containers::addAll);
+        Assert.assertEquals(1, collect.get().intValue());
+        Assert.assertEquals("tomcat-xyz", containers.get(0).getPod());
+        Assert.assertEquals("default", containers.get(0).getNamespace());
+    }
+
 }
@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -82,4 +83,13 @@ public class KubeApiPodCollectorTest {
         Assert.assertEquals("tomcat-xyz", pods.get(0).getName());
     }
 
+    @Test
+    public void testCollectAll() throws Exception {
+        List<Pod> pods = new ArrayList<>();
+        CompletableFuture<Integer> collect = podCollector.collectAll(Query.builder().build(), pods::addAll);
+        Assert.assertEquals(1, collect.get().intValue());
+        Assert.assertEquals(1, pods.size());
+        Assert.assertEquals("node-master", pods.get(0).getNode());
+    }
+
 }
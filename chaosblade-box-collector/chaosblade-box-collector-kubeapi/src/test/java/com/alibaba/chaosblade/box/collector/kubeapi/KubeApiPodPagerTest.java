@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.chaosblade.box.collector.kubeapi;
+
+import com.alibaba.chaosblade.box.collector.model.Query;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1ListMeta;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * @author yefei
+ */
+public class KubeApiPodPagerTest {
+
+    @Test
+    public void testRestartOnExpiredContinue() throws Exception {
+        AtomicInteger gone = new AtomicInteger();
+        List<String> names = new ArrayList<>();
+        Integer total = KubeApiPodPager.list(Query.builder().build(), (api, _continue, limit, callback) -> {
+            if (_continue == null) {
+                callback.onSuccess(podList("pod-a", "next"), 200, new HashMap<>());
+            } else if (gone.getAndIncrement() == 0) {
+                callback.onFailure(new ApiException(410, "expired"), 410, new HashMap<>());
+            } else {
+                callback.onSuccess(podList("pod-b", null), 200, new HashMap<>());
+            }
+            return null;
+        }, pod -> Stream.of(pod.getMetadata().getName()), names::addAll).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, total.intValue());
+        Assert.assertEquals(3, names.size());
+    }
+
+    @Test
+    public void testExpiredContinueAfterRestart() {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            KubeApiPodPager.list(Query.builder().build(), (api, _continue, limit, callback) -> {
+                calls.incrementAndGet();
+                if (_continue == null) {
+                    callback.onSuccess(podList("pod-a", "next"), 200, new HashMap<>());
+                } else {
+                    callback.onFailure(new ApiException(410, "expired"), 410, new HashMap<>());
+                }
+                return null;
+            }, pod -> Stream.of(pod.getMetadata().getName()), items -> {
+            }).get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals(4, calls.get());
+        }
+    }
+
+    private static V1PodList podList(String name, String _continue) {
+        V1Pod pod = new V1Pod();
+        V1ObjectMeta metadata = new V1ObjectMeta();
+        metadata.setName(name);
+        pod.setMetadata(metadata);
+
+        V1PodList podList = new V1PodList();
+        podList.addItemsItem(pod);
+        V1ListMeta listMeta = new V1ListMeta();
+        listMeta.setContinue(_continue);
+        podList.setMetadata(listMeta);
+        return podList;
+    }
+}
@@ -17,6 +17,8 @@
 package com.alibaba.chaosblade.box.collector.prometheus;
 
 import com.alibaba.chaosblade.box.collector.Collector;
+import com.alibaba.chaosblade.box.collector.PageListener;
+import com.alibaba.chaosblade.box.collector.model.Query;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
@@ -48,11 +50,11 @@ public abstract class AbstractCollector<T> implements Collector<T>, Initializing
 
     private CloseableHttpAsyncClient httpAsyncClient;
 
-    protected CompletableFuture<List<T>> collect(String query) {
+    protected CompletableFuture<List<T>> collect(String promql, Query query) {
 
         HttpPost httpPost = new HttpPost(api);
         List<NameValuePair> params = new ArrayList<>();
-        params.add(new BasicNameValuePair("query", query));
+        params.add(new BasicNameValuePair("query", promql));
         params.add(new BasicNameValuePair("start", String.valueOf(System.currentTimeMillis() / 1000)));
         params.add(new BasicNameValuePair("end", String.valueOf(System.currentTimeMillis() / 1000)));
         params.add(new BasicNameValuePair("step", "14"));
@@ -67,7 +69,9 @@ public abstract class AbstractCollector<T> implements Collector<T>, Initializing
             public void completed(HttpResponse httpResponse) {
                 try {
                     HttpEntity entity = httpResponse.getEntity();
-                    future.complete(pack(EntityUtils.toByteArray(entity)));
+                    byte[] bytes = EntityUtils.toByteArray(entity);
+                    query.getReceivedBytes().add(bytes.length);
+                    future.complete(pack(bytes));
                 } catch (IOException e) {
                     future.completeExceptionally(e);
                 }
@@ -86,6 +90,16 @@ public abstract class AbstractCollector<T> implements Collector<T>, Initializing
         return future;
     }
 
+    /**
+     * prometheus query api has no paging, the whole result is one page
+     */
+    protected CompletableFuture<Integer> collect(String promql, Query query, PageListener<T> listener) {
+        return collect(promql, query).thenApply(items -> {
+            listener.onPage(items);
+            return items.size();
+        });
+    }
+
     @Override
     public void destroy() throws Exception {
         httpAsyncClient.close();
@@ -19,6 +19,7 @@ package com.alibaba.chaosblade.box.collector.prometheus;
 import com.alibaba.chaosblade.box.collector.CollectorStrategy;
 import com.alibaba.chaosblade.box.collector.CollectorType;
 import com.alibaba.chaosblade.box.collector.ContainerCollector;
+import com.alibaba.chaosblade.box.collector.PageListener;
 import com.alibaba.chaosblade.box.collector.model.Container;
 import com.alibaba.chaosblade.box.collector.model.Query;
 import com.alibaba.chaosblade.box.common.utils.JsonUtils;
@@ -40,7 +41,12 @@ public class PrometheusContainerCollector extends AbstractCollector<Container> i
 
     @Override
     public CompletableFuture<List<Container>> collect(Query query) {
-        return collect(String.format("kube_pod_container_info{pod='%s'}", query.getPodName()));
+        return collect(String.format("kube_pod_container_info{pod='%s'}", query.getPodName()), query);
+    }
+
+    @Override
+    public CompletableFuture<Integer> collectAll(Query query, PageListener<Container> listener) {
+        return collect("kube_pod_container_info", query, listener);
     }
 
     @Override
@@ -40,7 +40,7 @@ public class PrometheusNodeCollector extends AbstractCollector<Node> implements
 
     @Override
     public CompletableFuture<List<Node>> collect(Query query) {
-        return collect("kube_node_info");
+        return collect("kube_node_info", query);
     }
 
     @Override
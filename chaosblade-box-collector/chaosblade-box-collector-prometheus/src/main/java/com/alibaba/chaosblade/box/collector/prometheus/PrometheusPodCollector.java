@@ -18,6 +18,7 @@ package com.alibaba.chaosblade.box.collector.prometheus;
 
 import com.alibaba.chaosblade.box.collector.CollectorStrategy;
 import com.alibaba.chaosblade.box.collector.CollectorType;
+import com.alibaba.chaosblade.box.collector.PageListener;
 import com.alibaba.chaosblade.box.collector.PodCollector;
 import com.alibaba.chaosblade.box.collector.model.Pod;
 import com.alibaba.chaosblade.box.collector.model.Query;
@@ -40,7 +41,12 @@ public class PrometheusPodCollector extends AbstractCollector<Pod> implements Po
 
     @Override
     public CompletableFuture<List<Pod>> collect(Query query) {
-        return collect(String.format("kube_pod_info{node='%s'}", query.getNodeName()));
+        return collect(String.format("kube_pod_info{node='%s'}", query.getNodeName()), query);
+    }
+
+    @Override
+    public CompletableFuture<Integer> collectAll(Query query, PageListener<Pod> listener) {
+        return collect("kube_pod_info{node!=''}", query, listener);
     }
 
     @Override
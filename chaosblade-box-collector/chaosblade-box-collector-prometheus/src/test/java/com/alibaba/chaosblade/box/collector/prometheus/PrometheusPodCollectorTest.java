@@ -28,6 +28,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -56,4 +57,14 @@ public class PrometheusPodCollectorTest {
         Assert.assertEquals(0, pods.size());
     }
 
+    @Test
+    public void testCollectAll() throws Exception {
+
+        List<Pod> pods = new ArrayList<>();
+        CompletableFuture<Integer> collect = prometheusPodCollector.collectAll(Query.builder().build(), pods::addAll);
+
+        Assert.assertEquals(0, collect.get().intValue());
+        Assert.assertEquals(0, pods.size());
+    }
+
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.common.kubernetes;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.google.gson.reflect.TypeToken;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.apis.CustomObjectsApi;
+import io.kubernetes.client.util.Watch;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Tracks the custom objects of one resource with one watch per cluster, the pending futures
+ * are completed from the watch events instead of each polling the api server.
+ * The watch of a cluster stops after it has no waiter for a while. An object missing from the cache
+ * is not taken as deleted, its ADDED event may not be delivered yet; only a DELETED event or a relist
+ * without it does.
+ *
+ * @author yefei
+ */
+@Slf4j
+public class CustomObjectTracker {
+
+    private static final Map<String, CustomObjectTracker> TRACKERS = new ConcurrentHashMap<>();
+
+    private static final int WATCH_TIMEOUT_SECONDS = 300;
+
+    private static final long RETRY_INTERVAL_MILLIS = 3000;
+
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int HTTP_GONE = 410;
+
+    /**
+     * how long a deleted object is remembered, for the waiters registered after its DELETED event
+     */
+    private static final long TOMBSTONE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Type WATCH_TYPE = new TypeToken<Watch.Response<Map<String, Object>>>() {
+    }.getType();
+
+    private final String group;
+
+    private final String version;
+
+    private final String plural;
+
+    private final Map<String, ClusterWatch> watches = new ConcurrentHashMap<>();
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    private CustomObjectTracker(String group, String version, String plural) {
+        this.group = group;
+        this.version = version;
+        this.plural = plural;
+    }
+
+    public static CustomObjectTracker of(String group, String version, String plural) {
+        return TRACKERS.computeIfAbsent(group + "/" + version + "/" + plural,
+                k -> new CustomObjectTracker(group, version, plural));
+    }
+
+    /**
+     * @param config    kubeconfig of the cluster, blank for the default client
+     * @param namespace null for cluster scoped objects
+     * @param name
+     * @param condition tested with the latest object, null once the object is seen deleted; not tested
+     *                  while an object not seen yet is on its way
+     * @return completes with the object the condition holds for, completing it stops the tracking
+     */
+    public CompletableFuture<Map<String, Object>> await(String config, String namespace, String name,
+                                                        Predicate<Map<String, Object>> condition) {
+        String clusterKey = StrUtil.isBlank(config) ? "default" : SecureUtil.sha256(config);
+        String key = key(namespace, name);
+        Waiter waiter = new Waiter(condition);
+
+        ClusterWatch watch;
+        synchronized (this) {
+            watch = watches.get(clusterKey);
+            if (watch == null) {
+                watch = new ClusterWatch(clusterKey, config);
+                watches.put(clusterKey, watch);
+                Thread thread = new Thread(watch);
+                thread.setName("watch-" + plural + "-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                thread.start();
+            }
+            watch.waiters.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(waiter);
+        }
+
+        ClusterWatch w = watch;
+        waiter.future.whenComplete((r, e) -> w.remove(key, waiter));
+        if (w.synced) {
+            w.test(key, waiter, false);
+        }
+        return waiter.future;
+    }
+
+    public int watchCount() {
+        return watches.size();
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace == null ? name : namespace + "/" + name;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> metadata(Map<String, Object> object) {
+        Object metadata = object.get("metadata");
+        return metadata instanceof Map ? (Map<String, Object>) metadata : Collections.emptyMap();
+    }
+
+    private static String key(Map<String, Object> object) {
+        Map<String, Object> metadata = metadata(object);
+        return key((String) metadata.get("namespace"), (String) metadata.get("name"));
+    }
+
+    private static class Waiter {
+
+        private final Predicate<Map<String, Object>> condition;
+
+        private final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+
+        private final long createTime = System.currentTimeMillis();
+
+        private Waiter(Predicate<Map<String, Object>> condition) {
+            this.condition = condition;
+        }
+
+        private void test(Map<String, Object> object) {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                if (condition.test(object)) {
+                    future.complete(object);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private class ClusterWatch implements Runnable {
+
+        private final String clusterKey;
+
+        private final String config;
+
+        private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+        private volatile Map<String, Map<String, Object>> objects = new ConcurrentHashMap<>();
+
+        /**
+         * key to the millis it was seen deleted
+         */
+        private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+
+        private volatile boolean synced;
+
+        private volatile Watch<Map<String, Object>> watch;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private String resourceVersion;
+
+        private ClusterWatch(String clusterKey, String config) {
+            this.clusterKey = clusterKey;
+            this.config = config;
+        }
+
+        @Override
+        public void run() {
+            try {
+                watch();
+            } finally {
+                synchronized (CustomObjectTracker.this) {
+                    watches.remove(clusterKey, this);
+                }
+                IllegalStateException stopped = new IllegalStateException("watch " + plural + " stopped");
+                waiters.values().forEach(set -> set.forEach(waiter -> waiter.future.completeExceptionally(stopped)));
+            }
+        }
+
+        private void watch() {
+            ApiClient client = null;
+            while (!stopIfIdle()) {
+                try {
+                    if (client == null) {
+                        client = KubeClientRegistry.newWatchClient(config);
+                    }
+                    CustomObjectsApi api = new CustomObjectsApi(client);
+                    long now = System.currentTimeMillis();
+                    tombstones.values().removeIf(time -> now - time > TOMBSTONE_MILLIS);
+                    if (resourceVersion == null) {
+                        relist(api);
+                    }
+                    watch = Watch.createWatch(client, api.listClusterCustomObjectCall(group, version, plural,
+                            null, null, null, null, null, resourceVersion, WATCH_TIMEOUT_SECONDS, true, null),
+                            WATCH_TYPE);
+                    if (!synced) {
+                        synced = true;
+                        testAll(null);
+                    }
+                    for (Watch.Response<Map<String, Object>> response : watch) {
+                        if ("ERROR".equals(response.type)) {
+                            if (response.status != null && Integer.valueOf(HTTP_GONE).equals(response.status.getCode())) {
+                                resourceVersion = null;
+                            }
+                            break;
+                        }
+                        if (response.object == null) {
+                            continue;
+                        }
+                        resourceVersion = (String) metadata(response.object).get("resourceVersion");
+                        if ("BOOKMARK".equals(response.type)) {
+                            continue;
+                        }
+                        apply(response.type, response.object);
+                    }
+                } catch (Throwable e) {
+                    synced = false;
+                    log.warn("watch {} fail, retry later, error: {}", plural, e.getMessage());
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(RETRY_INTERVAL_MILLIS);
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                } finally {
+                    closeWatch();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void relist(CustomObjectsApi api) throws Exception {
+            long listTime = System.currentTimeMillis();
+            Map<String, Object> list = (Map<String, Object>) api.listClusterCustomObject(group, version, plural,
+                    null, null, null, null, null, null, null, false);
+            Map<String, Map<String, Object>> fresh = new ConcurrentHashMap<>();
+            Object items = list.get("items");
+            if (items instanceof List) {
+                for (Object item : (List<Object>) items) {
+                    Map<String, Object> object = (Map<String, Object>) item;
+                    fresh.put(key(object), object);
+                }
+            }
+            objects.keySet().stream()
+                    .filter(key -> !fresh.containsKey(key))
+                    .forEach(key -> tombstones.put(key, listTime));
+            objects = fresh;
+            resourceVersion = (String) metadata(list).get("resourceVersion");
+            synced = true;
+            testAll(listTime);
+        }
+
+        private void apply(String type, Map<String, Object> object) {
+            String key = key(object);
+            if ("DELETED".equals(type)) {
+                objects.remove(key);
+                tombstones.put(key, System.currentTimeMillis());
+                object = null;
+            } else {
+                objects.put(key, object);
+                tombstones.remove(key);
+            }
+            Set<Waiter> set = waiters.get(key);
+            if (set != null) {
+                for (Waiter waiter : set) {
+                    waiter.test(object);
+                }
+            }
+        }
+
+        /**
+         * @param listTime millis the relist was requested at, the waiters registered before it whose object
+         *                 it does not contain see the object deleted; null if not after a relist
+         */
+        private void testAll(Long listTime) {
+            waiters.forEach((key, set) -> {
+                for (Waiter waiter : set) {
+                    test(key, waiter, listTime != null && waiter.createTime < listTime);
+                }
+            });
+        }
+
+        private void test(String key, Waiter waiter, boolean listed) {
+            Map<String, Object> object = objects.get(key);
+            if (object != null) {
+                waiter.test(object);
+            } else if (listed || tombstones.containsKey(key)) {
+                waiter.test(null);
+            }
+        }
+
+        private void remove(String key, Waiter waiter) {
+            lastUsed = System.currentTimeMillis();
+            waiters.computeIfPresent(key, (k, set) -> {
+                set.remove(waiter);
+                return set.isEmpty() ? null : set;
+            });
+        }
+
+        private boolean stopIfIdle() {
+            if (Thread.currentThread().isInterrupted()) {
+                return true;
+            }
+            synchronized (CustomObjectTracker.this) {
+                if (waiters.isEmpty() && System.currentTimeMillis() - lastUsed > IDLE_MILLIS) {
+                    watches.remove(clusterKey, this);
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        private void closeWatch() {
+            Watch<Map<String, Object>> w = watch;
+            watch = null;
+            if (w != null) {
+                try {
+                    w.close();
+                } catch (Exception e) {
+                    log.debug("close watch fail", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.common.kubernetes;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.util.Config;
+import okhttp3.ConnectionPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * One {@link ApiClient} per kubeconfig, so requests to the same api server reuse
+ * the connection pool and TLS sessions instead of building a client per request.
+ *
+ * @author yefei
+ */
+public class KubeClientRegistry {
+
+    private static final String DEFAULT_KEY = "default";
+
+    /**
+     * a client used by no cluster, only by the kubeconfig of requests, is dropped once idle for so long
+     */
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<String, Entry> CLIENTS = new ConcurrentHashMap<>();
+
+    private static final Map<Long, String> CLUSTER_KEYS = new ConcurrentHashMap<>();
+
+    private static long sweepTime = System.currentTimeMillis();
+
+    private KubeClientRegistry() {
+    }
+
+    /**
+     * @param clusterId may be null when the caller only knows the kubeconfig
+     * @param config    kubeconfig, blank for the in-cluster/default client
+     * @return
+     */
+    public static ApiClient getClient(Long clusterId, String config) throws IOException {
+        String key = StrUtil.isBlank(config) ? DEFAULT_KEY : SecureUtil.sha256(config);
+        long now = System.currentTimeMillis();
+        if (clusterId == null) {
+            Entry entry = CLIENTS.get(key);
+            if (entry != null) {
+                entry.accessTime = now;
+                return entry.client;
+            }
+        }
+
+        synchronized (KubeClientRegistry.class) {
+            if (clusterId != null) {
+                String previous = CLUSTER_KEYS.put(clusterId, key);
+                if (previous != null && !previous.equals(key)) {
+                    release(clusterId, previous);
+                }
+            }
+            Entry entry = CLIENTS.get(key);
+            if (entry == null) {
+                entry = new Entry(newClient(config));
+                CLIENTS.put(key, entry);
+            }
+            if (clusterId != null) {
+                entry.clusterIds.add(clusterId);
+            }
+            entry.accessTime = now;
+            sweep(now);
+            return entry.client;
+        }
+    }
+
+    public static ApiClient getClient(String config) throws IOException {
+        return getClient(null, config);
+    }
+
+    /**
+     * drop the client of a cluster, called when its kubeconfig changes
+     */
+    public static synchronized void invalidate(Long clusterId) {
+        String key = CLUSTER_KEYS.remove(clusterId);
+        if (key != null) {
+            release(clusterId, key);
+        }
+    }
+
+    /**
+     * a client of its own for a long-lived watch, it never times out on read
+     */
+    public static ApiClient newWatchClient(String config) throws IOException {
+        ApiClient client = newClient(config);
+        return client.setHttpClient(client.getHttpClient().newBuilder()
+                .readTimeout(0, TimeUnit.SECONDS)
+                .build());
+    }
+
+    public static List<KubeClientStats> stats() {
+        return CLIENTS.entrySet().stream().map(e -> {
+            ConnectionPool connectionPool = e.getValue().client.getHttpClient().connectionPool();
+            return KubeClientStats.builder()
+                    .key(e.getKey())
+                    .clusterIds(new HashSet<>(e.getValue().clusterIds))
+                    .connectionCount(connectionPool.connectionCount())
+                    .idleConnectionCount(connectionPool.idleConnectionCount())
+                    .createTime(e.getValue().createTime)
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    private static void release(Long clusterId, String key) {
+        Entry entry = CLIENTS.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.clusterIds.remove(clusterId);
+        if (entry.clusterIds.isEmpty() && !DEFAULT_KEY.equals(key)) {
+            remove(key, entry);
+        }
+    }
+
+    /**
+     * drop the clients of no cluster idle for long, at most once per idle period
+     */
+    private static void sweep(long now) {
+        if (now - sweepTime < IDLE_MILLIS) {
+            return;
+        }
+        sweepTime = now;
+        new ArrayList<>(CLIENTS.entrySet()).forEach(e -> {
+            Entry entry = e.getValue();
+            if (entry.clusterIds.isEmpty() && !DEFAULT_KEY.equals(e.getKey()) && now - entry.accessTime > IDLE_MILLIS) {
+                remove(e.getKey(), entry);
+            }
+        });
+    }
+
+    private static void remove(String key, Entry entry) {
+        CLIENTS.remove(key);
+        entry.client.getHttpClient().connectionPool().evictAll();
+    }
+
+    private static ApiClient newClient(String config) throws IOException {
+        if (StrUtil.isBlank(config)) {
+            return Config.defaultClient();
+        }
+        return Config.fromConfig(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class Entry {
+
+        private final ApiClient client;
+
+        private final Set<Long> clusterIds = ConcurrentHashMap.newKeySet();
+
+        private final Date createTime = new Date();
+
+        private volatile long accessTime = System.currentTimeMillis();
+
+        private Entry(ApiClient client) {
+            this.client = client;
+        }
+    }
+}
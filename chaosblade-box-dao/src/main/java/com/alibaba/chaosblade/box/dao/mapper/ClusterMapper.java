@@ -2,6 +2,11 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.ClusterDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,4 +15,26 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ClusterMapper extends BaseMapper<ClusterDO> {
 
+    /**
+     * take or renew the collect lease, succeed when the lease is free, expired or already owned
+     */
+    @Update("update t_chaos_cluster set lease_owner = #{owner}, " +
+            "lease_expire_time = date_add(now(), interval #{seconds} second) " +
+            "where id = #{id} and (lease_owner is null or lease_owner = #{owner} or lease_expire_time < now())")
+    int acquireLease(@Param("id") Long id, @Param("owner") String owner, @Param("seconds") Integer seconds);
+
+    @Update("update t_chaos_cluster set lease_owner = null, lease_expire_time = null " +
+            "where id = #{id} and lease_owner = #{owner}")
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
+
+    @Insert("insert into t_chaos_collector_replica (replica, gmt_create, gmt_modified, expire_time) " +
+            "values (#{replica}, now(), now(), date_add(now(), interval #{seconds} second)) " +
+            "on duplicate key update gmt_modified = now(), expire_time = values(expire_time)")
+    int renewReplica(@Param("replica") String replica, @Param("seconds") Integer seconds);
+
+    @Select("select count(*) from t_chaos_collector_replica where expire_time > now()")
+    int selectLiveReplicaCount();
+
+    @Delete("delete from t_chaos_collector_replica where replica = #{replica} or expire_time < now()")
+    int deleteReplica(@Param("replica") String replica);
 }
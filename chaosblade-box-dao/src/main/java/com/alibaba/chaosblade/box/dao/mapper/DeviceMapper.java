@@ -18,12 +18,61 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.DeviceDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * @author yefei
  */
 @Repository
 public interface DeviceMapper extends BaseMapper<DeviceDO> {
 
+    /**
+     * refresh ping time of the devices of a type, gmt_modified is kept as nothing of the device changed
+     */
+    @Update("update t_chaos_device set last_ping_time = now() where type = #{type}")
+    int updatePingTime(@Param("type") Byte type);
+
+    /**
+     * refresh online time of the nodes of a cluster
+     */
+    @Update("update t_chaos_device d inner join t_chaos_device_node n on d.id = n.device_id " +
+            "set d.last_ping_time = now(), d.last_online_time = now() " +
+            "where n.cluster_id = #{clusterId} and d.status = #{status}")
+    int updateNodeOnlineTime(@Param("clusterId") Long clusterId, @Param("status") Byte status);
+
+    /**
+     * refresh online time of the pods of a cluster
+     */
+    @Update("update t_chaos_device d inner join t_chaos_device_pod p on d.id = p.device_id " +
+            "inner join t_chaos_device_node n on p.node_id = n.id " +
+            "set d.last_ping_time = now(), d.last_online_time = now() " +
+            "where n.cluster_id = #{clusterId} and d.status = #{status}")
+    int updatePodOnlineTime(@Param("clusterId") Long clusterId, @Param("status") Byte status);
+
+    /**
+     * insert or update by primary key
+     */
+    int batchUpsert(@Param("list") List<DeviceDO> list);
+
+    /**
+     * lock the devices whose last online time is before the expired time
+     */
+    @Select("select id from t_chaos_device " +
+            "where type = #{type} and status = #{status} and last_online_time < #{expiredTime} for update")
+    List<Long> selectExpiredIds(@Param("type") Byte type, @Param("status") Byte status,
+                                @Param("expiredTime") Date expiredTime);
+
+    /**
+     * transfer the expired devices to the target status
+     */
+    @Update("update t_chaos_device set status = #{target}, gmt_modified = now() " +
+            "where type = #{type} and status = #{status} and last_online_time < #{expiredTime}")
+    int updateExpiredStatus(@Param("type") Byte type, @Param("status") Byte status,
+                            @Param("expiredTime") Date expiredTime, @Param("target") Byte target);
 }
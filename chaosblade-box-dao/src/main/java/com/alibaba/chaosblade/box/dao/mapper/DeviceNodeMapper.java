@@ -18,11 +18,19 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.DeviceNodeDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @author yefei
  */
 @Repository
 public interface DeviceNodeMapper extends BaseMapper<DeviceNodeDO> {
+
+    /**
+     * insert or update by unique key (cluster_id, node_name)
+     */
+    int batchUpsert(@Param("list") List<DeviceNodeDO> list);
 }
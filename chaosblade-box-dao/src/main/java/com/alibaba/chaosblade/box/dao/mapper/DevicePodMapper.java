@@ -18,11 +18,19 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.DevicePodDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @author yefei
  */
 @Repository
 public interface DevicePodMapper extends BaseMapper<DevicePodDO> {
+
+    /**
+     * insert or update by unique key (namespace, pod_name)
+     */
+    int batchUpsert(@Param("list") List<DevicePodDO> list);
 }
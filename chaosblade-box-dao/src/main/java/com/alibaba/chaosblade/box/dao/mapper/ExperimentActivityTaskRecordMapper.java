@@ -18,11 +18,19 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @author yefei
  */
 @Repository
 public interface ExperimentActivityTaskRecordMapper extends BaseMapper<ExperimentActivityTaskRecordDO> {
+
+    /**
+     * insert the started records, ids are assigned by the caller
+     */
+    int batchInsert(@Param("list") List<ExperimentActivityTaskRecordDO> list);
 }
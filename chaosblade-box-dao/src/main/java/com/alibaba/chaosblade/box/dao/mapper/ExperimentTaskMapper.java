@@ -18,7 +18,9 @@ package com.alibaba.chaosblade.box.dao.mapper;
 
 import com.alibaba.chaosblade.box.dao.model.ExperimentTaskDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -36,4 +38,37 @@ public interface ExperimentTaskMapper extends BaseMapper<ExperimentTaskDO> {
     @Select("select count(*) as taskCount , max(date_format(gmt_start,'%Y-%m-%d')) as `date` from t_chaos_experiment_task group by date(gmt_start)")
     List<Map<Integer, Object>> queryTaskStatistics();
 
+    /**
+     * take or renew the lease of an unfinished task, succeed when the lease is free, expired or already owned
+     */
+    @Update("update t_chaos_experiment_task set lease_owner = #{owner}, " +
+            "lease_expire_time = date_add(now(), interval #{seconds} second) " +
+            "where id = #{id} and run_status <> 4 and (lease_owner is null or lease_owner = #{owner} " +
+            "or lease_expire_time is null or lease_expire_time < now())")
+    int acquireLease(@Param("id") Long id, @Param("owner") String owner, @Param("seconds") Integer seconds);
+
+    /**
+     * take the lease whoever owns it, the task is run by this replica from now on
+     */
+    @Update("update t_chaos_experiment_task set lease_owner = #{owner}, " +
+            "lease_expire_time = date_add(now(), interval #{seconds} second) where id = #{id}")
+    int takeLease(@Param("id") Long id, @Param("owner") String owner, @Param("seconds") Integer seconds);
+
+    @Update("update t_chaos_experiment_task set lease_expire_time = date_add(now(), interval #{seconds} second) " +
+            "where lease_owner = #{owner} and run_status <> 4")
+    int renewLeases(@Param("owner") String owner, @Param("seconds") Integer seconds);
+
+    /**
+     * unfinished leased tasks whose replica is gone
+     */
+    @Select("select id from t_chaos_experiment_task where run_status <> 4 " +
+            "and lease_owner is not null and (lease_expire_time is null or lease_expire_time < now())")
+    List<Long> selectOrphanIds();
+
+    /**
+     * ready or running tasks never leased, left by a box before the leases
+     */
+    @Select("select id from t_chaos_experiment_task where run_status in (0, 1) and lease_owner is null")
+    List<Long> selectUnleasedIds();
+
 }
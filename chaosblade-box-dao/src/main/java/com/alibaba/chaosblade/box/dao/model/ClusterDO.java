@@ -30,4 +30,8 @@ public class ClusterDO extends BaseDO {
 
     private Byte status;
 
+    private String leaseOwner;
+
+    private Date leaseExpireTime;
+
 }
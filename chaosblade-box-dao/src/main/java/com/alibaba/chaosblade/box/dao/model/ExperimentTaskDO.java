@@ -69,4 +69,11 @@ public class ExperimentTaskDO extends BaseDO {
 
     private String metric;
 
+    /**
+     * replica running the task
+     */
+    private String leaseOwner;
+
+    private Date leaseExpireTime;
+
 }
@@ -19,6 +19,9 @@ package com.alibaba.chaosblade.box.dao.page;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author yefei
  */
@@ -33,6 +36,24 @@ public class PageUtils {
         THREAD_LOCAL.set(PageHelper.startPage(pageQuery.getPage(), pageQuery.getPageSize()));
     }
 
+    /**
+     * page a list already in memory, the total is kept for the page response
+     */
+    public static <T> List<T> page(PageQuery pageQuery, List<T> list) {
+        if (!pageQuery.isPaged()) {
+            return list;
+        }
+        Page<T> page = new Page<>(pageQuery.getPage(), pageQuery.getPageSize());
+        page.setTotal(list.size());
+        THREAD_LOCAL.set(page);
+
+        int from = Math.max(0, (pageQuery.getPage() - 1) * pageQuery.getPageSize());
+        if (from >= list.size()) {
+            return Collections.emptyList();
+        }
+        return list.subList(from, Math.min(list.size(), from + pageQuery.getPageSize()));
+    }
+
     public static Page getPage() {
         return THREAD_LOCAL.get();
     }
@@ -47,4 +47,30 @@ public class ClusterRepository implements IRepository<Long, ClusterDO> {
         }
         return clusterMapper.selectList(queryWrapper);
     }
+
+    /**
+     * @param id
+     * @param owner   replica id
+     * @param seconds lease duration
+     * @return true if the replica owns the cluster now
+     */
+    public boolean acquireLease(Long id, String owner, Integer seconds) {
+        return clusterMapper.acquireLease(id, owner, seconds) > 0;
+    }
+
+    public boolean releaseLease(Long id, String owner) {
+        return clusterMapper.releaseLease(id, owner) > 0;
+    }
+
+    public void renewReplica(String replica, Integer seconds) {
+        clusterMapper.renewReplica(replica, seconds);
+    }
+
+    public int selectLiveReplicaCount() {
+        return clusterMapper.selectLiveReplicaCount();
+    }
+
+    public void deleteReplica(String replica) {
+        clusterMapper.deleteReplica(replica);
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.dao.repository;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import com.alibaba.chaosblade.box.common.enums.DeviceStatus;
+import com.alibaba.chaosblade.box.common.enums.DeviceType;
+import com.alibaba.chaosblade.box.dao.QueryWrapperBuilder;
+import com.alibaba.chaosblade.box.dao.mapper.DeviceMapper;
+import com.alibaba.chaosblade.box.dao.mapper.DeviceNodeMapper;
+import com.alibaba.chaosblade.box.dao.mapper.DevicePodMapper;
+import com.alibaba.chaosblade.box.dao.model.DeviceDO;
+import com.alibaba.chaosblade.box.dao.model.DeviceNodeDO;
+import com.alibaba.chaosblade.box.dao.model.DevicePodDO;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batched writes of the collected kubernetes inventory, a batch costs three statements:
+ * upsert the node/pod rows by their natural key, read back their device ids,
+ * then upsert the device rows by primary key.
+ *
+ * @author yefei
+ */
+@Repository
+public class DeviceInventoryRepository {
+
+    @Value("${chaos.collector.batchSize:500}")
+    private int batchSize;
+
+    @Autowired
+    private DeviceMapper deviceMapper;
+
+    @Autowired
+    private DeviceNodeMapper deviceNodeMapper;
+
+    @Autowired
+    private DevicePodMapper devicePodMapper;
+
+    /**
+     * @param clusterId
+     * @param nodes     nodeName and nodeIp are required
+     * @return the saved node rows
+     */
+    public List<DeviceNodeDO> saveNodes(Long clusterId, List<DeviceNodeDO> nodes) {
+        List<DeviceNodeDO> saved = new ArrayList<>(nodes.size());
+        for (List<DeviceNodeDO> batch : CollUtil.split(nodes, batchSize)) {
+            for (DeviceNodeDO node : batch) {
+                node.setId(IdWorker.getId());
+                node.setClusterId(clusterId);
+                // kept only when the node row is new
+                node.setDeviceId(IdWorker.getId());
+            }
+            deviceNodeMapper.batchUpsert(batch);
+
+            QueryWrapper<DeviceNodeDO> queryWrapper = QueryWrapperBuilder.build();
+            queryWrapper.lambda().eq(DeviceNodeDO::getClusterId, clusterId);
+            queryWrapper.lambda().in(DeviceNodeDO::getNodeName,
+                    batch.stream().map(DeviceNodeDO::getNodeName).collect(Collectors.toSet()));
+            List<DeviceNodeDO> rows = deviceNodeMapper.selectList(queryWrapper);
+            Map<String, DeviceNodeDO> nodeMap = rows.stream()
+                    .collect(Collectors.toMap(DeviceNodeDO::getNodeName, Function.identity(), (a, b) -> a));
+
+            Date now = DateUtil.date();
+            List<DeviceDO> devices = new ArrayList<>(batch.size());
+            for (DeviceNodeDO node : batch) {
+                DeviceNodeDO row = nodeMap.get(node.getNodeName());
+                if (row == null) {
+                    continue;
+                }
+                DeviceDO deviceDO = DeviceDO.builder()
+                        .hostname(node.getNodeName())
+                        .ip(node.getNodeIp())
+                        .type(DeviceType.NODE.getCode())
+                        .status(DeviceStatus.ONLINE.getStatus())
+                        .lastPingTime(now)
+                        .lastOnlineTime(now)
+                        .build();
+                deviceDO.setId(row.getDeviceId());
+                devices.add(deviceDO);
+            }
+            if (!devices.isEmpty()) {
+                deviceMapper.batchUpsert(devices);
+            }
+            saved.addAll(rows);
+        }
+        return saved;
+    }
+
+    /**
+     * @param pods nodeId, namespace and podName are required, null podIp or containers keep the saved value
+     * @return the saved pod rows
+     */
+    public List<DevicePodDO> savePods(List<DevicePodDO> pods) {
+        List<DevicePodDO> saved = new ArrayList<>(pods.size());
+        for (List<DevicePodDO> batch : CollUtil.split(pods, batchSize)) {
+            for (DevicePodDO pod : batch) {
+                pod.setId(IdWorker.getId());
+                // kept only when the pod row is new
+                pod.setDeviceId(IdWorker.getId());
+            }
+            devicePodMapper.batchUpsert(batch);
+
+            // a pod row is per node, the same namespace and name may be in another cluster
+            QueryWrapper<DevicePodDO> queryWrapper = QueryWrapperBuilder.build();
+            queryWrapper.lambda().in(DevicePodDO::getNodeId,
+                    batch.stream().map(DevicePodDO::getNodeId).collect(Collectors.toSet()));
+            queryWrapper.lambda().in(DevicePodDO::getNamespace,
+                    batch.stream().map(DevicePodDO::getNamespace).collect(Collectors.toSet()));
+            queryWrapper.lambda().in(DevicePodDO::getPodName,
+                    batch.stream().map(DevicePodDO::getPodName).collect(Collectors.toSet()));
+            Map<String, DevicePodDO> podMap = devicePodMapper.selectList(queryWrapper).stream()
+                    .collect(Collectors.toMap(DeviceInventoryRepository::podKey,
+                            Function.identity(), (a, b) -> a));
+
+            Date now = DateUtil.date();
+            List<DeviceDO> devices = new ArrayList<>(batch.size());
+            for (DevicePodDO pod : batch) {
+                DevicePodDO row = podMap.get(podKey(pod));
+                if (row == null) {
+                    continue;
+                }
+                DeviceDO deviceDO = DeviceDO.builder()
+                        .hostname(pod.getPodName())
+                        .ip(pod.getPodIp())
+                        .type(DeviceType.POD.getCode())
+                        .status(DeviceStatus.ONLINE.getStatus())
+                        .lastPingTime(now)
+                        .lastOnlineTime(now)
+                        .build();
+                deviceDO.setId(row.getDeviceId());
+                devices.add(deviceDO);
+                saved.add(row);
+            }
+            if (!devices.isEmpty()) {
+                deviceMapper.batchUpsert(devices);
+            }
+        }
+        return saved;
+    }
+
+    private static String podKey(DevicePodDO pod) {
+        return pod.getNodeId() + "/" + pod.getNamespace() + "/" + pod.getPodName();
+    }
+}
@@ -25,6 +25,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -92,4 +93,16 @@ public class DeviceNodeRepository implements IRepository<Long, DeviceNodeDO> {
         }
         return deviceNodeMapper.selectList(queryWrapper);
     }
+
+    /**
+     * @param since null for all
+     * @return
+     */
+    public List<DeviceNodeDO> selectModifiedSince(Date since) {
+        QueryWrapper<DeviceNodeDO> queryWrapper = QueryWrapperBuilder.build();
+        if (since != null) {
+            queryWrapper.lambda().ge(DeviceNodeDO::getGmtModified, since);
+        }
+        return deviceNodeMapper.selectList(queryWrapper);
+    }
 }
@@ -26,6 +26,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -89,9 +91,17 @@ public class DevicePodRepository implements IRepository<Long, DevicePodDO> {
         return devicePodMapper.selectList(queryWrapper);
     }
 
-    public Optional<DevicePodDO> selectByNameAndNamespace(String namespace,
+    public List<DevicePodDO> selectByPodNames(Collection<String> podNames, Collection<Long> nodeIds) {
+        QueryWrapper<DevicePodDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(DevicePodDO::getPodName, podNames);
+        queryWrapper.lambda().in(DevicePodDO::getNodeId, nodeIds);
+        return devicePodMapper.selectList(queryWrapper);
+    }
+
+    public Optional<DevicePodDO> selectByNameAndNamespace(Long nodeId, String namespace,
                                                           String podName) {
         QueryWrapper<DevicePodDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().eq(DevicePodDO::getNodeId, nodeId);
         queryWrapper.lambda().eq(DevicePodDO::getPodName, podName);
         queryWrapper.lambda().eq(DevicePodDO::getNamespace, namespace);
         return Optional.ofNullable(devicePodMapper.selectOne(queryWrapper));
@@ -119,4 +129,16 @@ public class DevicePodRepository implements IRepository<Long, DevicePodDO> {
         queryWrapper.lambda().eq(DevicePodDO::getDeviceId, id);
         return Optional.ofNullable(devicePodMapper.selectOne(queryWrapper));
     }
+
+    /**
+     * @param since null for all
+     * @return
+     */
+    public List<DevicePodDO> selectModifiedSince(Date since) {
+        QueryWrapper<DevicePodDO> queryWrapper = QueryWrapperBuilder.build();
+        if (since != null) {
+            queryWrapper.lambda().ge(DevicePodDO::getGmtModified, since);
+        }
+        return devicePodMapper.selectList(queryWrapper);
+    }
 }
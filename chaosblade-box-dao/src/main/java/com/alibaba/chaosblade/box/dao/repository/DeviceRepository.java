@@ -25,9 +25,12 @@ import com.alibaba.chaosblade.box.dao.model.DeviceDO;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -104,6 +107,78 @@ public class DeviceRepository implements IRepository<Long, DeviceDO> {
         return deviceMapper.selectBatchIds(idList);
     }
 
+    /**
+     * update the non-null fields of the devices in one statement
+     */
+    public int updateByIds(Collection<Long> ids, DeviceDO deviceDO) {
+        QueryWrapper<DeviceDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(DeviceDO::getId, ids);
+        return deviceMapper.update(deviceDO, queryWrapper);
+    }
+
+    /**
+     * transfer the devices in the status to the target status
+     *
+     * @param ids
+     * @param status
+     * @param onlineBefore null for any last online time
+     * @param target
+     * @return
+     */
+    public int updateStatusByIds(Collection<Long> ids, Byte status, Date onlineBefore, Byte target) {
+        QueryWrapper<DeviceDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(DeviceDO::getId, ids);
+        queryWrapper.lambda().eq(DeviceDO::getStatus, status);
+        if (onlineBefore != null) {
+            queryWrapper.lambda().lt(DeviceDO::getLastOnlineTime, onlineBefore);
+        }
+        return deviceMapper.update(DeviceDO.builder().status(target).build(), queryWrapper);
+    }
+
+    /**
+     * @param types
+     * @param since null for all
+     * @return
+     */
+    public List<DeviceDO> selectModifiedSince(Collection<Byte> types, Date since) {
+        QueryWrapper<DeviceDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(DeviceDO::getType, types);
+        if (since != null) {
+            queryWrapper.lambda().ge(DeviceDO::getGmtModified, since);
+        }
+        return deviceMapper.selectList(queryWrapper);
+    }
+
+    public int updatePingTime(Byte type) {
+        return deviceMapper.updatePingTime(type);
+    }
+
+    public int updateNodeOnlineTime(Long clusterId) {
+        return deviceMapper.updateNodeOnlineTime(clusterId, DeviceStatus.ONLINE.getStatus());
+    }
+
+    public int updatePodOnlineTime(Long clusterId) {
+        return deviceMapper.updatePodOnlineTime(clusterId, DeviceStatus.ONLINE.getStatus());
+    }
+
+    /**
+     * offline the online devices of the type whose last online time is before the expired time
+     *
+     * @param deviceType
+     * @param expiredTime
+     * @return offline device ids
+     */
+    @Transactional
+    public List<Long> offlineExpired(Byte deviceType, Date expiredTime) {
+        List<Long> ids = deviceMapper.selectExpiredIds(deviceType, DeviceStatus.ONLINE.getStatus(), expiredTime);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        deviceMapper.updateExpiredStatus(deviceType, DeviceStatus.ONLINE.getStatus(), expiredTime,
+                DeviceStatus.OFFLINE.getStatus());
+        return ids;
+    }
+
     public Integer selectHostCount() {
         QueryWrapper<DeviceDO> queryWrapper = new QueryWrapper<>();
         queryWrapper.lambda().eq(DeviceDO::getType, DeviceType.HOST.getCode());
@@ -0,0 +1,63 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.dao.repository;
+
+import com.alibaba.chaosblade.box.dao.QueryWrapperBuilder;
+import com.alibaba.chaosblade.box.dao.mapper.ExperimentActivityTaskEdgeMapper;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskEdgeDO;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author yefei
+ */
+@Repository
+public class ExperimentActivityTaskEdgeRepository extends ServiceImpl<ExperimentActivityTaskEdgeMapper, ExperimentActivityTaskEdgeDO>
+        implements IRepository<Long, ExperimentActivityTaskEdgeDO> {
+
+    @Autowired
+    private ExperimentActivityTaskEdgeMapper experimentActivityTaskEdgeMapper;
+
+    public List<ExperimentActivityTaskEdgeDO> selectByTaskId(Long experimentTaskId) {
+        QueryWrapper<ExperimentActivityTaskEdgeDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().eq(ExperimentActivityTaskEdgeDO::getExperimentTaskId, experimentTaskId);
+        return experimentActivityTaskEdgeMapper.selectList(queryWrapper);
+    }
+
+    @Override
+    public Optional<ExperimentActivityTaskEdgeDO> selectById(Long aLong) {
+        return Optional.ofNullable(experimentActivityTaskEdgeMapper.selectById(aLong));
+    }
+
+    @Override
+    public Long insert(ExperimentActivityTaskEdgeDO experimentActivityTaskEdgeDO) {
+        experimentActivityTaskEdgeMapper.insert(experimentActivityTaskEdgeDO);
+        return experimentActivityTaskEdgeDO.getId();
+    }
+
+    @Override
+    public boolean updateByPrimaryKey(Long id, ExperimentActivityTaskEdgeDO experimentActivityTaskEdgeDO) {
+        experimentActivityTaskEdgeDO.setId(id);
+        return experimentActivityTaskEdgeMapper.updateById(experimentActivityTaskEdgeDO) == 1;
+    }
+}
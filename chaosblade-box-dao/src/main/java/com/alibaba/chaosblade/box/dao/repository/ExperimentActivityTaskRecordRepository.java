@@ -16,12 +16,14 @@
 
 package com.alibaba.chaosblade.box.dao.repository;
 
+import cn.hutool.core.collection.CollUtil;
 import com.alibaba.chaosblade.box.dao.QueryWrapperBuilder;
 import com.alibaba.chaosblade.box.dao.mapper.ExperimentActivityMapper;
 import com.alibaba.chaosblade.box.dao.mapper.ExperimentActivityTaskRecordMapper;
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityDO;
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -36,6 +38,8 @@ import java.util.Optional;
 public class ExperimentActivityTaskRecordRepository extends ServiceImpl<ExperimentActivityTaskRecordMapper, ExperimentActivityTaskRecordDO>
         implements IRepository<Long, ExperimentActivityTaskRecordDO> {
 
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private ExperimentActivityTaskRecordMapper experimentActivityTaskRecordMapper;
 
@@ -57,6 +61,16 @@ public class ExperimentActivityTaskRecordRepository extends ServiceImpl<Experime
         return experimentActivityTaskRecordDO.getId();
     }
 
+    /**
+     * insert the records with one statement per batch, their ids are set
+     */
+    public void insertBatch(List<ExperimentActivityTaskRecordDO> records) {
+        records.forEach(record -> record.setId(IdWorker.getId()));
+        for (List<ExperimentActivityTaskRecordDO> batch : CollUtil.split(records, BATCH_SIZE)) {
+            experimentActivityTaskRecordMapper.batchInsert(batch);
+        }
+    }
+
     @Override
     public boolean updateByPrimaryKey(Long id, ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO) {
         experimentActivityTaskRecordDO.setId(id);
@@ -67,4 +67,24 @@ public class ExperimentTaskRepository implements IRepository<Long, ExperimentTas
         return experimentTaskMapper.selectList(queryWrapper);
     }
 
+    public boolean acquireLease(Long id, String owner, Integer seconds) {
+        return experimentTaskMapper.acquireLease(id, owner, seconds) > 0;
+    }
+
+    public boolean takeLease(Long id, String owner, Integer seconds) {
+        return experimentTaskMapper.takeLease(id, owner, seconds) > 0;
+    }
+
+    public int renewLeases(String owner, Integer seconds) {
+        return experimentTaskMapper.renewLeases(owner, seconds);
+    }
+
+    public List<Long> selectOrphanIds() {
+        return experimentTaskMapper.selectOrphanIds();
+    }
+
+    public List<Long> selectUnleasedIds() {
+        return experimentTaskMapper.selectUnleasedIds();
+    }
+
 }
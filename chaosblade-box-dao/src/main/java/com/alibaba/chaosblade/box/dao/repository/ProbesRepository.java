@@ -26,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -96,6 +97,34 @@ public class ProbesRepository implements IRepository<Long, ProbesDO> {
         return probesMapper.selectBatchIds(collection);
     }
 
+    /**
+     * update the non-null fields of the probes in one statement
+     */
+    public int updateByIds(Collection<Long> ids, ProbesDO probesDO) {
+        QueryWrapper<ProbesDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(ProbesDO::getId, ids);
+        return probesMapper.update(probesDO, queryWrapper);
+    }
+
+    /**
+     * transfer the probes in the status to the target status
+     *
+     * @param ids
+     * @param status
+     * @param onlineBefore null for any last online time
+     * @param target
+     * @return
+     */
+    public int updateStatusByIds(Collection<Long> ids, Byte status, Date onlineBefore, Byte target) {
+        QueryWrapper<ProbesDO> queryWrapper = QueryWrapperBuilder.build();
+        queryWrapper.lambda().in(ProbesDO::getId, ids);
+        queryWrapper.lambda().eq(ProbesDO::getStatus, status);
+        if (onlineBefore != null) {
+            queryWrapper.lambda().lt(ProbesDO::getLastOnlineTime, onlineBefore);
+        }
+        return probesMapper.update(ProbesDO.builder().status(target).build(), queryWrapper);
+    }
+
     @Override
     public Optional<ProbesDO> selectById(Long aLong) {
         return Optional.ofNullable(probesMapper.selectById(aLong));
@@ -16,6 +16,7 @@
 
 package com.alibaba.chaosblade.box.invoker;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -29,4 +30,18 @@ public interface ChaosInvoker<Request extends RequestCommand, Response extends R
      */
     CompletableFuture<Response> invoke(Request request);
 
+    /**
+     * invoke with at most maxInFlight requests in flight, each result goes to the listener as it completes
+     *
+     * @param requests
+     * @param maxInFlight
+     * @param timeoutMillis deadline of the whole batch, 0 for none
+     * @param listener
+     * @return completes once every request is reported
+     */
+    default CompletableFuture<Void> invokeAll(List<Request> requests, int maxInFlight, long timeoutMillis,
+                                              InvokeListener<Request, Response> listener) {
+        return new InvokeWindow<>(this, requests, maxInFlight, listener).start(timeoutMillis);
+    }
+
 }
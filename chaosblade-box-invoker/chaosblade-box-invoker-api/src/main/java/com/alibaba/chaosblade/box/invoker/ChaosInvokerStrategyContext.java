@@ -16,22 +16,15 @@
 
 package com.alibaba.chaosblade.box.invoker;
 
-import cn.hutool.core.util.ArrayUtil;
-import cn.hutool.core.util.EnumUtil;
-import cn.hutool.core.util.StrUtil;
-import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
-import com.alibaba.chaosblade.box.common.enums.DeviceType;
-import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
 import com.alibaba.chaosblade.box.common.exception.ExceptionMessageEnum;
 import com.alibaba.chaosblade.box.common.utils.Preconditions;
-import com.alibaba.chaosblade.box.common.utils.SceneCodeParseUtil;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author yefei
@@ -39,14 +32,23 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 public class ChaosInvokerStrategyContext implements ChaosInvoker<RequestCommand, ResponseCommand>, BeanPostProcessor {
 
-    private Map<ChaosInvokerStrategy, ChaosInvoker<RequestCommand, ResponseCommand>> strategies = new ConcurrentHashMap<>();
+    private final Map<ChaosInvokerStrategy, ChaosInvoker<RequestCommand, ResponseCommand>> strategies = new LinkedHashMap<>();
+
+    /**
+     * rebuilt when an invoker is registered, only at startup
+     */
+    private volatile InvokerRoutingIndex<ChaosInvoker<RequestCommand, ResponseCommand>> index =
+            InvokerRoutingIndex.build(strategies);
 
     @Override
     public Object postProcessBeforeInitialization(Object o, String s) throws BeansException {
         if (o instanceof ChaosInvoker) {
             ChaosInvokerStrategy strategy = o.getClass().getAnnotation(ChaosInvokerStrategy.class);
             if (strategy != null) {
-                strategies.put(strategy, (ChaosInvoker) o);
+                synchronized (strategies) {
+                    strategies.put(strategy, (ChaosInvoker) o);
+                    index = InvokerRoutingIndex.build(strategies);
+                }
             }
         }
         return o;
@@ -54,42 +56,8 @@ public class ChaosInvokerStrategyContext implements ChaosInvoker<RequestCommand,
 
     @Override
     public CompletableFuture<ResponseCommand> invoke(RequestCommand requestCommand) {
-        String original = SceneCodeParseUtil.getOriginal(requestCommand.getSceneCode());
-        String scope = requestCommand.getScope();
-        String phase = requestCommand.getPhase();
-
-        ChaosInvoker<RequestCommand, ResponseCommand> invoker = null;
-        for (ChaosInvokerStrategy strategy : strategies.keySet()) {
-            if (StrUtil.isNotBlank(strategy.sceneCode()) && requestCommand.getSceneCode().startsWith(strategy.sceneCode())) {
-                invoker = strategies.get(strategy);
-                break;
-            }
-            if (strategy.value().getName().equals(original)) {
-                if (ArrayUtil.isEmpty(strategy.deviceType())) {
-                    continue;
-                }
-                for (DeviceType deviceType : strategy.deviceType()) {
-                    ExperimentDimension dimension = EnumUtil.fromString(ExperimentDimension.class, scope.toUpperCase());
-                    if (deviceType == dimension.getDeviceType()) {
-                        if (ArrayUtil.isEmpty(strategy.phase())) {
-                            continue;
-                        }
-                        for (String s : strategy.phase()) {
-                            if (s.equals(ChaosConstant.PHASE_ALL) || s.equals(phase)) {
-                                invoker = strategies.get(strategy);
-                                break;
-                            }
-                        }
-                        if (invoker != null) {
-                            break;
-                        }
-                    }
-                }
-                if (invoker != null) {
-                    break;
-                }
-            }
-        }
+        ChaosInvoker<RequestCommand, ResponseCommand> invoker = index.route(requestCommand.getSceneCode(),
+                requestCommand.getScope(), requestCommand.getPhase());
         Preconditions.checkNotNull(invoker, ExceptionMessageEnum.INVOKER_NOT_EXISTS);
         return invoker.invoke(requestCommand);
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker;
+
+import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
+import com.alibaba.chaosblade.box.common.utils.timer.Timeout;
+import com.alibaba.chaosblade.box.common.utils.timer.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadlines of the requests, in epoch millis, null for no deadline.
+ *
+ * @author yefei
+ */
+public final class Deadlines {
+
+    static final Timer TIMER = new HashedWheelTimer(r -> {
+        Thread thread = new Thread(r);
+        thread.setName("invoke-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Deadlines() {
+    }
+
+    /**
+     * @return millis left, Long.MAX_VALUE for no deadline
+     */
+    public static long remaining(Long deadline) {
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    public static boolean expired(Long deadline) {
+        return remaining(deadline) <= 0;
+    }
+
+    public static TimeoutException exceeded() {
+        return new TimeoutException("invoke deadline exceeded");
+    }
+
+    /**
+     * completes the future with a TimeoutException at the deadline, unless it is done before
+     *
+     * @return the same future
+     */
+    public static <T> CompletableFuture<T> within(CompletableFuture<T> future, Long deadline) {
+        if (deadline == null || future.isDone()) {
+            return future;
+        }
+        long remaining = remaining(deadline);
+        if (remaining <= 0) {
+            future.completeExceptionally(exceeded());
+            return future;
+        }
+        Timeout timeout = TIMER.newTimeout(t -> future.completeExceptionally(exceeded()), remaining, TimeUnit.MILLISECONDS);
+        future.whenComplete((r, e) -> timeout.cancel());
+        return future;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker;
+
+/**
+ * Result of one request of {@link ChaosInvoker#invokeAll}, called as soon as the request completes.
+ *
+ * @author yefei
+ */
+@FunctionalInterface
+public interface InvokeListener<Request extends RequestCommand, Response extends ResponseCommand> {
+
+    /**
+     * @param request
+     * @param response  null if failed
+     * @param throwable null if succeeded, a {@link java.util.concurrent.TimeoutException} past the deadline
+     */
+    void onComplete(Request request, Response response, Throwable throwable);
+}
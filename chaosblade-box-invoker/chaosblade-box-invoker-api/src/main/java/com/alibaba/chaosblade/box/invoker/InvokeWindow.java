@@ -0,0 +1,166 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.chaosblade.box.invoker;
+
+import com.alibaba.chaosblade.box.common.utils.timer.Timeout;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A window of requests in flight, the next request starts when one completes.
+ * Past the deadline no request starts, the ones not completed are reported as timed out and cancelled.
+ *
+ * @author yefei
+ */
+@Slf4j
+final class InvokeWindow<Request extends RequestCommand, Response extends ResponseCommand> {
+
+    private final ChaosInvoker<Request, Response> invoker;
+
+    private final List<Request> requests;
+
+    private final int maxInFlight;
+
+    private final InvokeListener<Request, Response> listener;
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    /**
+     * 1 once the request is reported
+     */
+    private final AtomicIntegerArray reported;
+
+    private final AtomicReferenceArray<CompletableFuture<Response>> invoked;
+
+    private final AtomicInteger remaining;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * only the thread draining touches next
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private int next;
+
+    private volatile boolean expired;
+
+    InvokeWindow(ChaosInvoker<Request, Response> invoker, List<Request> requests, int maxInFlight,
+                 InvokeListener<Request, Response> listener) {
+        this.invoker = invoker;
+        this.requests = requests;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.listener = listener;
+        this.reported = new AtomicIntegerArray(requests.size());
+        this.invoked = new AtomicReferenceArray<>(requests.size());
+        this.remaining = new AtomicInteger(requests.size());
+    }
+
+    CompletableFuture<Void> start(long timeoutMillis) {
+        if (requests.isEmpty()) {
+            future.complete(null);
+            return future;
+        }
+        if (timeoutMillis > 0) {
+            Timeout timeout = Deadlines.TIMER.newTimeout(t -> expire(), timeoutMillis, TimeUnit.MILLISECONDS);
+            future.whenComplete((r, e) -> timeout.cancel());
+        }
+        drain();
+        return future;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (!expired && next < requests.size() && inFlight.get() < maxInFlight) {
+                int index = next++;
+                inFlight.incrementAndGet();
+                invoke(index);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void invoke(int index) {
+        CompletableFuture<Response> invoke;
+        try {
+            invoke = invoker.invoke(requests.get(index));
+        } catch (Throwable e) {
+            invoke = new CompletableFuture<>();
+            invoke.completeExceptionally(e);
+        }
+        invoked.set(index, invoke);
+        if (expired) {
+            invoke.cancel(false);
+        }
+        invoke.whenComplete((response, e) -> {
+            inFlight.decrementAndGet();
+            report(index, response, e);
+            drain();
+        });
+    }
+
+    private void expire() {
+        expired = true;
+        TimeoutException exception = Deadlines.exceeded();
+        boolean done = false;
+        for (int i = 0; i < requests.size(); i++) {
+            done |= onComplete(i, null, exception);
+        }
+        // the invokers abort the work of a cancelled future, cancelled before the window completes
+        for (int i = 0; i < requests.size(); i++) {
+            CompletableFuture<Response> invoke = invoked.get(i);
+            if (invoke != null) {
+                invoke.cancel(false);
+            }
+        }
+        if (done) {
+            future.complete(null);
+        }
+    }
+
+    private void report(int index, Response response, Throwable e) {
+        if (onComplete(index, response, e)) {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * @return whether it is the last request reported
+     */
+    private boolean onComplete(int index, Response response, Throwable e) {
+        if (!reported.compareAndSet(index, 0, 1)) {
+            return false;
+        }
+        try {
+            listener.onComplete(requests.get(index), response,
+                    e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        } catch (Throwable t) {
+            log.error("invoke listener fail", t);
+        }
+        return remaining.decrementAndGet() == 0;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
+import com.alibaba.chaosblade.box.common.enums.DeviceType;
+import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
+
+import java.util.*;
+
+/**
+ * Immutable routing table of the invoker strategies, built once from the registered strategies.
+ * <p>
+ * A scene code prefix strategy wins first, the longest prefix if several match; otherwise the
+ * strategy is found by (original, device type, phase), an exact phase before {@link ChaosConstant#PHASE_ALL}.
+ * When strategies overlap the first registered one is kept. A lookup walks the scene code once
+ * and does not allocate.
+ *
+ * @author yefei
+ */
+public final class InvokerRoutingIndex<V> {
+
+    private static final Map<String, DeviceType> SCOPES = new HashMap<>();
+
+    static {
+        for (ExperimentDimension dimension : ExperimentDimension.values()) {
+            if (dimension.getDeviceType() != null) {
+                SCOPES.put(dimension.name(), dimension.getDeviceType());
+                SCOPES.put(dimension.name().toLowerCase(), dimension.getDeviceType());
+            }
+        }
+    }
+
+    private final Trie<V> sceneCodes = new Trie<>();
+
+    private final Trie<Map<DeviceType, Map<String, V>>> originals = new Trie<>();
+
+    private InvokerRoutingIndex() {
+    }
+
+    /**
+     * @param strategies in registration order
+     */
+    public static <V> InvokerRoutingIndex<V> build(Map<ChaosInvokerStrategy, V> strategies) {
+        InvokerRoutingIndex<V> index = new InvokerRoutingIndex<>();
+        for (Map.Entry<ChaosInvokerStrategy, V> entry : strategies.entrySet()) {
+            ChaosInvokerStrategy strategy = entry.getKey();
+            if (StrUtil.isNotBlank(strategy.sceneCode())) {
+                index.sceneCodes.putIfAbsent(strategy.sceneCode(), entry.getValue());
+            }
+            Map<DeviceType, Map<String, V>> deviceTypes = index.originals.get(strategy.value().getName(), '.');
+            if (deviceTypes == null) {
+                deviceTypes = new EnumMap<>(DeviceType.class);
+                index.originals.putIfAbsent(strategy.value().getName(), deviceTypes);
+            }
+            for (DeviceType deviceType : strategy.deviceType()) {
+                Map<String, V> phases = deviceTypes.computeIfAbsent(deviceType, k -> new HashMap<>());
+                for (String phase : strategy.phase()) {
+                    phases.putIfAbsent(phase, entry.getValue());
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return null if no strategy matches
+     */
+    public V route(String sceneCode, String scope, String phase) {
+        if (sceneCode == null) {
+            return null;
+        }
+        V value = sceneCodes.longestPrefix(sceneCode);
+        if (value != null) {
+            return value;
+        }
+        // original is the scene code before the first '.'
+        Map<DeviceType, Map<String, V>> deviceTypes = originals.get(sceneCode, '.');
+        if (deviceTypes == null || scope == null) {
+            return null;
+        }
+        DeviceType deviceType = SCOPES.get(scope);
+        if (deviceType == null) {
+            deviceType = SCOPES.get(scope.toUpperCase());
+        }
+        Map<String, V> phases = deviceType == null ? null : deviceTypes.get(deviceType);
+        if (phases == null) {
+            return null;
+        }
+        value = phase == null ? null : phases.get(phase);
+        return value != null ? value : phases.get(ChaosConstant.PHASE_ALL);
+    }
+
+    private static final class Trie<T> {
+
+        private final Map<Character, Trie<T>> children = new HashMap<>();
+
+        private T value;
+
+        void putIfAbsent(String key, T value) {
+            Trie<T> node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), k -> new Trie<>());
+            }
+            if (node.value == null) {
+                node.value = value;
+            }
+        }
+
+        /**
+         * value of the key equal to s before the delimiter, the whole s if absent
+         */
+        T get(String s, char delimiter) {
+            Trie<T> node = this;
+            for (int i = 0; i < s.length() && s.charAt(i) != delimiter; i++) {
+                node = node.child(s.charAt(i));
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node.value;
+        }
+
+        /**
+         * value of the longest key that s starts with
+         */
+        T longestPrefix(String s) {
+            Trie<T> node = this;
+            T found = null;
+            for (int i = 0; i < s.length(); i++) {
+                node = node.child(s.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.value != null) {
+                    found = node.value;
+                }
+            }
+            return found;
+        }
+
+        private Trie<T> child(char c) {
+            return children.isEmpty() ? null : children.get(c);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.alibaba.chaosblade.box.invoker;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.util.Map;
@@ -44,4 +45,16 @@ public class RequestCommand {
 
     private String config;
 
+    /**
+     * requests with the same key may be packed into one invocation, null for never
+     */
+    @JsonIgnore
+    private String coalesceKey;
+
+    /**
+     * epoch millis, the invokers give up the request after it, null for never
+     */
+    @JsonIgnore
+    private Long deadline;
+
 }
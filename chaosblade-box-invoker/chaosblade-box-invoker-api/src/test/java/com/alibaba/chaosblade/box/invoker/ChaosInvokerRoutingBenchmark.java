@@ -0,0 +1,204 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker;
+
+import cn.hutool.core.util.ArrayUtil;
+import cn.hutool.core.util.EnumUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
+import com.alibaba.chaosblade.box.common.enums.ChaosTools;
+import com.alibaba.chaosblade.box.common.enums.DeviceType;
+import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
+import com.alibaba.chaosblade.box.common.utils.SceneCodeParseUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing of {@link ChaosInvokerStrategyContext}, the strategy scan it used before against {@link InvokerRoutingIndex}.
+ * Run the main method with the test classpath.
+ *
+ * @author yefei
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChaosInvokerRoutingBenchmark {
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, sceneCode = "chasobalde.revoke")
+    static class Revoke {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, phase = ChaosConstant.PHASE_PREPARE)
+    static class HostPrepare {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, phase = ChaosConstant.PHASE_ATTACK)
+    static class HostAttack {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, phase = ChaosConstant.PHASE_RECOVER)
+    static class HostRecover {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST)
+    static class HostPing {
+    }
+
+    @ChaosInvokerStrategy(deviceType = {DeviceType.NODE, DeviceType.POD}, phase = ChaosConstant.PHASE_ATTACK)
+    static class KubeAttack {
+    }
+
+    @ChaosInvokerStrategy(deviceType = {DeviceType.NODE, DeviceType.POD}, phase = ChaosConstant.PHASE_RECOVER)
+    static class KubeRecover {
+    }
+
+    @ChaosInvokerStrategy(value = ChaosTools.LITMUS_CHAOS, deviceType = {DeviceType.NODE, DeviceType.POD},
+            phase = ChaosConstant.PHASE_ATTACK)
+    static class LitmusAttack {
+    }
+
+    @ChaosInvokerStrategy(value = ChaosTools.LITMUS_CHAOS, deviceType = {DeviceType.NODE, DeviceType.POD},
+            phase = ChaosConstant.PHASE_RECOVER)
+    static class LitmusRecover {
+    }
+
+    private static final Class<?>[] STRATEGIES = {
+            Revoke.class, HostPrepare.class, HostAttack.class, HostRecover.class, HostPing.class,
+            KubeAttack.class, KubeRecover.class, LitmusAttack.class, LitmusRecover.class
+    };
+
+    private Map<ChaosInvokerStrategy, String> strategies;
+
+    private InvokerRoutingIndex<String> index;
+
+    private RequestCommand[] requests;
+
+    @Setup
+    public void setup() {
+        Map<ChaosInvokerStrategy, String> ordered = new LinkedHashMap<>();
+        for (Class<?> clazz : STRATEGIES) {
+            ordered.put(clazz.getAnnotation(ChaosInvokerStrategy.class), clazz.getSimpleName());
+        }
+        strategies = new ConcurrentHashMap<>(ordered);
+        index = InvokerRoutingIndex.build(ordered);
+
+        requests = new RequestCommand[]{
+                request("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_ATTACK),
+                request("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_RECOVER),
+                request("chaosblade.network.delay", "pod", ChaosConstant.PHASE_ATTACK),
+                request("chaosblade.network.delay", "container", ChaosConstant.PHASE_RECOVER),
+                request("litmuschaos.pod-delete", "pod", ChaosConstant.PHASE_ATTACK),
+                request("litmuschaos.node-cpu-hog", "node", ChaosConstant.PHASE_RECOVER),
+                request("chasobalde.revoke", "host", ChaosConstant.PHASE_RECOVER),
+                request("chaosblade.java.delay", "host", ChaosConstant.PHASE_PREPARE),
+        };
+        for (RequestCommand request : requests) {
+            String scanned = scan(request);
+            String routed = route(request);
+            if (!Objects.equals(scanned, routed)) {
+                throw new IllegalStateException(request.getSceneCode() + " routed to " + routed + ", scanned " + scanned);
+            }
+        }
+    }
+
+    private static RequestCommand request(String sceneCode, String scope, String phase) {
+        RequestCommand requestCommand = new RequestCommand();
+        requestCommand.setSceneCode(sceneCode);
+        requestCommand.setScope(scope);
+        requestCommand.setPhase(phase);
+        return requestCommand;
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        for (RequestCommand request : requests) {
+            blackhole.consume(scan(request));
+        }
+    }
+
+    @Benchmark
+    public void index(Blackhole blackhole) {
+        for (RequestCommand request : requests) {
+            blackhole.consume(route(request));
+        }
+    }
+
+    private String route(RequestCommand requestCommand) {
+        return index.route(requestCommand.getSceneCode(), requestCommand.getScope(), requestCommand.getPhase());
+    }
+
+    /**
+     * the former ChaosInvokerStrategyContext#invoke
+     */
+    private String scan(RequestCommand requestCommand) {
+        String original = SceneCodeParseUtil.getOriginal(requestCommand.getSceneCode());
+        String scope = requestCommand.getScope();
+        String phase = requestCommand.getPhase();
+
+        String invoker = null;
+        for (ChaosInvokerStrategy strategy : strategies.keySet()) {
+            if (StrUtil.isNotBlank(strategy.sceneCode()) && requestCommand.getSceneCode().startsWith(strategy.sceneCode())) {
+                invoker = strategies.get(strategy);
+                break;
+            }
+            if (strategy.value().getName().equals(original)) {
+                if (ArrayUtil.isEmpty(strategy.deviceType())) {
+                    continue;
+                }
+                for (DeviceType deviceType : strategy.deviceType()) {
+                    ExperimentDimension dimension = EnumUtil.fromString(ExperimentDimension.class, scope.toUpperCase());
+                    if (deviceType == dimension.getDeviceType()) {
+                        if (ArrayUtil.isEmpty(strategy.phase())) {
+                            continue;
+                        }
+                        for (String s : strategy.phase()) {
+                            if (s.equals(ChaosConstant.PHASE_ALL) || s.equals(phase)) {
+                                invoker = strategies.get(strategy);
+                                break;
+                            }
+                        }
+                        if (invoker != null) {
+                            break;
+                        }
+                    }
+                }
+                if (invoker != null) {
+                    break;
+                }
+            }
+        }
+        return invoker;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ChaosInvokerRoutingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author yefei
+ */
+public class InvokeWindowTest {
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ChaosInvoker<RequestCommand, ResponseCommand> invoker = request -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                sleep(2);
+                inFlight.decrementAndGet();
+                ResponseCommand response = new ResponseCommand();
+                response.setSuccess(true);
+                return response;
+            }, executor);
+        };
+
+        AtomicInteger completed = new AtomicInteger();
+        invoker.invokeAll(requests(200), 4, 0, (request, response, e) -> {
+            Assert.assertNull(e);
+            Assert.assertTrue(response.isSuccess());
+            completed.incrementAndGet();
+        }).get(10, TimeUnit.SECONDS);
+
+        executor.shutdown();
+        Assert.assertEquals(200, completed.get());
+        Assert.assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<CompletableFuture<ResponseCommand>> invoked = new ConcurrentLinkedQueue<>();
+        ChaosInvoker<RequestCommand, ResponseCommand> invoker = request -> {
+            CompletableFuture<ResponseCommand> future = new CompletableFuture<>();
+            invoked.add(future);
+            return future;
+        };
+
+        invoker.invokeAll(requests(10), 2, 100, (request, response, e) -> errors.add(e))
+                .get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, invoked.size());
+        Assert.assertEquals(10, errors.size());
+        errors.forEach(e -> Assert.assertTrue(e instanceof TimeoutException));
+        // the requests in flight are cancelled
+        invoked.forEach(future -> Assert.assertTrue(future.isCancelled()));
+    }
+
+    @Test
+    public void testSynchronousCompletion() throws Exception {
+        Executor direct = Runnable::run;
+        ChaosInvoker<RequestCommand, ResponseCommand> invoker = request -> CompletableFuture.supplyAsync(() -> {
+            throw new IllegalStateException(request.getName());
+        }, direct);
+
+        List<String> failed = new ArrayList<>();
+        invoker.invokeAll(requests(5000), 1, 0, (request, response, e) -> {
+            Assert.assertTrue(e instanceof IllegalStateException);
+            failed.add(e.getMessage());
+        }).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(5000, failed.size());
+        Assert.assertEquals("0", failed.get(0));
+    }
+
+    private static List<RequestCommand> requests(int size) {
+        List<RequestCommand> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            RequestCommand request = new RequestCommand();
+            request.setName(String.valueOf(i));
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.chaosblade.box.invoker;
+
+import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
+import com.alibaba.chaosblade.box.common.enums.ChaosTools;
+import com.alibaba.chaosblade.box.common.enums.DeviceType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author yefei
+ */
+public class InvokerRoutingIndexTest {
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, sceneCode = "chaosblade.cpu")
+    static class Cpu {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, sceneCode = "chaosblade.cpu.fullload")
+    static class CpuFullload {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, phase = ChaosConstant.PHASE_ATTACK)
+    static class HostAttack {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST, phase = ChaosConstant.PHASE_ALL)
+    static class HostAll {
+    }
+
+    @ChaosInvokerStrategy(deviceType = {DeviceType.NODE, DeviceType.POD}, phase = ChaosConstant.PHASE_ATTACK)
+    static class KubeAttack {
+    }
+
+    @ChaosInvokerStrategy(deviceType = {DeviceType.POD, DeviceType.HOST}, phase = ChaosConstant.PHASE_ATTACK)
+    static class PodAttack {
+    }
+
+    @ChaosInvokerStrategy(value = ChaosTools.LITMUS_CHAOS, deviceType = DeviceType.POD,
+            phase = ChaosConstant.PHASE_ATTACK)
+    static class LitmusAttack {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST)
+    static class Ping {
+    }
+
+    @ChaosInvokerStrategy(deviceType = DeviceType.HOST)
+    static class Status {
+    }
+
+    /**
+     * registered as ChaosInvokerStrategyContext does, keyed by the annotation
+     */
+    private static InvokerRoutingIndex<String> build(Class<?>... classes) {
+        Map<ChaosInvokerStrategy, String> strategies = new LinkedHashMap<>();
+        for (Class<?> clazz : classes) {
+            strategies.put(clazz.getAnnotation(ChaosInvokerStrategy.class), clazz.getSimpleName());
+        }
+        return InvokerRoutingIndex.build(strategies);
+    }
+
+    @Test
+    public void testSceneCodePrefix() {
+        InvokerRoutingIndex<String> index = build(Cpu.class, CpuFullload.class, HostAttack.class);
+
+        Assert.assertEquals("CpuFullload", index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("Cpu", index.route("chaosblade.cpu.load", "host", ChaosConstant.PHASE_ATTACK));
+        // the prefix wins over the scope and phase
+        Assert.assertEquals("Cpu", index.route("chaosblade.cpu.load", "pod", ChaosConstant.PHASE_RECOVER));
+        Assert.assertEquals("HostAttack", index.route("chaosblade.mem.load", "host", ChaosConstant.PHASE_ATTACK));
+        Assert.assertNull(index.route(null, "host", ChaosConstant.PHASE_ATTACK));
+    }
+
+    @Test
+    public void testPhase() {
+        InvokerRoutingIndex<String> index = build(HostAll.class, HostAttack.class);
+
+        // an exact phase before ALL, whatever the registration order
+        Assert.assertEquals("HostAttack", index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("HostAll", index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_RECOVER));
+        Assert.assertEquals("HostAll", index.route("chaosblade.cpu.fullload", "host", null));
+    }
+
+    @Test
+    public void testScope() {
+        InvokerRoutingIndex<String> index = build(HostAttack.class, KubeAttack.class, LitmusAttack.class);
+
+        Assert.assertEquals("HostAttack", index.route("chaosblade.cpu.fullload", "HOST", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("KubeAttack", index.route("chaosblade.cpu.fullload", "node", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("KubeAttack", index.route("chaosblade.cpu.fullload", "container", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("LitmusAttack", index.route("litmuschaos.pod-delete", "pod", ChaosConstant.PHASE_ATTACK));
+        Assert.assertNull(index.route("litmuschaos.pod-delete", "host", ChaosConstant.PHASE_ATTACK));
+        Assert.assertNull(index.route("chaosblade.cpu.fullload", "unknown", ChaosConstant.PHASE_ATTACK));
+        Assert.assertNull(index.route("chaosblade.cpu.fullload", null, ChaosConstant.PHASE_ATTACK));
+        Assert.assertNull(index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_RECOVER));
+    }
+
+    @Test
+    public void testOverlap() {
+        InvokerRoutingIndex<String> index = build(KubeAttack.class, PodAttack.class);
+
+        // the first registered is kept for the pod, the host is only routed by the second
+        Assert.assertEquals("KubeAttack", index.route("chaosblade.cpu.fullload", "pod", ChaosConstant.PHASE_ATTACK));
+        Assert.assertEquals("PodAttack", index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_ATTACK));
+    }
+
+    @Test
+    public void testDuplicateAnnotation() {
+        Assert.assertEquals(Ping.class.getAnnotation(ChaosInvokerStrategy.class),
+                Status.class.getAnnotation(ChaosInvokerStrategy.class));
+
+        // equal annotations are one key, the later registration replaces the earlier
+        InvokerRoutingIndex<String> index = build(Ping.class, Status.class);
+        Assert.assertEquals("Status", index.route("chaosblade.cpu.fullload", "host", ""));
+        Assert.assertNull(index.route("chaosblade.cpu.fullload", "host", ChaosConstant.PHASE_ATTACK));
+    }
+}
@@ -19,9 +19,10 @@ package com.alibaba.chaosblade.box.invoker.blade.kubeapi;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
-import com.alibaba.chaosblade.box.common.utils.timer.Timer;
+import com.alibaba.chaosblade.box.common.kubernetes.CustomObjectTracker;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
 import com.alibaba.chaosblade.box.invoker.ChaosInvoker;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ChaosBlade;
@@ -31,41 +32,23 @@ import io.kubernetes.client.openapi.ApiCallback;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CustomObjectsApi;
-import io.kubernetes.client.util.Config;
-import org.springframework.beans.factory.InitializingBean;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * @author yefei
  */
-public abstract class AbstractChaosBladeChaosInvoker implements ChaosInvoker<RequestCommand, ResponseCommand>, InitializingBean {
+public abstract class AbstractChaosBladeChaosInvoker implements ChaosInvoker<RequestCommand, ResponseCommand> {
 
-    protected ApiClient client;
-
-    protected Timer timer;
-
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
-
-        timer = new HashedWheelTimer(r -> {
-            Thread thread = new Thread(r);
-            thread.setName("timer-check-chaoblade-status");
-            return thread;
-        });
-    }
+    protected static final CustomObjectTracker TRACKER = CustomObjectTracker.of(Constants.GROUP, Constants.VERSION,
+            Constants.PLURAL);
 
     protected ApiClient getClient(RequestCommand requestCommand) throws IOException {
-        if (StrUtil.isBlank(requestCommand.getConfig())) {
-            return client;
-        } else {
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(requestCommand.getConfig().getBytes());
-            return Config.fromConfig(byteArrayInputStream);
-        }
+        return KubeClientRegistry.getClient(requestCommand.getConfig());
     }
 
     protected CompletableFuture<StatusResponseCommand> checkStatus(RequestCommand requestCommand) {
@@ -92,19 +75,7 @@ public abstract class AbstractChaosBladeChaosInvoker implements ChaosInvoker<Req
 
                         @Override
                         public void onSuccess(Object result, int statusCode, Map responseHeaders) {
-                            ChaosBlade chaosBlade = BeanUtil.toBean(result, ChaosBlade.class);
-
-                            StatusResponseCommand statusResponseCommand = new StatusResponseCommand();
-                            statusResponseCommand.setCode(String.valueOf(statusCode));
-                            if (ArrayUtil.isNotEmpty(chaosBlade.getStatus().getExpStatuses())) {
-                                ExperimentStatus expStatus = chaosBlade.getStatus().getExpStatuses()[0];
-                                statusResponseCommand.setState(expStatus.getState());
-                                statusResponseCommand.setError(expStatus.getError());
-                                statusResponseCommand.setSuccess(expStatus.isSuccess());
-                            }
-
-                            statusResponseCommand.setPhase(chaosBlade.getStatus().getPhase());
-                            completableFuture.complete(statusResponseCommand);
+                            completableFuture.complete(toStatus(result, statusCode));
                         }
 
                         @Override
@@ -131,4 +102,103 @@ public abstract class AbstractChaosBladeChaosInvoker implements ChaosInvoker<Req
         }
         return completableFuture;
     }
+
+    /**
+     * check the status once, then wait for the watch events until the status is done or the deadline
+     */
+    protected CompletableFuture<StatusResponseCommand> awaitStatus(RequestCommand requestCommand,
+                                                                   Predicate<StatusResponseCommand> done) {
+        return checkStatus(requestCommand).thenCompose(statusResponseCommand -> {
+            if (done.test(statusResponseCommand)) {
+                return CompletableFuture.completedFuture(statusResponseCommand);
+            }
+            // completing the wait at the deadline stops the tracking
+            return Deadlines.within(TRACKER.await(requestCommand.getConfig(), null, requestCommand.getName(),
+                    object -> done.test(toStatus(object))), requestCommand.getDeadline())
+                    .thenApply(this::toStatus);
+        });
+    }
+
+    /**
+     * get the object once, then wait for the watch events until it is done or the deadline
+     *
+     * @return completes with null if the object is deleted
+     */
+    @SuppressWarnings("unchecked")
+    protected CompletableFuture<Map<String, Object>> awaitObject(RequestCommand requestCommand,
+                                                                 Predicate<Map<String, Object>> done) {
+        CompletableFuture<Map<String, Object>> completableFuture = new CompletableFuture<>();
+        try {
+            new CustomObjectsApi(getClient(requestCommand)).getClusterCustomObjectAsync(
+                    Constants.GROUP,
+                    Constants.VERSION,
+                    Constants.PLURAL,
+                    requestCommand.getName(),
+                    new ApiCallback() {
+                        @Override
+                        public void onFailure(ApiException e, int statusCode, Map responseHeaders) {
+                            if (statusCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                                completableFuture.complete(null);
+                            } else {
+                                completableFuture.completeExceptionally(e);
+                            }
+                        }
+
+                        @Override
+                        public void onSuccess(Object result, int statusCode, Map responseHeaders) {
+                            completableFuture.complete((Map<String, Object>) result);
+                        }
+
+                        @Override
+                        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+
+                        }
+
+                        @Override
+                        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+
+                        }
+                    }
+            );
+        } catch (ApiException | IOException e) {
+            completableFuture.completeExceptionally(e);
+        }
+        return completableFuture.thenCompose(object -> {
+            if (done.test(object)) {
+                return CompletableFuture.completedFuture(object);
+            }
+            return Deadlines.within(TRACKER.await(requestCommand.getConfig(), null, requestCommand.getName(), done),
+                    requestCommand.getDeadline());
+        });
+    }
+
+    private StatusResponseCommand toStatus(Map<String, Object> object) {
+        if (object == null) {
+            StatusResponseCommand statusResponseCommand = new StatusResponseCommand();
+            statusResponseCommand.setSuccess(false);
+            statusResponseCommand.setCode(String.valueOf(HttpURLConnection.HTTP_NOT_FOUND));
+            statusResponseCommand.setError("not found");
+            return statusResponseCommand;
+        }
+        return toStatus(object, HttpURLConnection.HTTP_OK);
+    }
+
+    private StatusResponseCommand toStatus(Object result, int statusCode) {
+        ChaosBlade chaosBlade = BeanUtil.toBean(result, ChaosBlade.class);
+
+        StatusResponseCommand statusResponseCommand = new StatusResponseCommand();
+        statusResponseCommand.setCode(String.valueOf(statusCode));
+        if (chaosBlade.getStatus() == null) {
+            return statusResponseCommand;
+        }
+        if (ArrayUtil.isNotEmpty(chaosBlade.getStatus().getExpStatuses())) {
+            ExperimentStatus expStatus = chaosBlade.getStatus().getExpStatuses()[0];
+            statusResponseCommand.setState(expStatus.getState());
+            statusResponseCommand.setError(expStatus.getError());
+            statusResponseCommand.setSuccess(expStatus.isSuccess());
+        }
+
+        statusResponseCommand.setPhase(chaosBlade.getStatus().getPhase());
+        return statusResponseCommand;
+    }
 }
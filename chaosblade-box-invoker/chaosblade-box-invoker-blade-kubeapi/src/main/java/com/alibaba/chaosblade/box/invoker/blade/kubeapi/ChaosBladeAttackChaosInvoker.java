@@ -16,19 +16,25 @@
 
 package com.alibaba.chaosblade.box.invoker.blade.kubeapi;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
 import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
 import com.alibaba.chaosblade.box.common.enums.DeviceType;
 import com.alibaba.chaosblade.box.common.utils.JsonUtils;
 import com.alibaba.chaosblade.box.common.utils.SceneCodeParseUtil;
 import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
+import com.alibaba.chaosblade.box.common.utils.timer.Timer;
 import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategy;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ChaosBlade;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ChaosBladeSpec;
+import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ChaosBladeStatus;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ExperimentSpec;
+import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ExperimentStatus;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.FlagSpec;
 import com.alibaba.chaosblade.box.invoker.blade.kubeapi.model.StatusResponseCommand;
 import io.kubernetes.client.openapi.ApiCallback;
@@ -37,12 +43,16 @@ import io.kubernetes.client.openapi.apis.CustomObjectsApi;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.util.Config;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author yefei
@@ -50,10 +60,47 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 @ChaosInvokerStrategy(deviceType = {DeviceType.NODE, DeviceType.POD}, phase = ChaosConstant.PHASE_ATTACK)
 @Component
-public class ChaosBladeAttackChaosInvoker extends AbstractChaosBladeChaosInvoker {
+public class ChaosBladeAttackChaosInvoker extends AbstractChaosBladeChaosInvoker implements InitializingBean, DisposableBean {
+
+    @Value("${chaos.blade.coalesce.enable:false}")
+    private boolean coalesceEnable;
+
+    /**
+     * millis the attacks with the same coalesce key are collected for
+     */
+    @Value("${chaos.blade.coalesce.window:200}")
+    private long coalesceWindow;
+
+    @Value("${chaos.blade.coalesce.maxExperiments:20}")
+    private int coalesceMaxExperiments;
+
+    private Timer timer;
+
+    private ChaosBladeCoalescer coalescer;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("timer-coalesce-chaosblade");
+            thread.setDaemon(true);
+            return thread;
+        });
+        coalescer = new ChaosBladeCoalescer(timer, coalesceWindow, coalesceMaxExperiments, this::createCoalesced);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        timer.stop();
+    }
 
     @Override
     public CompletableFuture<ResponseCommand> invoke(RequestCommand requestCommand) {
+        if (coalesceEnable && requestCommand.getCoalesceKey() != null) {
+            String key = SecureUtil.md5(StrUtil.nullToEmpty(requestCommand.getConfig())) + "/" + requestCommand.getCoalesceKey();
+            return Deadlines.within(coalescer.add(key, requestCommand, toSpec(requestCommand)), requestCommand.getDeadline());
+        }
+
         CustomObjectsApi apiInstance;
         final CompletableFuture<ResponseCommand> completableFuture = new CompletableFuture<>();
 
@@ -66,19 +113,8 @@ public class ChaosBladeAttackChaosInvoker extends AbstractChaosBladeChaosInvoker
                     .kind(Constants.KIND)
                     .metadata(v1ObjectMeta)
                     .spec(ChaosBladeSpec.builder()
-                            .experiments(new ExperimentSpec[]{
-                                    ExperimentSpec.builder()
-                                            .scope(requestCommand.getScope())
-                                            .target(SceneCodeParseUtil.getTarget(requestCommand.getSceneCode()).split("-")[1])
-                                            .action(SceneCodeParseUtil.getAction(requestCommand.getSceneCode()))
-                                            .matchers(requestCommand.getArguments() == null ? null : requestCommand.getArguments().keySet().stream()
-                                                    .map(key -> FlagSpec.builder()
-                                                            .name(key)
-                                                            .value(new String[]{requestCommand.getArguments().get(key)})
-                                                            .build()
-                                                    ).toArray(FlagSpec[]::new))
-                                            .build()
-                            }).build()).build();
+                            .experiments(new ExperimentSpec[]{toSpec(requestCommand)})
+                            .build()).build();
 
 
             apiInstance.createClusterCustomObjectAsync(
@@ -103,7 +139,7 @@ public class ChaosBladeAttackChaosInvoker extends AbstractChaosBladeChaosInvoker
 
                         @Override
                         public void onSuccess(Object result, int statusCode, Map responseHeaders) {
-                            checkStatus(completableFuture, v1ObjectMeta.getName(), requestCommand.getConfig());
+                            checkStatus(completableFuture, v1ObjectMeta.getName(), requestCommand);
                         }
 
                         @Override
@@ -128,57 +164,160 @@ public class ChaosBladeAttackChaosInvoker extends AbstractChaosBladeChaosInvoker
         } catch (IOException e) {
             completableFuture.completeExceptionally(e);
         }
-        return completableFuture;
+        return Deadlines.within(completableFuture, requestCommand.getDeadline());
     }
 
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
-
-        timer = new HashedWheelTimer(r -> {
-            Thread thread = new Thread(r);
-            thread.setName("timer-check-chaoblade-status");
-            return thread;
-        });
+    private ExperimentSpec toSpec(RequestCommand requestCommand) {
+        return ExperimentSpec.builder()
+                .scope(requestCommand.getScope())
+                .target(SceneCodeParseUtil.getTarget(requestCommand.getSceneCode()).split("-")[1])
+                .action(SceneCodeParseUtil.getAction(requestCommand.getSceneCode()))
+                .matchers(requestCommand.getArguments() == null ? null : requestCommand.getArguments().keySet().stream()
+                        .map(key -> FlagSpec.builder()
+                                .name(key)
+                                .value(new String[]{requestCommand.getArguments().get(key)})
+                                .build()
+                        ).toArray(FlagSpec[]::new))
+                .build();
     }
 
-    private void checkStatus(CompletableFuture<ResponseCommand> future, String name, String config) {
+    /**
+     * one ChaosBlade for the whole batch, the result of each member is read from expStatuses in spec order
+     */
+    private void createCoalesced(List<ChaosBladeCoalescer.Member> members) {
+        RequestCommand first = members.get(0).requestCommand;
+        String name = IdUtil.fastSimpleUUID();
+        try {
+            CustomObjectsApi apiInstance = new CustomObjectsApi(getClient(first));
+            V1ObjectMeta v1ObjectMeta = new V1ObjectMeta();
+            v1ObjectMeta.setName(name);
+            ChaosBlade chaosBladeRequest = ChaosBlade.builder()
+                    .apiVersion(Constants.API_VERSION)
+                    .kind(Constants.KIND)
+                    .metadata(v1ObjectMeta)
+                    .spec(ChaosBladeSpec.builder()
+                            .experiments(members.stream().map(member -> member.spec).toArray(ExperimentSpec[]::new))
+                            .build()).build();
+
+            log.info("create coalesced ChaosBlade, NAME: {}, experiments: {}", name, members.size());
+            apiInstance.createClusterCustomObjectAsync(
+                    Constants.GROUP,
+                    Constants.VERSION,
+                    Constants.PLURAL,
+                    JsonUtils.writeValueAsBytes(chaosBladeRequest),
+                    "ture",
+                    null,
+                    null,
+                    new ApiCallback() {
+                        @Override
+                        public void onFailure(ApiException e, int statusCode, Map responseHeaders) {
+                            members.forEach(member -> member.future.complete(ResponseCommand.builder()
+                                    .success(false)
+                                    .code(String.valueOf(statusCode))
+                                    .result(e.getMessage())
+                                    .error(e.getResponseBody())
+                                    .build()));
+                        }
+
+                        @Override
+                        public void onSuccess(Object result, int statusCode, Map responseHeaders) {
+                            awaitCoalesced(members, name, first.getConfig());
+                        }
+
+                        @Override
+                        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
 
-        timer.newTimeout(timeout -> {
-            RequestCommand requestCommand = new RequestCommand();
-            requestCommand.setName(name);
-            requestCommand.setConfig(config);
+                        }
 
-            CompletableFuture<StatusResponseCommand> completableFuture = checkStatus(requestCommand);
+                        @Override
+                        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
 
-            completableFuture.handle((statusResponseCommand, e) -> {
-                if (e != null) {
-                    future.completeExceptionally(e);
+                        }
+                    }
+            );
+        } catch (ApiException e) {
+            members.forEach(member -> member.future.complete(ResponseCommand.builder()
+                    .success(false)
+                    .code(String.valueOf(e.getCode()))
+                    .result(e.getMessage())
+                    .error(e.getResponseBody())
+                    .build()));
+        } catch (Exception e) {
+            members.forEach(member -> member.future.completeExceptionally(e));
+        }
+    }
+
+    private void awaitCoalesced(List<ChaosBladeCoalescer.Member> members, String name, String config) {
+        // the batch waits until the earliest deadline of its members
+        Long deadline = members.stream()
+                .map(member -> member.requestCommand.getDeadline())
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .orElse(null);
+        RequestCommand requestCommand = new RequestCommand();
+        requestCommand.setName(name);
+        requestCommand.setConfig(config);
+        requestCommand.setDeadline(deadline);
+        awaitObject(requestCommand, object -> {
+            if (object == null) {
+                return true;
+            }
+            ChaosBladeStatus status = BeanUtil.toBean(object, ChaosBlade.class).getStatus();
+            return status != null && ("Running".equals(status.getPhase()) || "Error".equals(status.getPhase()));
+        }).whenComplete((object, e) -> {
+            if (e != null) {
+                members.forEach(member -> member.future.completeExceptionally(e));
+                return;
+            }
+            ChaosBladeStatus status = object == null ? null : BeanUtil.toBean(object, ChaosBlade.class).getStatus();
+            ExperimentStatus[] expStatuses = status == null ? null : status.getExpStatuses();
+            String phase = status == null ? null : status.getPhase();
+            for (int i = 0; i < members.size(); i++) {
+                StatusResponseCommand statusResponseCommand = new StatusResponseCommand();
+                statusResponseCommand.setName(name);
+                statusResponseCommand.setResult(name);
+                statusResponseCommand.setPhase(phase);
+                if (expStatuses != null && i < expStatuses.length) {
+                    statusResponseCommand.setState(expStatuses[i].getState());
+                    statusResponseCommand.setError(expStatuses[i].getError());
+                    statusResponseCommand.setSuccess(expStatuses[i].isSuccess());
                 } else {
-                    statusResponseCommand.setName(name);
-                    statusResponseCommand.setResult(name);
+                    statusResponseCommand.setSuccess(false);
+                    statusResponseCommand.setError(object == null ? "not found" : "no status of experiment " + i);
+                }
+                log.info("子任务运行中，检查 CRD 状态，NAME: {}, PHASE: {},  是否成功: {}, 失败原因: {}",
+                        name,
+                        phase,
+                        statusResponseCommand.isSuccess(),
+                        statusResponseCommand.getError());
+                members.get(i).future.complete(statusResponseCommand);
+            }
+        });
+    }
 
-                    log.info("子任务运行中，检查 CRD 状态，NAME: {}, PHASE: {},  是否成功: {}, 失败原因: {}",
-                            requestCommand.getName(),
-                            statusResponseCommand.getPhase(),
-                            statusResponseCommand.isSuccess(),
-                            statusResponseCommand.getError());
+    private void checkStatus(CompletableFuture<ResponseCommand> future, String name, RequestCommand attack) {
+        RequestCommand requestCommand = new RequestCommand();
+        requestCommand.setName(name);
+        requestCommand.setConfig(attack.getConfig());
+        requestCommand.setDeadline(attack.getDeadline());
 
-                    String error = statusResponseCommand.getError();
+        awaitStatus(requestCommand, status -> StrUtil.isNotEmpty(status.getError()) || "Running".equals(status.getPhase()))
+                .whenComplete((statusResponseCommand, e) -> {
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                    } else {
+                        statusResponseCommand.setName(name);
+                        statusResponseCommand.setResult(name);
+
+                        log.info("子任务运行中，检查 CRD 状态，NAME: {}, PHASE: {},  是否成功: {}, 失败原因: {}",
+                                requestCommand.getName(),
+                                statusResponseCommand.getPhase(),
+                                statusResponseCommand.isSuccess(),
+                                statusResponseCommand.getError());
 
-                    if (StrUtil.isNotEmpty(error)) {
                         future.complete(statusResponseCommand);
-                    } else {
-                        if ("Running".equals(statusResponseCommand.getPhase())) {
-                            future.complete(statusResponseCommand);
-                        } else {
-                            checkStatus(future, name, config);
-                        }
                     }
-                }
-                return null;
-            });
-        }, 3, TimeUnit.SECONDS);
+                });
     }
 
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.blade.kubeapi;
+
+import com.alibaba.chaosblade.box.common.utils.timer.Timer;
+import com.alibaba.chaosblade.box.invoker.RequestCommand;
+import com.alibaba.chaosblade.box.invoker.ResponseCommand;
+import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ExperimentSpec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects the attacks with the same key for a window, or until the batch is full,
+ * then hands them over to be created as one ChaosBlade.
+ *
+ * @author yefei
+ */
+class ChaosBladeCoalescer {
+
+    private final Timer timer;
+
+    private final long windowMillis;
+
+    private final int maxExperiments;
+
+    private final Consumer<List<Member>> flusher;
+
+    private final Map<String, List<Member>> batches = new HashMap<>();
+
+    ChaosBladeCoalescer(Timer timer, long windowMillis, int maxExperiments, Consumer<List<Member>> flusher) {
+        this.timer = timer;
+        this.windowMillis = windowMillis;
+        this.maxExperiments = Math.max(1, maxExperiments);
+        this.flusher = flusher;
+    }
+
+    CompletableFuture<ResponseCommand> add(String key, RequestCommand requestCommand, ExperimentSpec spec) {
+        Member member = new Member(requestCommand, spec);
+        List<Member> full = null;
+        synchronized (this) {
+            List<Member> batch = batches.get(key);
+            if (batch == null) {
+                List<Member> created = new ArrayList<>();
+                batch = created;
+                batches.put(key, created);
+                timer.newTimeout(timeout -> flush(key, created), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.add(member);
+            if (batch.size() >= maxExperiments) {
+                batches.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            flusher.accept(full);
+        }
+        return member.future;
+    }
+
+    private void flush(String key, List<Member> batch) {
+        synchronized (this) {
+            // already flushed when it filled up
+            if (batches.get(key) != batch) {
+                return;
+            }
+            batches.remove(key);
+        }
+        flusher.accept(batch);
+    }
+
+    static class Member {
+
+        final RequestCommand requestCommand;
+
+        final ExperimentSpec spec;
+
+        final CompletableFuture<ResponseCommand> future = new CompletableFuture<>();
+
+        Member(RequestCommand requestCommand, ExperimentSpec spec) {
+            this.requestCommand = requestCommand;
+            this.spec = spec;
+        }
+    }
+}
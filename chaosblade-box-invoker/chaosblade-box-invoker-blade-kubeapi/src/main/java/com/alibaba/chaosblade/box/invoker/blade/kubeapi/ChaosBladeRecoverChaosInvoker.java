@@ -21,9 +21,9 @@ import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
 import com.alibaba.chaosblade.box.common.enums.DeviceType;
 import com.alibaba.chaosblade.box.common.exception.BizException;
 import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategy;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
-import com.alibaba.chaosblade.box.invoker.blade.kubeapi.model.StatusResponseCommand;
 import io.kubernetes.client.openapi.ApiCallback;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CustomObjectsApi;
@@ -33,7 +33,6 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author yefei
@@ -80,7 +79,7 @@ public class ChaosBladeRecoverChaosInvoker extends AbstractChaosBladeChaosInvoke
 
                         @Override
                         public void onSuccess(Object result, int statusCode, Map responseHeaders) {
-                            checkStatus(completableFuture, requestCommand.getName(), requestCommand.getConfig());
+                            checkStatus(completableFuture, requestCommand);
                         }
 
                         @Override
@@ -105,52 +104,39 @@ public class ChaosBladeRecoverChaosInvoker extends AbstractChaosBladeChaosInvoke
         } catch (IOException e) {
             completableFuture.completeExceptionally(e);
         }
-        return completableFuture;
+        return Deadlines.within(completableFuture, requestCommand.getDeadline());
     }
 
 
-    private void checkStatus(CompletableFuture<ResponseCommand> future, String name, String config) {
+    private void checkStatus(CompletableFuture<ResponseCommand> future, RequestCommand recover) {
+        RequestCommand requestCommand = new RequestCommand();
+        requestCommand.setName(recover.getName());
+        requestCommand.setConfig(recover.getConfig());
+        requestCommand.setDeadline(recover.getDeadline());
 
-        timer.newTimeout(timeout -> {
-                    RequestCommand requestCommand = new RequestCommand();
-                    requestCommand.setName(name);
-                    requestCommand.setConfig(config);
-
-                    CompletableFuture<StatusResponseCommand> completableFuture = checkStatus(requestCommand);
-
-                    completableFuture.handle((statusResponseCommand, e) -> {
-                        if (e != null) {
-                            future.completeExceptionally(e);
-                        } else {
-                            log.info("子任务运行中，检查 CRD 状态，NAME: {}, PHASE: {},  是否成功: {}, 失败原因: {}",
-                                    requestCommand.getName(),
-                                    statusResponseCommand.getPhase(),
-                                    statusResponseCommand.isSuccess(),
-                                    statusResponseCommand.getError());
-
-                            String error = statusResponseCommand.getError();
-
-                            if ("404".equals(statusResponseCommand.getCode())) {
-                                statusResponseCommand.setSuccess(true);
-                                future.complete(statusResponseCommand);
-                                return null;
-                            }
-                            if (StrUtil.isNotEmpty(error)) {
-                                future.completeExceptionally(new BizException(error));
-                                return null;
-                            }
-                            if ("Destroyed".equals(statusResponseCommand.getPhase())) {
-                                future.complete(statusResponseCommand);
-                            } else {
-                                checkStatus(future, name, config);
-                            }
-
-                        }
-                        return null;
-                    });
-                },
-                3000,
-                TimeUnit.MILLISECONDS);
+        awaitStatus(requestCommand, status -> "404".equals(status.getCode())
+                || StrUtil.isNotEmpty(status.getError())
+                || "Destroyed".equals(status.getPhase()))
+                .whenComplete((statusResponseCommand, e) -> {
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    log.info("子任务运行中，检查 CRD 状态，NAME: {}, PHASE: {},  是否成功: {}, 失败原因: {}",
+                            requestCommand.getName(),
+                            statusResponseCommand.getPhase(),
+                            statusResponseCommand.isSuccess(),
+                            statusResponseCommand.getError());
+
+                    if ("404".equals(statusResponseCommand.getCode())) {
+                        statusResponseCommand.setSuccess(true);
+                        future.complete(statusResponseCommand);
+                    } else if (StrUtil.isNotEmpty(statusResponseCommand.getError())) {
+                        future.completeExceptionally(new BizException(statusResponseCommand.getError()));
+                    } else {
+                        future.complete(statusResponseCommand);
+                    }
+                });
     }
 
 }
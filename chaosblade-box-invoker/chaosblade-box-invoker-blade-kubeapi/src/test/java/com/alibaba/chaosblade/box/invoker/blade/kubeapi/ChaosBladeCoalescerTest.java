@@ -0,0 +1,82 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.blade.kubeapi;
+
+import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
+import com.alibaba.chaosblade.box.invoker.RequestCommand;
+import com.alibaba.chaosblade.box.invoker.ResponseCommand;
+import com.alibaba.chaosblade.box.invoker.blade.kubeapi.crd.ExperimentSpec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author yefei
+ */
+public class ChaosBladeCoalescerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer();
+
+    private final List<List<ChaosBladeCoalescer.Member>> flushed = new CopyOnWriteArrayList<>();
+
+    private final ChaosBladeCoalescer coalescer = new ChaosBladeCoalescer(timer, 100, 3, members -> {
+        flushed.add(members);
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).future.complete(ResponseCommand.builder().success(true).result(String.valueOf(i)).build());
+        }
+    });
+
+    @After
+    public void after() {
+        timer.stop();
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        CompletableFuture<ResponseCommand> first = coalescer.add("a", new RequestCommand(), spec("cpu"));
+        coalescer.add("a", new RequestCommand(), spec("mem"));
+        CompletableFuture<ResponseCommand> third = coalescer.add("a", new RequestCommand(), spec("disk"));
+
+        Assert.assertEquals(1, flushed.size());
+        Assert.assertEquals("0", first.get().getResult());
+        Assert.assertEquals("2", third.get().getResult());
+        Assert.assertEquals("disk", flushed.get(0).get(2).spec.getTarget());
+    }
+
+    @Test
+    public void testFlushAfterWindow() throws Exception {
+        CompletableFuture<ResponseCommand> a = coalescer.add("a", new RequestCommand(), spec("cpu"));
+        CompletableFuture<ResponseCommand> b = coalescer.add("b", new RequestCommand(), spec("cpu"));
+        CompletableFuture<ResponseCommand> a2 = coalescer.add("a", new RequestCommand(), spec("mem"));
+
+        Assert.assertTrue(flushed.isEmpty());
+        Assert.assertEquals("1", a2.get(5, TimeUnit.SECONDS).getResult());
+        Assert.assertEquals("0", a.get(5, TimeUnit.SECONDS).getResult());
+        Assert.assertEquals("0", b.get(5, TimeUnit.SECONDS).getResult());
+        Assert.assertEquals(2, flushed.size());
+    }
+
+    private static ExperimentSpec spec(String target) {
+        return ExperimentSpec.builder().scope("node").target(target).action("load").build();
+    }
+}
@@ -18,51 +18,159 @@ package com.alibaba.chaosblade.box.invoker.http;
 
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.common.utils.timer.Timeout;
 import com.alibaba.chaosblade.box.invoker.ChaosInvoker;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import com.alibaba.chaosblade.box.invoker.http.constant.Header;
 import com.alibaba.chaosblade.box.invoker.http.model.reuest.HttpChannelRequest;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.concurrent.FutureCallback;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
-import org.apache.http.impl.nio.client.HttpAsyncClients;
-import org.apache.http.util.EntityUtils;
-import org.springframework.beans.factory.DisposableBean;
-import org.springframework.beans.factory.InitializingBean;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * @author yefei
  */
-public abstract class AbstractHttpInvoker implements ChaosInvoker<HttpChannelRequest, ResponseCommand>, InitializingBean, DisposableBean {
+public abstract class AbstractHttpInvoker implements ChaosInvoker<HttpChannelRequest, ResponseCommand> {
 
     public static final String CHAOSBLADE_HANDLER = "/chaosblade";
 
-    private CloseableHttpAsyncClient httpclient;
+    @Autowired
+    private AgentHttpTransport agentHttpTransport;
 
-    @Override
-    public void destroy() throws Exception {
-        httpclient.close();
-    }
+    @Autowired
+    private AgentCircuitBreakers agentCircuitBreakers;
 
-    @Override
-    public void afterPropertiesSet() {
-        RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(3000).setConnectTimeout(3000).build();
-        httpclient = HttpAsyncClients.custom().setDefaultRequestConfig(requestConfig).build();
-        httpclient.start();
-    }
+    /**
+     * retries of an idempotent request after a transport failure
+     */
+    @Value("${chaos.agent.retry.maxRetries:2}")
+    private int maxRetries;
+
+    /**
+     * millis, base of the jittered exponential backoff
+     */
+    @Value("${chaos.agent.retry.backoff:200}")
+    private long backoff;
+
+    @Value("${chaos.agent.hedge.enable:false}")
+    private boolean hedgeEnable;
+
+    /**
+     * millis an idempotent request waits before the same request is sent again
+     */
+    @Value("${chaos.agent.hedge.delay:500}")
+    private long hedgeDelay;
 
     @Override
     public CompletableFuture<ResponseCommand> invoke(HttpChannelRequest requestCommand) {
         requestCommand.addParam(Header.TIMESTAMP_KEY, String.valueOf(System.nanoTime() / 1000));
 
+        CompletableFuture<ResponseCommand> completableFuture = new CompletableFuture<>();
+        attempt(requestCommand, completableFuture, 0);
+        return Deadlines.within(completableFuture, requestCommand.getDeadline());
+    }
+
+    /**
+     * an idempotent request is retried and hedged, the agent may see it more than once
+     */
+    protected boolean idempotent() {
+        return false;
+    }
+
+    /**
+     * a probe is sent even if the circuit of the host is open, its result closes or opens the circuit
+     */
+    protected boolean probe() {
+        return false;
+    }
+
+    private void attempt(HttpChannelRequest requestCommand, CompletableFuture<ResponseCommand> completableFuture, int retries) {
+        if (completableFuture.isDone()) {
+            return;
+        }
+        String host = requestCommand.getHost();
+        if (!probe() && !agentCircuitBreakers.allow(host)) {
+            completableFuture.completeExceptionally(new AgentUnavailableException(host));
+            return;
+        }
+
+        CompletableFuture<ResponseCommand> exchange = idempotent() && hedgeEnable
+                ? hedge(requestCommand, completableFuture)
+                : send(requestCommand, completableFuture);
+        exchange.whenComplete((responseCommand, e) -> {
+            if (e == null) {
+                agentCircuitBreakers.onSuccess(host);
+                completableFuture.complete(responseCommand);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            agentCircuitBreakers.onFailure(host, cause);
+            long delay = backoff(retries);
+            if (idempotent() && retries < maxRetries && retryable(cause)
+                    && delay < Deadlines.remaining(requestCommand.getDeadline())) {
+                agentHttpTransport.timer().newTimeout(
+                        timeout -> attempt(requestCommand, completableFuture, retries + 1),
+                        delay,
+                        TimeUnit.MILLISECONDS);
+            } else {
+                completableFuture.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private CompletableFuture<ResponseCommand> hedge(HttpChannelRequest requestCommand, CompletableFuture<?> caller) {
+        CompletableFuture<ResponseCommand> completableFuture = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<ResponseCommand, Throwable> first = (responseCommand, e) -> {
+            if (e == null) {
+                completableFuture.complete(responseCommand);
+            } else if (pending.decrementAndGet() == 0) {
+                completableFuture.completeExceptionally(e);
+            }
+        };
+
+        Timeout hedged = agentHttpTransport.timer().newTimeout(timeout -> {
+            if (!completableFuture.isDone()) {
+                pending.incrementAndGet();
+                send(requestCommand, caller).whenComplete(first);
+            }
+        }, hedgeDelay, TimeUnit.MILLISECONDS);
+        completableFuture.whenComplete((responseCommand, e) -> hedged.cancel());
+
+        send(requestCommand, caller).whenComplete(first);
+        return completableFuture;
+    }
+
+    private boolean retryable(Throwable e) {
+        return e instanceof IOException && !(e instanceof AgentUnavailableException);
+    }
+
+    /**
+     * exponential backoff with equal jitter
+     */
+    private long backoff(int retries) {
+        long max = backoff << Math.min(retries, 10);
+        return max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1);
+    }
+
+    /**
+     * @param caller the request is aborted once the caller is done, by a hedged request, a cancel or the deadline
+     */
+    private CompletableFuture<ResponseCommand> send(HttpChannelRequest requestCommand, CompletableFuture<?> caller) {
         String domain = requestCommand.getHost() + ":" + requestCommand.getPort();
 
         HttpPost httpPost;
@@ -75,24 +183,27 @@ public abstract class AbstractHttpInvoker implements ChaosInvoker<HttpChannelReq
         httpPost.setHeader("Accept", "application/json;charset=UTF-8");
         httpPost.setHeader("Content-Type", "application/x-www-form-urlencoded");
 
-        StringEntity stringEntity = new StringEntity(JsonUtils.writeValueAsString(requestCommand), Charset.defaultCharset());
-        httpPost.setEntity(stringEntity);
+        // utf-8 json bytes, the reactor writes them from the array straight to the channel
+        httpPost.setEntity(new NByteArrayEntity(JsonUtils.writeValueAsBytes(requestCommand)));
 
-        if (requestCommand.getTimeout() != null) {
-            httpPost.setConfig(RequestConfig.custom().setSocketTimeout(requestCommand.getTimeout().intValue()).build());
+        // the socket timeout of the request or the default, bounded by the deadline
+        Long timeout = requestCommand.getTimeout();
+        if (requestCommand.getDeadline() != null) {
+            long remaining = Math.max(1, Deadlines.remaining(requestCommand.getDeadline()));
+            timeout = Math.min(timeout == null ? agentHttpTransport.socketTimeout() : timeout, remaining);
+        }
+        if (timeout != null) {
+            httpPost.setConfig(agentHttpTransport.requestConfig()
+                    .setSocketTimeout((int) Math.min(timeout, Integer.MAX_VALUE))
+                    .build());
         }
 
         CompletableFuture<ResponseCommand> completableFuture = new CompletableFuture<>();
-        httpclient.execute(httpPost, new FutureCallback<HttpResponse>() {
+        CloseableHttpAsyncClient httpclient = agentHttpTransport.client();
+        Future<ResponseCommand> exchange = httpclient.execute(HttpAsyncMethods.create(httpPost), new ResponseCommandConsumer(), new FutureCallback<ResponseCommand>() {
             @Override
-            public void completed(HttpResponse httpResponse) {
-                HttpEntity entity = httpResponse.getEntity();
-                try {
-                    ResponseCommand v = JsonUtils.readValue(ResponseCommand.class, EntityUtils.toByteArray(entity));
-                    completableFuture.complete(v);
-                } catch (IOException e) {
-                    completableFuture.completeExceptionally(e);
-                }
+            public void completed(ResponseCommand responseCommand) {
+                completableFuture.complete(responseCommand);
             }
 
             @Override
@@ -105,6 +216,13 @@ public abstract class AbstractHttpInvoker implements ChaosInvoker<HttpChannelReq
                 completableFuture.completeExceptionally(new InterruptedException());
             }
         });
+        if (exchange != null) {
+            caller.whenComplete((r, e) -> {
+                if (!exchange.isDone()) {
+                    exchange.cancel(true);
+                }
+            });
+        }
         return completableFuture;
     }
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * One circuit breaker per agent host, shared by the http invokers and the heartbeats.
+ * A host opens after continuous transport failures, or when the heartbeats find it offline,
+ * requests to an open host fail at once. After the open period one request goes through,
+ * a success closes the host, any other outcome opens it again.
+ *
+ * @author yefei
+ */
+@Slf4j
+@Component
+public class AgentCircuitBreakers {
+
+    @Value("${chaos.agent.breaker.enable:true}")
+    private boolean enable;
+
+    @Value("${chaos.agent.breaker.failureThreshold:3}")
+    private int failureThreshold;
+
+    @Value("${chaos.agent.breaker.openSeconds:30}")
+    private long openSeconds;
+
+    /**
+     * only the hosts failed recently, a success removes the host
+     */
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @return false if the request must fail at once
+     */
+    public boolean allow(String host) {
+        if (!enable || host == null) {
+            return true;
+        }
+        Breaker breaker = breakers.get(host);
+        return breaker == null || breaker.allow();
+    }
+
+    public void onSuccess(String host) {
+        if (host != null) {
+            breakers.remove(host);
+        }
+    }
+
+    /**
+     * only transport failures count, an agent answering with an error is alive,
+     * but a trial request failing in any way opens the host again
+     */
+    public void onFailure(String host, Throwable e) {
+        if (!enable || host == null || e instanceof AgentUnavailableException) {
+            return;
+        }
+        if (e instanceof IOException) {
+            breakers.computeIfAbsent(host, h -> new Breaker()).failed(failureThreshold, openMillis());
+            return;
+        }
+        Breaker breaker = breakers.get(host);
+        if (breaker != null) {
+            breaker.trialFailed(openMillis());
+        }
+    }
+
+    /**
+     * the heartbeats found the host offline
+     */
+    public void markDown(String host) {
+        if (enable && host != null) {
+            breakers.computeIfAbsent(host, h -> new Breaker()).open(openMillis());
+        }
+    }
+
+    /**
+     * the heartbeats found the host online
+     */
+    public void markUp(String host) {
+        onSuccess(host);
+    }
+
+    public List<String> openHosts() {
+        return breakers.entrySet().stream()
+                .filter(entry -> entry.getValue().state != State.CLOSED)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private long openMillis() {
+        return TimeUnit.SECONDS.toMillis(openSeconds);
+    }
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static class Breaker {
+
+        private volatile State state = State.CLOSED;
+
+        private int failures;
+
+        private long openUntil;
+
+        synchronized boolean allow() {
+            switch (state) {
+                case OPEN:
+                    if (System.currentTimeMillis() < openUntil) {
+                        return false;
+                    }
+                    // the one trial request
+                    state = State.HALF_OPEN;
+                    return true;
+                case HALF_OPEN:
+                    return false;
+                default:
+                    return true;
+            }
+        }
+
+        synchronized void failed(int threshold, long openMillis) {
+            failures++;
+            if (state == State.HALF_OPEN || failures >= threshold) {
+                open(openMillis);
+            }
+        }
+
+        synchronized void trialFailed(long openMillis) {
+            if (state == State.HALF_OPEN) {
+                open(openMillis);
+            }
+        }
+
+        synchronized void open(long openMillis) {
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openMillis;
+        }
+    }
+}
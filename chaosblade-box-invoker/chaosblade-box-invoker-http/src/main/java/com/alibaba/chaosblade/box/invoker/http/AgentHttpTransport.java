@@ -0,0 +1,243 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.http;
+
+import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
+import com.alibaba.chaosblade.box.common.utils.timer.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The http client shared by every agent invoker, one connection pool for all agents.
+ *
+ * @author yefei
+ */
+@Slf4j
+@Component
+public class AgentHttpTransport implements InitializingBean, DisposableBean {
+
+    @Value("${chaos.agent.http.maxTotal:1000}")
+    private int maxTotal;
+
+    @Value("${chaos.agent.http.maxPerRoute:4}")
+    private int maxPerRoute;
+
+    /**
+     * seconds an idle connection is kept when the agent does not tell
+     */
+    @Value("${chaos.agent.http.keepAlive:30}")
+    private long keepAlive;
+
+    /**
+     * seconds between evictions of the expired and idle connections
+     */
+    @Value("${chaos.agent.http.evictPeriod:10}")
+    private long evictPeriod;
+
+    @Value("${chaos.agent.http.ioThreads:0}")
+    private int ioThreads;
+
+    @Value("${chaos.agent.http.connectTimeout:3000}")
+    private int connectTimeout;
+
+    @Value("${chaos.agent.http.socketTimeout:3000}")
+    private int socketTimeout;
+
+    /**
+     * millis waiting for a connection of the pool
+     */
+    @Value("${chaos.agent.http.connectionRequestTimeout:30000}")
+    private int connectionRequestTimeout;
+
+    private PoolingNHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpAsyncClient httpclient;
+
+    private ScheduledExecutorService evictor;
+
+    private Timer timer;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors())
+                .setConnectTimeout(connectTimeout)
+                .setSoTimeout(socketTimeout)
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .build();
+
+        connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setSocketTimeout(socketTimeout)
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        httpclient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .build();
+        httpclient.start();
+
+        evictor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("agent-http-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evict, evictPeriod, evictPeriod, TimeUnit.SECONDS);
+
+        timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("timer-agent-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        evictor.shutdownNow();
+        timer.stop();
+        httpclient.close();
+    }
+
+    public CloseableHttpAsyncClient client() {
+        return httpclient;
+    }
+
+    /**
+     * schedules the retries and the hedged requests
+     */
+    public Timer timer() {
+        return timer;
+    }
+
+    /**
+     * millis, default of the requests without their own timeout
+     */
+    public int socketTimeout() {
+        return socketTimeout;
+    }
+
+    public RequestConfig.Builder requestConfig() {
+        return RequestConfig.custom()
+                .setSocketTimeout(socketTimeout)
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout);
+    }
+
+    public TransportStats stats() {
+        PoolStats total = connectionManager.getTotalStats();
+        return TransportStats.builder()
+                .maxTotal(total.getMax())
+                .maxPerRoute(maxPerRoute)
+                .leased(total.getLeased())
+                .pending(total.getPending())
+                .available(total.getAvailable())
+                .routes(connectionManager.getRoutes().size())
+                .saturatedRoutes(connectionManager.getRoutes().stream()
+                        .filter(route -> connectionManager.getStats(route).getPending() > 0)
+                        .map(route -> route.getTargetHost().toHostString())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private void evict() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(keepAlive, TimeUnit.SECONDS);
+            if (log.isDebugEnabled()) {
+                log.debug("agent http pool, {}", connectionManager.getTotalStats());
+            }
+        } catch (Throwable e) {
+            log.warn("evict agent http connections fail", e);
+        }
+    }
+
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        long defaultMillis = TimeUnit.SECONDS.toMillis(keepAlive);
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue())), defaultMillis);
+                    } catch (NumberFormatException ignore) {
+                    }
+                }
+            }
+            return defaultMillis;
+        };
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransportStats {
+
+        private int maxTotal;
+
+        private int maxPerRoute;
+
+        private int leased;
+
+        private int pending;
+
+        private int available;
+
+        private int routes;
+
+        /**
+         * hosts with requests waiting for a connection
+         */
+        private List<String> saturatedRoutes;
+    }
+}
@@ -38,4 +38,14 @@ public class ChaosBladePingHttpInvoker extends AbstractHttpInvoker {
         CompletableFuture<ResponseCommand> completableFuture = super.invoke(requestCommand);
         return completableFuture;
     }
+
+    @Override
+    protected boolean idempotent() {
+        return true;
+    }
+
+    @Override
+    protected boolean probe() {
+        return true;
+    }
 }
@@ -49,4 +49,9 @@ public class ChaosBladeStatusHttpInvoker extends AbstractHttpInvoker {
         return super.invoke(requestCommand);
     }
 
+    @Override
+    protected boolean idempotent() {
+        return true;
+    }
+
 }
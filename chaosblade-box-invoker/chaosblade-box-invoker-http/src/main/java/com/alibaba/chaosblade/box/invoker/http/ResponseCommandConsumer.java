@@ -0,0 +1,101 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.http;
+
+import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.invoker.ResponseCommand;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses the {@link ResponseCommand} while the body arrives, the body is never buffered as a whole.
+ *
+ * @author yefei
+ */
+class ResponseCommandConsumer extends AbstractAsyncResponseConsumer<ResponseCommand> {
+
+    private static final ObjectReader READER = JsonUtils.reader(ResponseCommand.class);
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private JsonParser parser;
+
+    private TokenBuffer tokens;
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) throws IOException {
+        parser = READER.getFactory().createNonBlockingByteArrayParser();
+        tokens = new TokenBuffer(parser);
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        int read;
+        while ((read = decoder.read(buffer)) > 0) {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(buffer.array(), 0, read);
+            drain();
+            buffer.clear();
+        }
+    }
+
+    @Override
+    protected ResponseCommand buildResult(HttpContext context) throws Exception {
+        if (parser == null) {
+            throw new IOException("no response");
+        }
+        parser.getNonBlockingInputFeeder().endOfInput();
+        drain();
+        return READER.readValue(tokens.asParser(READER));
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+}
@@ -24,15 +24,18 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.DefaultHttpResponseFactory;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
 import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.EntityUtils;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.Future;
 
 /**
@@ -47,10 +50,11 @@ public class AbstractHttpInvokerMock {
     }
 
     @MockMethod
-    public Future<HttpResponse> execute(
+    public <T> Future<T> execute(
             CloseableHttpAsyncClient self,
-            final HttpUriRequest request,
-            final FutureCallback<HttpResponse> callback) throws UnsupportedEncodingException {
+            final HttpAsyncRequestProducer requestProducer,
+            final HttpAsyncResponseConsumer<T> responseConsumer,
+            final FutureCallback<T> callback) throws Exception {
         DefaultHttpResponseFactory factory = DefaultHttpResponseFactory.INSTANCE;
         final BasicHttpContext localContext = new BasicHttpContext();
         final HttpCoreContext context = HttpCoreContext.adapt(localContext);
@@ -58,7 +62,33 @@ public class AbstractHttpInvokerMock {
                 HttpStatus.SC_CONTINUE, context);
         StringEntity entity = new StringEntity("{\"Success\":true}");
         response.setEntity(entity);
-        callback.completed(response);
+
+        // feed the body in small chunks, as the reactor would
+        ByteBuffer body = ByteBuffer.wrap(EntityUtils.toByteArray(entity));
+        responseConsumer.responseReceived(response);
+        ContentDecoder decoder = new ContentDecoder() {
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!body.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(Math.min(dst.remaining(), body.remaining()), 3);
+                for (int i = 0; i < n; i++) {
+                    dst.put(body.get());
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isCompleted() {
+                return !body.hasRemaining();
+            }
+        };
+        while (!decoder.isCompleted()) {
+            responseConsumer.consumeContent(decoder, null);
+        }
+        responseConsumer.responseCompleted(context);
+        callback.completed(responseConsumer.getResult());
         return null;
     }
 }
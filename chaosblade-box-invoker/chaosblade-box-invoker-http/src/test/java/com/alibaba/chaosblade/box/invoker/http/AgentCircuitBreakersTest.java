@@ -0,0 +1,91 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.http;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ConnectException;
+
+/**
+ * @author yefei
+ */
+public class AgentCircuitBreakersTest {
+
+    private AgentCircuitBreakers breakers;
+
+    @Before
+    public void setUp() {
+        breakers = new AgentCircuitBreakers();
+        ReflectionTestUtils.setField(breakers, "enable", true);
+        ReflectionTestUtils.setField(breakers, "failureThreshold", 2);
+        ReflectionTestUtils.setField(breakers, "openSeconds", 30L);
+    }
+
+    @Test
+    public void testOpen() {
+        breakers.onFailure("192.168.1.1", new ConnectException());
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+
+        breakers.onFailure("192.168.1.1", new ConnectException());
+        Assert.assertFalse(breakers.allow("192.168.1.1"));
+        Assert.assertTrue(breakers.allow("192.168.1.2"));
+
+        breakers.markUp("192.168.1.1");
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+        Assert.assertTrue(breakers.openHosts().isEmpty());
+    }
+
+    @Test
+    public void testHalfOpen() {
+        ReflectionTestUtils.setField(breakers, "openSeconds", 0L);
+        breakers.markDown("192.168.1.1");
+
+        // one trial request after the open period
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+        Assert.assertFalse(breakers.allow("192.168.1.1"));
+
+        breakers.onFailure("192.168.1.1", new ConnectException());
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+        breakers.onSuccess("192.168.1.1");
+        Assert.assertTrue(breakers.openHosts().isEmpty());
+    }
+
+    @Test
+    public void testTrialEndedWithoutTransportFailure() {
+        ReflectionTestUtils.setField(breakers, "openSeconds", 0L);
+        breakers.markDown("192.168.1.1");
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+        Assert.assertFalse(breakers.allow("192.168.1.1"));
+
+        // a timeout or an agent error ends the trial, the host opens again
+        breakers.onFailure("192.168.1.1", new IllegalStateException());
+        Assert.assertFalse(breakers.openHosts().isEmpty());
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+    }
+
+    @Test
+    public void testAgentErrorNotCounted() {
+        breakers.onFailure("192.168.1.1", new IllegalStateException());
+        breakers.onFailure("192.168.1.1", new AgentUnavailableException("192.168.1.1"));
+        breakers.onFailure("192.168.1.1", new IllegalStateException());
+        Assert.assertTrue(breakers.allow("192.168.1.1"));
+    }
+}
@@ -16,40 +16,25 @@
 
 package com.alibaba.chaosblade.box.invoker.litmus.kubeapi;
 
-import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
 import com.alibaba.chaosblade.box.invoker.ChaosInvoker;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CustomObjectsApi;
-import io.kubernetes.client.util.Config;
-import org.springframework.beans.factory.InitializingBean;
 
-import java.io.ByteArrayInputStream;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * @author yefei
  */
-public abstract class AbstractLitmusChaosInvoker implements ChaosInvoker<RequestCommand, ResponseCommand>, InitializingBean {
+public abstract class AbstractLitmusChaosInvoker implements ChaosInvoker<RequestCommand, ResponseCommand> {
 
     protected final static String SA_SUFFIX = "-sa";
 
-    protected ApiClient client;
-
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        client = Config.defaultClient();
-    }
-
     protected ApiClient getClient(RequestCommand requestCommand) throws Exception {
-        if (StrUtil.isBlank(requestCommand.getConfig())) {
-            return client;
-        } else {
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(requestCommand.getConfig().getBytes());
-            return Config.fromConfig(byteArrayInputStream);
-        }
+        return KubeClientRegistry.getClient(requestCommand.getConfig());
     }
 
     protected CompletableFuture<ResponseCommand> postExperiment(RequestCommand requestCommand) {
@@ -25,6 +25,7 @@ import com.alibaba.chaosblade.box.common.enums.DeviceType;
 import com.alibaba.chaosblade.box.common.utils.JsonUtils;
 import com.alibaba.chaosblade.box.common.utils.SceneCodeParseUtil;
 import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategy;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import com.alibaba.chaosblade.box.invoker.litmus.kubeapi.crd.engine.*;
@@ -60,11 +61,15 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
     @Autowired
     private LitmusScenarioParser litmusScenarioParser;
 
+    @Autowired
+    private LitmusProvisionCache litmusProvisionCache;
+
     private String preExperiment(RequestCommand requestCommand) throws Exception {
         CompletableFuture<ResponseCommand> future = new CompletableFuture<>();
         String serviceAccount = requestCommand.getSceneCode() + SA_SUFFIX;
         Map<String, ChaosExperiment> experimentMap = litmusScenarioParser.getExperimentMap();
         ChaosExperiment chaosExperiment = experimentMap.get(requestCommand.getSceneCode());
+        boolean provisioned = true;
 
         try {
             CustomObjectsApi customObjectsApi = new CustomObjectsApi(getClient(requestCommand));
@@ -82,6 +87,7 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
             if (e.getCode() == 409) {
                 // ignore
             } else {
+                provisioned = false;
                 future.complete(ResponseCommand.builder()
                         .code(String.valueOf(e.getCode()))
                         .error(e.getMessage())
@@ -106,6 +112,7 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
             if (e.getCode() == 409) {
                 // ignore
             } else {
+                provisioned = false;
                 future.complete(ResponseCommand.builder()
                         .code(String.valueOf(e.getCode()))
                         .error(e.getMessage())
@@ -136,6 +143,7 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
             if (e.getCode() == 409) {
                 // ignore
             } else {
+                provisioned = false;
                 future.complete(ResponseCommand.builder()
                         .code(String.valueOf(e.getCode()))
                         .error(e.getMessage())
@@ -158,6 +166,7 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
             if (e.getCode() == 409) {
                 // ignore
             } else {
+                provisioned = false;
                 future.complete(ResponseCommand.builder()
                         .code(String.valueOf(e.getCode()))
                         .error(e.getMessage())
@@ -165,6 +174,10 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
                         .success(false).build());
             }
         }
+        if (provisioned) {
+            litmusProvisionCache.provisioned(requestCommand.getConfig(), requestCommand.getSceneCode(),
+                    requestCommand.getNamespace());
+        }
         return serviceAccount;
     }
 
@@ -176,7 +189,10 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
 
         CompletableFuture<ResponseCommand> completableFuture = new CompletableFuture<>();
         try {
-            String serviceAccount = preExperiment(requestCommand);
+            String serviceAccount = litmusProvisionCache.isProvisioned(requestCommand.getConfig(),
+                    requestCommand.getSceneCode(), requestCommand.getNamespace())
+                    ? requestCommand.getSceneCode() + SA_SUFFIX
+                    : preExperiment(requestCommand);
             CustomObjectsApi apiInstance = new CustomObjectsApi(getClient(requestCommand));
 
             V1ObjectMeta v1ObjectMeta = new V1ObjectMeta();
@@ -235,6 +251,9 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
                     new ApiCallback() {
                         @Override
                         public void onFailure(ApiException e, int statusCode, Map responseHeaders) {
+                            if (statusCode == 404) {
+                                litmusProvisionCache.invalidate(requestCommand.getConfig(), requestCommand.getSceneCode());
+                            }
                             ResponseCommand responseCommand = ResponseCommand.builder()
                                     .success(false)
                                     .code(String.valueOf(statusCode))
@@ -266,6 +285,9 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
                     }
             );
         } catch (ApiException apiException) {
+            if (apiException.getCode() == 404) {
+                litmusProvisionCache.invalidate(requestCommand.getConfig(), requestCommand.getSceneCode());
+            }
             ResponseCommand responseCommand = ResponseCommand.builder()
                     .success(false)
                     .code(String.valueOf(apiException.getCode()))
@@ -276,7 +298,7 @@ public class LitmusAttackChaosInvoker extends AbstractLitmusChaosInvoker {
         } catch (Exception e) {
             completableFuture.completeExceptionally(e);
         }
-        return completableFuture;
+        return Deadlines.within(completableFuture, requestCommand.getDeadline());
     }
 
 }
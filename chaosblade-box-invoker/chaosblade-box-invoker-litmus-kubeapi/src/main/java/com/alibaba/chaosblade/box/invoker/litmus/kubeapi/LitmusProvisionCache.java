@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.litmus.kubeapi;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The namespaces a litmus scene has its experiment, service account and cluster role provisioned in,
+ * per cluster, so repeated attacks go straight to the engine. A cleanup invalidates only the cache of
+ * its own replica, so the entries also expire and the next attack provisions again.
+ *
+ * @author yefei
+ */
+@Component
+public class LitmusProvisionCache {
+
+    /**
+     * namespace to the millis its entry expires at
+     */
+    private final Map<String, Map<String, Long>> provisioned = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    public LitmusProvisionCache(@Value("${chaos.litmus.provisionTtl:300}") long ttlSeconds) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    public boolean isProvisioned(String config, String sceneCode, String namespace) {
+        Map<String, Long> namespaces = provisioned.get(key(config, sceneCode));
+        Long expireTime = namespaces == null ? null : namespaces.get(namespace);
+        if (expireTime == null) {
+            return false;
+        }
+        if (expireTime <= System.currentTimeMillis()) {
+            namespaces.remove(namespace, expireTime);
+            return false;
+        }
+        return true;
+    }
+
+    public void provisioned(String config, String sceneCode, String namespace) {
+        provisioned.computeIfAbsent(key(config, sceneCode), k -> new ConcurrentHashMap<>())
+                .put(namespace, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * the cluster role is cluster scoped, so every namespace of the scene is dropped
+     */
+    public void invalidate(String config, String sceneCode) {
+        provisioned.remove(key(config, sceneCode));
+    }
+
+    private static String key(String config, String sceneCode) {
+        return (StrUtil.isBlank(config) ? "default" : SecureUtil.sha256(config)) + "/" + sceneCode;
+    }
+}
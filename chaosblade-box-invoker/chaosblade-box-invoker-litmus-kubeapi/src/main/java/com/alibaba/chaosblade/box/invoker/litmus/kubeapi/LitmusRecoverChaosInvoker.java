@@ -22,6 +22,7 @@ import com.alibaba.chaosblade.box.common.enums.ChaosTools;
 import com.alibaba.chaosblade.box.common.enums.DeviceType;
 import com.alibaba.chaosblade.box.common.utils.SceneCodeParseUtil;
 import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategy;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import io.kubernetes.client.openapi.ApiCallback;
@@ -30,6 +31,7 @@ import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.apis.CustomObjectsApi;
 import io.kubernetes.client.openapi.apis.RbacAuthorizationV1Api;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -47,6 +49,9 @@ import java.util.concurrent.CompletableFuture;
 @Component
 public class LitmusRecoverChaosInvoker extends AbstractLitmusChaosInvoker {
 
+    @Autowired
+    private LitmusProvisionCache litmusProvisionCache;
+
     @Override
     public CompletableFuture<ResponseCommand> invoke(RequestCommand requestCommand) {
         if (StrUtil.isBlank(requestCommand.getNamespace())) {
@@ -124,11 +129,13 @@ public class LitmusRecoverChaosInvoker extends AbstractLitmusChaosInvoker {
         } catch (Exception e) {
             completableFuture.completeExceptionally(e);
         }
-        return completableFuture;
+        return Deadlines.within(completableFuture, requestCommand.getDeadline());
     }
 
     private void clean(RequestCommand requestCommand) throws Exception {
-        String serviceAccount = requestCommand.getSceneCode().replace(ChaosConstant.CHAOS_DESTROY_SUFFIX, "") + SA_SUFFIX;
+        String sceneCode = requestCommand.getSceneCode().replace(ChaosConstant.CHAOS_DESTROY_SUFFIX, "");
+        String serviceAccount = sceneCode + SA_SUFFIX;
+        litmusProvisionCache.invalidate(requestCommand.getConfig(), sceneCode);
 
         String experimentName;
         String target = SceneCodeParseUtil.getTarget(requestCommand.getSceneCode());
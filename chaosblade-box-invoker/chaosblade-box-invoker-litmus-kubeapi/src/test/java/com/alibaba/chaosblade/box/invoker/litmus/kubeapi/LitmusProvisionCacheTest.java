@@ -0,0 +1,50 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.invoker.litmus.kubeapi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author yefei
+ */
+public class LitmusProvisionCacheTest {
+
+    @Test
+    public void testInvalidate() {
+        LitmusProvisionCache cache = new LitmusProvisionCache(300);
+        cache.provisioned("config-a", "litmuschaos.node-cpu.hog", "default");
+        cache.provisioned("config-a", "litmuschaos.node-cpu.hog", "test");
+        cache.provisioned("config-b", "litmuschaos.node-cpu.hog", "default");
+
+        Assert.assertTrue(cache.isProvisioned("config-a", "litmuschaos.node-cpu.hog", "test"));
+        Assert.assertFalse(cache.isProvisioned("config-a", "litmuschaos.node-memory.hog", "default"));
+
+        cache.invalidate("config-a", "litmuschaos.node-cpu.hog");
+        Assert.assertFalse(cache.isProvisioned("config-a", "litmuschaos.node-cpu.hog", "default"));
+        Assert.assertFalse(cache.isProvisioned("config-a", "litmuschaos.node-cpu.hog", "test"));
+        Assert.assertTrue(cache.isProvisioned("config-b", "litmuschaos.node-cpu.hog", "default"));
+    }
+
+    @Test
+    public void testExpire() {
+        LitmusProvisionCache cache = new LitmusProvisionCache(0);
+        cache.provisioned("config-a", "litmuschaos.node-cpu.hog", "default");
+        Assert.assertFalse(cache.isProvisioned("config-a", "litmuschaos.node-cpu.hog", "default"));
+    }
+}
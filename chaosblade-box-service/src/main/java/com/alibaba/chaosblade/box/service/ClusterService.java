@@ -1,5 +1,7 @@
 package com.alibaba.chaosblade.box.service;
 
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientStats;
+import com.alibaba.chaosblade.box.service.collect.CollectorMetrics;
 import com.alibaba.chaosblade.box.service.model.cluster.ClusterBO;
 
 import java.util.List;
@@ -44,4 +46,14 @@ public interface ClusterService {
      *
      */
     String getKubeconfig(ClusterBO clusterBO);
+
+    /**
+     * collection cycle counters of this replica
+     */
+    List<CollectorMetrics.ClusterMetrics> getCollectorMetrics();
+
+    /**
+     * shared kubernetes clients of this replica and their connection pools
+     */
+    List<KubeClientStats> getKubeClientStats();
 }
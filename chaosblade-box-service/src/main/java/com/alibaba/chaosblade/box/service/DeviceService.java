@@ -19,6 +19,7 @@ package com.alibaba.chaosblade.box.service;
 import com.alibaba.chaosblade.box.service.model.device.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author yefei
@@ -31,6 +32,13 @@ public interface DeviceService {
      */
     void deviceRegister(DeviceRegisterRequest deviceRegisterRequest);
 
+    /**
+     * heartbeat pushed by the agent, identified by agentId or ip
+     *
+     * @param param
+     */
+    void deviceHeartbeat(Map<String, String> param);
+
     /**
      *
      * @param deviceRequest
@@ -0,0 +1,229 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.collect;
+
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.IdUtil;
+import com.alibaba.chaosblade.box.collector.model.Query;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
+import com.alibaba.chaosblade.box.dao.model.ClusterDO;
+import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collect lease of each cluster, kept in t_chaos_cluster, so a cluster is only collected by
+ * the replica owning it. Leases are renewed every third of the lease time, a replica takes
+ * free or expired leases up to its fair share of the live replicas.
+ *
+ * @author yefei
+ */
+@Slf4j
+@Component
+public class ClusterLeaseManager implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private ClusterRepository clusterRepository;
+
+    @Autowired
+    private CollectorTimer collectorTimer;
+
+    @Value("${chaos.collector.leaseSeconds:30}")
+    private Integer leaseSeconds;
+
+    private final String replica = NetUtil.getLocalHostName() + "-" + IdUtil.fastSimpleUUID().substring(0, 8);
+
+    /**
+     * owned cluster id -> local lease deadline
+     */
+    private final Map<Long, Long> leases = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("cluster lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(this::renew, 0,
+                Math.max(1, leaseSeconds / 3), TimeUnit.SECONDS);
+        log.info("cluster lease replica: {}", replica);
+    }
+
+    @Override
+    public void destroy() {
+        scheduledExecutorService.shutdownNow();
+        new ArrayList<>(leases.keySet()).forEach(this::release);
+        try {
+            clusterRepository.deleteReplica(replica);
+        } catch (Exception e) {
+            log.warn("delete collector replica fail, replica: {}", replica, e);
+        }
+    }
+
+    /**
+     * try to own and collect the cluster now instead of waiting for the next renewal
+     */
+    public void acquire(ClusterDO cluster) {
+        scheduledExecutorService.execute(() -> tryAcquire(cluster));
+    }
+
+    /**
+     * stop collecting the cluster and give its lease back
+     */
+    public void release(Long clusterId) {
+        if (leases.remove(clusterId) == null) {
+            return;
+        }
+        collectorTimer.stop(Query.builder().clusterId(clusterId).build());
+        try {
+            clusterRepository.releaseLease(clusterId, replica);
+        } catch (Exception e) {
+            log.warn("release cluster lease fail, cluster: {}", clusterId, e);
+        }
+        log.info("release cluster lease, cluster: {}", clusterId);
+    }
+
+    /**
+     * collect the cluster again if owned, called when its kubeconfig changes
+     */
+    public void reload(Long clusterId) {
+        scheduledExecutorService.execute(() -> clusterRepository.selectById(clusterId).ifPresent(this::reload));
+    }
+
+    public Set<Long> ownedClusters() {
+        return Collections.unmodifiableSet(leases.keySet());
+    }
+
+    private void renew() {
+        try {
+            clusterRepository.renewReplica(replica, leaseSeconds);
+
+            List<ClusterDO> clusters = candidates();
+            Set<Long> ids = new HashSet<>();
+            clusters.forEach(cluster -> ids.add(cluster.getId()));
+            for (Long clusterId : new ArrayList<>(leases.keySet())) {
+                if (!ids.contains(clusterId)) {
+                    release(clusterId);
+                }
+            }
+
+            int replicas = Math.max(1, clusterRepository.selectLiveReplicaCount());
+            int share = (clusters.size() + replicas - 1) / replicas;
+
+            Collections.shuffle(clusters);
+            for (ClusterDO cluster : clusters) {
+                if (!leases.containsKey(cluster.getId())) {
+                    continue;
+                }
+                if (clusterRepository.acquireLease(cluster.getId(), replica, leaseSeconds)) {
+                    leases.put(cluster.getId(), deadline());
+                    reload(cluster);
+                } else {
+                    lost(cluster.getId());
+                }
+            }
+
+            // give one lease back per round when above the share, another replica takes it over
+            if (leases.size() > share) {
+                release(leases.keySet().iterator().next());
+                return;
+            }
+            for (ClusterDO cluster : clusters) {
+                if (leases.size() >= share) {
+                    break;
+                }
+                if (!leases.containsKey(cluster.getId())) {
+                    tryAcquire(cluster);
+                }
+            }
+        } catch (Exception e) {
+            log.error("renew cluster lease fail", e);
+            long now = System.currentTimeMillis();
+            leases.forEach((clusterId, deadline) -> {
+                if (deadline < now) {
+                    lost(clusterId);
+                }
+            });
+        }
+    }
+
+    private List<ClusterDO> candidates() {
+        List<ClusterDO> clusters = new ArrayList<>(clusterRepository.selectList(ClusterDO.builder()
+                .isCollector(true)
+                .build()));
+        Long defaultClusterId = collectorTimer.getDefaultClusterId();
+        if (defaultClusterId != null && clusters.stream().noneMatch(cluster -> cluster.getId().equals(defaultClusterId))) {
+            clusterRepository.selectById(defaultClusterId).ifPresent(clusters::add);
+        }
+        return clusters;
+    }
+
+    private void tryAcquire(ClusterDO cluster) {
+        if (!clusterRepository.acquireLease(cluster.getId(), replica, leaseSeconds)) {
+            return;
+        }
+        if (leases.put(cluster.getId(), deadline()) == null) {
+            log.info("acquire cluster lease, cluster: {}", cluster.getId());
+            collectorTimer.collect(Query.builder()
+                    .config(cluster.getConfig())
+                    .clusterId(cluster.getId())
+                    .build());
+        }
+    }
+
+    /**
+     * the running collection keeps the kubeconfig it started with, it is restarted once the cluster has another one
+     */
+    private void reload(ClusterDO cluster) {
+        if (!leases.containsKey(cluster.getId()) || !collectorTimer.configChanged(cluster.getId(), cluster.getConfig())) {
+            return;
+        }
+        log.info("cluster kubeconfig changed, collect again, cluster: {}", cluster.getId());
+        collectorTimer.stop(Query.builder().clusterId(cluster.getId()).build());
+        KubeClientRegistry.invalidate(cluster.getId());
+        collectorTimer.collect(Query.builder()
+                .config(cluster.getConfig())
+                .clusterId(cluster.getId())
+                .build());
+    }
+
+    private void lost(Long clusterId) {
+        if (leases.remove(clusterId) != null) {
+            log.warn("cluster lease lost, cluster: {}", clusterId);
+            collectorTimer.stop(Query.builder().clusterId(clusterId).build());
+        }
+    }
+
+    private long deadline() {
+        return System.currentTimeMillis() + leaseSeconds * 1000L;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.collect;
+
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the collection cycles, per cluster and phase.
+ *
+ * @author yefei
+ */
+@Component
+public class CollectorMetrics {
+
+    public enum Phase {
+        NODE, POD, CONTAINER
+    }
+
+    private final Map<Long, ClusterMetrics> clusters = new ConcurrentHashMap<>();
+
+    /**
+     * @param clusterId null for the collection without a cluster
+     */
+    public ClusterMetrics cluster(Long clusterId) {
+        return clusters.computeIfAbsent(clusterId == null ? 0L : clusterId, ClusterMetrics::new);
+    }
+
+    public CycleMetrics cycle(Long clusterId, Phase phase) {
+        return cluster(clusterId).getPhases().get(phase);
+    }
+
+    public Collection<ClusterMetrics> clusters() {
+        return Collections.unmodifiableCollection(clusters.values());
+    }
+
+    @Getter
+    public static class ClusterMetrics {
+
+        private final Long clusterId;
+
+        private final Map<Phase, CycleMetrics> phases;
+
+        ClusterMetrics(Long clusterId) {
+            this.clusterId = clusterId;
+            Map<Phase, CycleMetrics> map = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                map.put(phase, new CycleMetrics());
+            }
+            this.phases = Collections.unmodifiableMap(map);
+        }
+    }
+
+    @Getter
+    public static class CycleMetrics {
+
+        private final LongAdder cycles = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * sum of the cycle durations, from the request to the last row written
+         */
+        private final LongAdder durationMillis = new LongAdder();
+
+        private volatile long lastDurationMillis;
+
+        private volatile long lastCycleTime;
+
+        private final LongAdder itemsFetched = new LongAdder();
+
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private final LongAdder rowsInserted = new LongAdder();
+
+        private final LongAdder rowsUpdated = new LongAdder();
+
+        /**
+         * rows unchanged or without a saved parent, not written
+         */
+        private final LongAdder rowsSkipped = new LongAdder();
+
+        void complete(long startTime, long items, long bytes) {
+            long now = System.currentTimeMillis();
+            cycles.increment();
+            durationMillis.add(now - startTime);
+            lastDurationMillis = now - startTime;
+            lastCycleTime = now;
+            itemsFetched.add(items);
+            bytesReceived.add(bytes);
+        }
+
+        void fail(long startTime, long bytes) {
+            complete(startTime, 0, bytes);
+            failures.increment();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateField;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.EnumUtil;
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.collector.*;
 import com.alibaba.chaosblade.box.collector.model.Container;
 import com.alibaba.chaosblade.box.collector.model.Node;
@@ -31,18 +32,19 @@ import com.alibaba.chaosblade.box.common.utils.JsonUtils;
 import com.alibaba.chaosblade.box.common.utils.Preconditions;
 import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
 import com.alibaba.chaosblade.box.common.utils.timer.Timer;
-import com.alibaba.chaosblade.box.dao.QueryWrapperBuilder;
-import com.alibaba.chaosblade.box.dao.mapper.DeviceMapper;
+import com.alibaba.chaosblade.box.dao.model.BaseDO;
 import com.alibaba.chaosblade.box.dao.model.ClusterDO;
 import com.alibaba.chaosblade.box.dao.model.DeviceDO;
 import com.alibaba.chaosblade.box.dao.model.DeviceNodeDO;
 import com.alibaba.chaosblade.box.dao.model.DevicePodDO;
 import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
+import com.alibaba.chaosblade.box.dao.repository.DeviceInventoryRepository;
 import com.alibaba.chaosblade.box.dao.repository.DeviceNodeRepository;
 import com.alibaba.chaosblade.box.dao.repository.DevicePodRepository;
 import com.alibaba.chaosblade.box.dao.repository.DeviceRepository;
+import com.alibaba.chaosblade.box.service.collect.CollectorMetrics.CycleMetrics;
+import com.alibaba.chaosblade.box.service.collect.CollectorMetrics.Phase;
 import com.alibaba.chaosblade.box.service.model.device.ContainerBO;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,9 +52,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -64,9 +72,6 @@ public class CollectorTimer implements InitializingBean {
 
     private Timer timer;
 
-    @Autowired
-    private DeviceMapper deviceMapper;
-
     @Autowired
     private DeviceRepository deviceRepository;
 
@@ -79,6 +84,15 @@ public class CollectorTimer implements InitializingBean {
     @Autowired
     private ClusterRepository clusterRepository;
 
+    @Autowired
+    private DeviceInventoryRepository deviceInventoryRepository;
+
+    @Autowired
+    private TopologyIndex topologyIndex;
+
+    @Autowired
+    private CollectorMetrics collectorMetrics;
+
     @Value("${chaos.collector.type}")
     private String collectorType;
 
@@ -88,6 +102,15 @@ public class CollectorTimer implements InitializingBean {
     @Value("${chaos.collector.period}")
     private Integer period;
 
+    @Value("${chaos.collector.pageSize:500}")
+    private Integer pageSize;
+
+    @Value("${chaos.collector.watch:false}")
+    private boolean watch;
+
+    @Value("${chaos.collector.watchFlush:1000}")
+    private Integer watchFlush;
+
     @Value("${chaos.collector.search.fieldSelector}")
     private String fieldSelector;
 
@@ -105,6 +128,17 @@ public class CollectorTimer implements InitializingBean {
 
     private ConcurrentHashMap<Long, Query> map = new ConcurrentHashMap<>(64);
 
+    private volatile Long defaultClusterId;
+
+    private ConcurrentHashMap<Long, List<CollectorWatch>> watches = new ConcurrentHashMap<>(64);
+
+    /**
+     * in-cluster default cluster, null if chaos.collector.enable is off
+     */
+    public Long getDefaultClusterId() {
+        return defaultClusterId;
+    }
+
     public void dryRun() throws Exception {
         Preconditions.checkNotNull(nodeCollector, "collector is null");
         CompletableFuture<List<Node>> future = nodeCollector.collect(Query.builder().build());
@@ -121,63 +155,374 @@ public class CollectorTimer implements InitializingBean {
 
         map.put(query.getClusterId(), query);
 
+        if (watch && nodeCollector instanceof WatchCollector && podCollector instanceof WatchCollector) {
+            log.info("collect by watch, cluster: {}", query.getClusterId());
+            nodeWatch(query);
+            return;
+        }
+
         nodeCollect(nodeCollector, query);
         podCollect(podCollector, query);
         containerCollect(containerCollector, query);
     }
 
+    /**
+     * whether the cluster is collected by this replica with another kubeconfig
+     */
+    public boolean configChanged(Long clusterId, String config) {
+        Query query = map.get(clusterId);
+        return query != null && !query.isStop() && !Objects.equals(query.getConfig(), config);
+    }
+
     public void stop(Query query) {
 
         Query q = map.get(query.getClusterId());
         if (q != null) {
             q.setStop(true);
         }
+        List<CollectorWatch> collectorWatches = watches.remove(query.getClusterId());
+        if (collectorWatches != null) {
+            collectorWatches.forEach(CollectorWatch::close);
+        }
+    }
+
+    private void saveNodes(Query query, List<Node> nodes) {
+        List<DeviceNodeDO> deviceNodes = nodes.stream()
+                .map(node -> DeviceNodeDO.builder()
+                        .nodeName(node.getName())
+                        .nodeIp(node.getIp())
+                        .build())
+                .collect(Collectors.toList());
+        List<DeviceNodeDO> saved = deviceInventoryRepository.saveNodes(query.getClusterId(), deviceNodes);
+        countRows(collectorMetrics.cycle(query.getClusterId(), Phase.NODE), deviceNodes, saved);
+        topologyIndex.putNodes(saved);
+    }
+
+    private void savePods(Long clusterId, List<DevicePodDO> devicePods) {
+        List<DevicePodDO> saved = deviceInventoryRepository.savePods(devicePods);
+        countRows(collectorMetrics.cycle(clusterId, Phase.POD), devicePods, saved);
+        topologyIndex.putPods(saved);
+    }
+
+    /**
+     * the upsert keeps the id of an existing row, a saved row carrying the id just generated is a new one
+     */
+    private static <T extends BaseDO> void countRows(CycleMetrics metrics, List<T> written, List<T> saved) {
+        Set<Long> ids = written.stream().map(BaseDO::getId).collect(Collectors.toSet());
+        long inserted = saved.stream().filter(row -> ids.contains(row.getId())).count();
+        metrics.getRowsInserted().add(inserted);
+        metrics.getRowsUpdated().add(saved.size() - inserted);
+        metrics.getRowsSkipped().add(written.size() - saved.size());
+    }
+
+    private Query cycleQuery(Query query) {
+        Query q = Query.builder().build();
+        q.setClusterId(query.getClusterId());
+        q.setConfig(query.getConfig());
+        q.setLimit(pageSize);
+        return q;
+    }
+
+    private DevicePodDO toDevicePod(DeviceNodeDO node, Pod pod) {
+        DevicePodDO devicePodDO = DevicePodDO.builder()
+                .nodeId(node.getId())
+                .namespace(pod.getNamespace())
+                .podName(pod.getName())
+                .podIp(pod.getIp())
+                .build();
+        // watched pods carry their containers
+        if (pod.getContainers() != null) {
+            List<ContainerBO> list = pod.getContainers().stream().map(container ->
+                    ContainerBO.builder()
+                            .containerId(container.getContainerId())
+                            .containerName(container.getName())
+                            .build()
+            ).collect(Collectors.toList());
+            devicePodDO.setContainers(JsonUtils.writeValueAsString(list));
+        }
+        return devicePodDO;
+    }
+
+    private List<DeviceNodeDO> clusterNodes(Long clusterId) {
+        if (topologyIndex.isReady()) {
+            return topologyIndex.nodes(node -> Objects.equals(node.getClusterId(), clusterId));
+        }
+        return deviceNodeRepository.selectList(DeviceNodeDO.builder().build())
+                .stream()
+                .filter(node -> Objects.equals(node.getClusterId(), clusterId))
+                .collect(Collectors.toList());
+    }
+
+    private void saveContainers(Query query, List<Long> nodeIds, List<Container> containers) {
+        if (nodeIds.isEmpty() || containers.isEmpty()) {
+            return;
+        }
+        Map<String, List<Container>> podContainers = containers.stream()
+                .collect(Collectors.groupingBy(container -> container.getNamespace() + "/" + container.getPod()));
+        List<String> podNames = containers.stream().map(Container::getPod).distinct().collect(Collectors.toList());
+
+        for (DevicePodDO devicePod : devicePodRepository.selectByPodNames(podNames, nodeIds)) {
+            List<Container> list = podContainers.get(devicePod.getNamespace() + "/" + devicePod.getPodName());
+            if (list == null) {
+                continue;
+            }
+            List<ContainerBO> containerBOS = list.stream().map(container ->
+                    ContainerBO.builder()
+                            .containerId(container.getContainerId())
+                            .containerName(container.getName())
+                            .build()
+            ).collect(Collectors.toList());
+
+            // the row is just read, unchanged containers are not written again
+            String json = JsonUtils.writeValueAsString(containerBOS);
+            if (json.equals(devicePod.getContainers())) {
+                collectorMetrics.cycle(query.getClusterId(), Phase.CONTAINER).getRowsSkipped().increment();
+                continue;
+            }
+            devicePodRepository.updateByPrimaryKey(devicePod.getId(), DevicePodDO.builder().containers(json).build());
+            topologyIndex.putContainers(devicePod.getId(), json, containerBOS);
+            collectorMetrics.cycle(query.getClusterId(), Phase.CONTAINER).getRowsUpdated().increment();
+        }
+    }
+
+    private void offline(List<Long> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        deviceRepository.updateByIds(deviceIds, DeviceDO.builder()
+                .status(DeviceStatus.OFFLINE.getStatus())
+                .build());
+        topologyIndex.offline(deviceIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void nodeWatch(Query query) {
+        WatchEvents<Node> nodeEvents = new WatchEvents<>(Node::getName);
+        // a pod deleted and created again on another node within a flush has both events kept
+        WatchEvents<Pod> podEvents = new WatchEvents<>(pod -> pod.getNamespace() + "/" + pod.getName() + "@" + pod.getNode());
+        CollectorWatch nodeWatch = ((WatchCollector<Node>) nodeCollector).watch(query, nodeEvents);
+        watches.computeIfAbsent(query.getClusterId(), k -> new CopyOnWriteArrayList<>()).add(nodeWatch);
+        flushWatch(query, nodeEvents, podEvents);
+
+        // pods reference the node rows, watch them after the nodes are listed
+        podWatch(query, nodeWatch, podEvents);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void podWatch(Query query, CollectorWatch nodeWatch, WatchEvents<Pod> podEvents) {
+        timer.newTimeout(timeout -> {
+            if (query.isStop()) {
+                return;
+            }
+            if (!nodeWatch.isSynced()) {
+                podWatch(query, nodeWatch, podEvents);
+                return;
+            }
+            query.setFieldSelector(fieldSelector);
+            query.setLabelSelector(labelSelector);
+            CollectorWatch podWatch = ((WatchCollector<Pod>) podCollector).watch(query, podEvents);
+            watches.computeIfAbsent(query.getClusterId(), k -> new CopyOnWriteArrayList<>()).add(podWatch);
+
+            refreshOnlineTime(query, nodeWatch, podWatch);
+        }, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * saves the events buffered since the last flush in batches, nodes first as the pods reference them
+     */
+    private void flushWatch(Query query, WatchEvents<Node> nodeEvents, WatchEvents<Pod> podEvents) {
+        timer.newTimeout(timeout -> {
+            flushNodes(query, nodeEvents.drain());
+            offlineUnlistedNodes(query, nodeEvents.drainRelisted());
+            flushPods(query, podEvents.drain());
+            offlineUnlistedPods(query, podEvents.drainRelisted());
+            if (!query.isStop()) {
+                flushWatch(query, nodeEvents, podEvents);
+            }
+        }, watchFlush, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * the rows of the nodes deleted while no watch was running, the online time refresh keeps them online otherwise
+     */
+    private void offlineUnlistedNodes(Query query, Set<String> relisted) {
+        if (relisted == null) {
+            return;
+        }
+        try {
+            List<Long> deviceIds = clusterNodes(query.getClusterId()).stream()
+                    .filter(node -> !relisted.contains(node.getNodeName()))
+                    .map(DeviceNodeDO::getDeviceId)
+                    .collect(Collectors.toList());
+            if (!deviceIds.isEmpty()) {
+                log.info("offline unlisted nodes, cluster: {}, size: {}", query.getClusterId(), deviceIds.size());
+                offline(deviceIds);
+            }
+        } catch (Exception e) {
+            log.error("offline unlisted nodes fail!", e);
+        }
+    }
+
+    private void offlineUnlistedPods(Query query, Set<String> relisted) {
+        if (relisted == null) {
+            return;
+        }
+        try {
+            List<Long> nodeIds = clusterNodes(query.getClusterId()).stream()
+                    .map(DeviceNodeDO::getId)
+                    .collect(Collectors.toList());
+            if (nodeIds.isEmpty()) {
+                return;
+            }
+            List<DevicePodDO> pods = topologyIndex.isReady()
+                    ? topologyIndex.pods(nodeIds, pod -> true)
+                    : devicePodRepository.selectList(DevicePodDO.builder().build(), null, nodeIds);
+            List<Long> deviceIds = pods.stream()
+                    .filter(pod -> !relisted.contains(pod.getNamespace() + "/" + pod.getPodName()))
+                    .map(DevicePodDO::getDeviceId)
+                    .collect(Collectors.toList());
+            if (!deviceIds.isEmpty()) {
+                log.info("offline unlisted pods, cluster: {}, size: {}", query.getClusterId(), deviceIds.size());
+                offline(deviceIds);
+            }
+        } catch (Exception e) {
+            log.error("offline unlisted pods fail!", e);
+        }
+    }
+
+    private void flushNodes(Query query, Map<String, WatchEvent<Node>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        CycleMetrics metrics = collectorMetrics.cycle(query.getClusterId(), Phase.NODE);
+        long startTime = System.currentTimeMillis();
+        try {
+            List<Node> nodes = new ArrayList<>(events.size());
+            Set<String> deleted = new HashSet<>();
+            events.forEach((name, event) -> {
+                if (event.type == WatchEventType.DELETED) {
+                    deleted.add(name);
+                } else {
+                    nodes.add(event.item);
+                }
+            });
+            if (!nodes.isEmpty()) {
+                saveNodes(query, nodes);
+            }
+            if (!deleted.isEmpty()) {
+                offline(clusterNodes(query.getClusterId()).stream()
+                        .filter(node -> deleted.contains(node.getNodeName()))
+                        .map(DeviceNodeDO::getDeviceId)
+                        .collect(Collectors.toList()));
+            }
+            metrics.complete(startTime, events.size(), 0);
+        } catch (Exception e) {
+            log.error("save watched node fail!", e);
+            metrics.fail(startTime, 0);
+        }
+    }
+
+    private void flushPods(Query query, Map<String, WatchEvent<Pod>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        CycleMetrics metrics = collectorMetrics.cycle(query.getClusterId(), Phase.POD);
+        long startTime = System.currentTimeMillis();
+        try {
+            List<DeviceNodeDO> clusterNodes = clusterNodes(query.getClusterId());
+            Map<String, DeviceNodeDO> nodes = clusterNodes.stream()
+                    .collect(Collectors.toMap(DeviceNodeDO::getNodeName, Function.identity(), (a, b) -> a));
+
+            List<DevicePodDO> devicePods = new ArrayList<>(events.size());
+            List<DevicePodDO> deleted = new ArrayList<>();
+            events.forEach((key, event) -> {
+                // not scheduled yet, or its node is not saved
+                DeviceNodeDO node = StrUtil.isBlank(event.item.getNode()) ? null : nodes.get(event.item.getNode());
+                if (event.type == WatchEventType.DELETED) {
+                    if (node != null) {
+                        deleted.add(toDevicePod(node, event.item));
+                    }
+                } else if (node != null) {
+                    devicePods.add(toDevicePod(node, event.item));
+                } else {
+                    metrics.getRowsSkipped().increment();
+                }
+            });
+            if (!devicePods.isEmpty()) {
+                savePods(query.getClusterId(), devicePods);
+            }
+            if (!deleted.isEmpty()) {
+                // rows are per node, the row of the same pod on another node is not touched
+                Set<String> keys = deleted.stream().map(CollectorTimer::podKey).collect(Collectors.toSet());
+                offline(devicePodRepository.selectByPodNames(
+                        deleted.stream().map(DevicePodDO::getPodName).collect(Collectors.toSet()),
+                        deleted.stream().map(DevicePodDO::getNodeId).collect(Collectors.toSet())).stream()
+                        .filter(pod -> keys.contains(podKey(pod)))
+                        .map(DevicePodDO::getDeviceId)
+                        .collect(Collectors.toList()));
+            }
+            metrics.complete(startTime, events.size(), 0);
+        } catch (Exception e) {
+            log.error("save watched pod fail!", e);
+            metrics.fail(startTime, 0);
+        }
+    }
+
+    private static String podKey(DevicePodDO pod) {
+        return pod.getNodeId() + "/" + pod.getNamespace() + "/" + pod.getPodName();
+    }
+
+    /**
+     * watch only reports changes, keep the devices of a connected watch online with one update per period,
+     * the ones deleted while it was not connected are offlined after its relist
+     */
+    private void refreshOnlineTime(Query query, CollectorWatch nodeWatch, CollectorWatch podWatch) {
+        timer.newTimeout(timeout -> {
+            try {
+                if (nodeWatch.isSynced()) {
+                    deviceRepository.updateNodeOnlineTime(query.getClusterId());
+                }
+                if (podWatch.isSynced()) {
+                    deviceRepository.updatePodOnlineTime(query.getClusterId());
+                }
+                clusterRepository.updateByPrimaryKey(query.getClusterId(),
+                        ClusterDO.builder().lastCollectTime(DateUtil.date()).build());
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+            if (!query.isStop()) {
+                refreshOnlineTime(query, nodeWatch, podWatch);
+            }
+        }, period, TimeUnit.SECONDS);
     }
 
     private void nodeCollect(NodeCollector collector, Query query) {
         timer.newTimeout(timeout -> {
+            CycleMetrics metrics = collectorMetrics.cycle(query.getClusterId(), Phase.NODE);
+            long startTime = System.currentTimeMillis();
+            Query q = cycleQuery(query);
             try {
-                CompletableFuture<List<Node>> future = collector.collect(query);
-                QueryWrapper<DeviceDO> queryWrapper = QueryWrapperBuilder.build();
-                queryWrapper.lambda().eq(DeviceDO::getType, DeviceType.NODE.getCode());
-                deviceMapper.update(DeviceDO.builder().lastPingTime(DateUtil.date()).build(), queryWrapper);
+                CompletableFuture<List<Node>> future = collector.collect(q);
+                deviceRepository.updatePingTime(DeviceType.NODE.getCode());
 
                 future.handle((nodes, e) -> {
                     if (e != null) {
                         log.error("collect node fail!", e);
+                        metrics.fail(startTime, q.getReceivedBytes().sum());
                         return null;
                     }
-                    nodes.forEach(node -> {
-                        DeviceDO deviceDO = deviceRepository.selectOneByUnique(DeviceType.NODE.getCode(), node.getName())
-                                .orElseGet(() -> {
-                                    DeviceDO aDo = DeviceDO.builder()
-                                            .hostname(node.getName())
-                                            .ip(node.getIp())
-                                            .status(DeviceStatus.ONLINE.getStatus())
-                                            .lastOnlineTime(DateUtil.date())
-                                            .type(DeviceType.NODE.getCode())
-                                            .build();
-                                    Long deviceId = deviceRepository.insert(aDo);
-                                    deviceNodeRepository.insert(DeviceNodeDO.builder()
-                                            .clusterId(query.getClusterId())
-                                            .deviceId(deviceId)
-                                            .nodeIp(node.getIp())
-                                            .nodeName(node.getName())
-                                            .build());
-                                    return aDo;
-                                });
-
-                        deviceRepository.updateByPrimaryKey(deviceDO.getId(), DeviceDO.builder()
-                                .ip(node.getIp())
-                                .status(DeviceStatus.ONLINE.getStatus())
-                                .lastOnlineTime(DateUtil.date())
-                                .build());
-
-                    });
+                    try {
+                        saveNodes(query, nodes);
+                        metrics.complete(startTime, nodes.size(), q.getReceivedBytes().sum());
+                    } catch (Exception ex) {
+                        log.error("save node fail!", ex);
+                        metrics.fail(startTime, q.getReceivedBytes().sum());
+                    }
                     return null;
                 });
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
+                metrics.fail(startTime, q.getReceivedBytes().sum());
             } finally {
                 if (query.getClusterId() != null) {
                     clusterRepository.updateByPrimaryKey(query.getClusterId(),
@@ -192,60 +537,42 @@ public class CollectorTimer implements InitializingBean {
 
     private void podCollect(PodCollector collector, Query query) {
         timer.newTimeout(timeout -> {
+            CycleMetrics metrics = collectorMetrics.cycle(query.getClusterId(), Phase.POD);
+            long startTime = System.currentTimeMillis();
+            Query q = cycleQuery(query);
+            q.setFieldSelector(fieldSelector);
+            q.setLabelSelector(labelSelector);
             try {
-                List<DeviceNodeDO> nodes = deviceNodeRepository.selectList(DeviceNodeDO.builder().build());
-                for (DeviceNodeDO node : nodes) {
-                    Query q = Query.builder().build();
-                    q.setClusterId(query.getClusterId());
-                    q.setConfig(query.getConfig());
-                    q.setNodeName(node.getNodeName());
-                    q.setFieldSelector(fieldSelector) ;
-                    q.setLabelSelector(labelSelector);
-
-                    CompletableFuture<List<Pod>> future = collector.collect(q);
-                    QueryWrapper<DeviceDO> queryWrapper = QueryWrapperBuilder.build();
-                    queryWrapper.lambda().eq(DeviceDO::getType, DeviceType.POD.getCode());
-                    deviceMapper.update(DeviceDO.builder().lastPingTime(DateUtil.date()).build(), queryWrapper);
-
-                    future.handle((pods, e) -> {
-                        if (e != null) {
-                            log.error("collect pod fail!", e);
-                            return null;
+                deviceRepository.updatePingTime(DeviceType.POD.getCode());
+
+                Map<String, DeviceNodeDO> nodes = clusterNodes(query.getClusterId()).stream()
+                        .collect(Collectors.toMap(DeviceNodeDO::getNodeName, Function.identity(), (a, b) -> a));
+
+                // one paged listing for the whole cluster, each page is grouped by node and saved as it arrives
+                collector.collectAll(q, pods -> {
+                    List<DevicePodDO> devicePods = new ArrayList<>(pods.size());
+                    for (Pod pod : pods) {
+                        DeviceNodeDO node = nodes.get(pod.getNode());
+                        if (node != null) {
+                            devicePods.add(toDevicePod(node, pod));
+                        } else {
+                            metrics.getRowsSkipped().increment();
                         }
-                        pods.forEach(pod -> {
-                            Long deviceId = devicePodRepository.selectByNameAndNamespace(pod.getNamespace(), pod.getName())
-                                    .map(DevicePodDO::getDeviceId)
-                                    .orElseGet(() -> {
-                                        // insert device pod
-                                        Long id = deviceRepository.insert(DeviceDO.builder()
-                                                .hostname(pod.getName())
-                                                .ip(pod.getIp())
-                                                .status(DeviceStatus.ONLINE.getStatus())
-                                                .lastOnlineTime(DateUtil.date())
-                                                .type(DeviceType.POD.getCode())
-                                                .build());
-
-                                        devicePodRepository.insert(DevicePodDO.builder()
-                                                .nodeId(node.getId())
-                                                .namespace(pod.getNamespace())
-                                                .podName(pod.getName())
-                                                .podIp(pod.getIp())
-                                                .deviceId(id)
-                                                .build());
-                                        return id;
-                                    });
-
-                            deviceRepository.updateByPrimaryKey(deviceId, DeviceDO.builder()
-                                    .status(DeviceStatus.ONLINE.getStatus())
-                                    .lastOnlineTime(DateUtil.date())
-                                    .build());
-                        });
-                        return null;
-                    });
-                }
+                    }
+                    savePods(query.getClusterId(), devicePods);
+                }).handle((total, e) -> {
+                    if (e != null) {
+                        log.error("collect pod fail!", e);
+                        metrics.fail(startTime, q.getReceivedBytes().sum());
+                    } else {
+                        metrics.complete(startTime, total, q.getReceivedBytes().sum());
+                    }
+                    return null;
+                });
 
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
+                metrics.fail(startTime, q.getReceivedBytes().sum());
             } finally {
                 if (query.getClusterId() != null) {
                     clusterRepository.updateByPrimaryKey(query.getClusterId(),
@@ -260,37 +587,29 @@ public class CollectorTimer implements InitializingBean {
 
     private void containerCollect(ContainerCollector collector, Query query) {
         timer.newTimeout(timeout -> {
-
+            CycleMetrics metrics = collectorMetrics.cycle(query.getClusterId(), Phase.CONTAINER);
+            long startTime = System.currentTimeMillis();
+            Query q = cycleQuery(query);
+            q.setFieldSelector(fieldSelector);
+            q.setLabelSelector(labelSelector);
             try {
-                List<DevicePodDO> devicePods = devicePodRepository.selectList(DevicePodDO.builder().build());
-                for (DevicePodDO devicePod : devicePods) {
-                    Query q = Query.builder().build();
-                    q.setClusterId(query.getClusterId());
-                    q.setConfig(query.getConfig());
-                    q.setPodName(devicePod.getPodName());
-                    q.setFieldSelector(fieldSelector) ;
-                    q.setLabelSelector(labelSelector);
-
-                    CompletableFuture<List<Container>> future = collector.collect(q);
-                    future.handle((containers, e) -> {
-                        if (e != null) {
-                            log.error("collect container fail!", e);
+                List<Long> nodeIds = clusterNodes(query.getClusterId()).stream()
+                        .map(DeviceNodeDO::getId)
+                        .collect(Collectors.toList());
+
+                collector.collectAll(q, containers -> saveContainers(query, nodeIds, containers))
+                        .handle((total, e) -> {
+                            if (e != null) {
+                                log.error("collect container fail!", e);
+                                metrics.fail(startTime, q.getReceivedBytes().sum());
+                            } else {
+                                metrics.complete(startTime, total, q.getReceivedBytes().sum());
+                            }
                             return null;
-                        }
-                        List<ContainerBO> list = containers.stream().map(container ->
-                                ContainerBO.builder()
-                                        .containerId(container.getContainerId())
-                                        .containerName(container.getName())
-                                        .build()
-                        ).collect(Collectors.toList());
-
-                        devicePodRepository.updateByPrimaryKey(devicePod.getId(),
-                                DevicePodDO.builder().containers(JsonUtils.writeValueAsString(list)).build());
-                        return null;
-                    });
-                }
+                        });
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
+                metrics.fail(startTime, q.getReceivedBytes().sum());
             } finally {
                 if (query.getClusterId() != null) {
                     clusterRepository.updateByPrimaryKey(query.getClusterId(),
@@ -341,32 +660,86 @@ public class CollectorTimer implements InitializingBean {
             } else {
                 clusterDO = aDefault.get(0);
             }
-            collect(Query.builder().clusterId(clusterDO.getId()).build());
+            // collected by the replica owning its lease
+            defaultClusterId = clusterDO.getId();
         }
 
         ScheduledExecutorService scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
 
         scheduledExecutorService.scheduleAtFixedRate(() -> {
-            deviceRepository.selectMachines(DeviceDO.builder()
-                    .type(DeviceType.NODE.getCode())
-                    .status(DeviceStatus.ONLINE.getStatus())
-                    .build())
-                    .stream()
-                    .filter(deviceDO -> DateUtil.date().offset(DateField.MINUTE, -1).after(deviceDO.getLastOnlineTime()))
-                    .forEach(deviceDO -> deviceRepository.updateByPrimaryKey(deviceDO.getId(), DeviceDO.builder()
-                            .status(DeviceStatus.OFFLINE.getStatus())
-                            .build()));
-
-            deviceRepository.selectMachines(DeviceDO.builder()
-                    .type(DeviceType.POD.getCode())
-                    .status(DeviceStatus.ONLINE.getStatus())
-                    .build())
-                    .stream()
-                    .filter(deviceDO -> DateUtil.date().offset(DateField.MINUTE, -1).after(deviceDO.getLastOnlineTime()))
-                    .forEach(deviceDO -> deviceRepository.updateByPrimaryKey(deviceDO.getId(), DeviceDO.builder()
-                            .status(DeviceStatus.OFFLINE.getStatus())
-                            .build()));
-
+            offlineExpired(DeviceType.NODE);
+            offlineExpired(DeviceType.POD);
         }, 30, 30, TimeUnit.SECONDS);
     }
-}
\ No newline at end of file
+
+    private static class WatchEvent<T> {
+
+        private final WatchEventType type;
+
+        private final T item;
+
+        WatchEvent(WatchEventType type, T item) {
+            this.type = type;
+            this.item = item;
+        }
+    }
+
+    /**
+     * events of a watch between two flushes, the last event of an object wins
+     */
+    private static class WatchEvents<T> implements WatchListener<T> {
+
+        private final Function<T, String> key;
+
+        private Map<String, WatchEvent<T>> events = new LinkedHashMap<>();
+
+        /**
+         * keys of the last full list not applied yet
+         */
+        private Set<String> relisted;
+
+        WatchEvents(Function<T, String> key) {
+            this.key = key;
+        }
+
+        @Override
+        public synchronized void onEvent(WatchEventType type, T item) {
+            String k = key.apply(item);
+            events.remove(k);
+            events.put(k, new WatchEvent<>(type, item));
+        }
+
+        @Override
+        public synchronized void onRelisted(Set<String> keys) {
+            relisted = keys;
+        }
+
+        synchronized Map<String, WatchEvent<T>> drain() {
+            Map<String, WatchEvent<T>> drained = events;
+            events = new LinkedHashMap<>();
+            return drained;
+        }
+
+        /**
+         * taken after {@link #drain()}, the listed objects are saved before
+         */
+        synchronized Set<String> drainRelisted() {
+            Set<String> drained = relisted;
+            relisted = null;
+            return drained;
+        }
+    }
+
+    private void offlineExpired(DeviceType deviceType) {
+        try {
+            List<Long> ids = deviceRepository.offlineExpired(deviceType.getCode(),
+                    DateUtil.date().offset(DateField.MINUTE, -1));
+            if (!ids.isEmpty()) {
+                log.info("offline expired {}, size: {}, ids: {}", deviceType, ids.size(), ids);
+                topologyIndex.offline(ids);
+            }
+        } catch (Exception e) {
+            log.error("offline expired {} fail", deviceType, e);
+        }
+    }
+}
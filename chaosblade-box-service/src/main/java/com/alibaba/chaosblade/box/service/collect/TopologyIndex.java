@@ -0,0 +1,269 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.collect;
+
+import cn.hutool.core.date.DateField;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.common.enums.DeviceStatus;
+import com.alibaba.chaosblade.box.common.enums.DeviceType;
+import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.dao.model.DeviceDO;
+import com.alibaba.chaosblade.box.dao.model.DeviceNodeDO;
+import com.alibaba.chaosblade.box.dao.model.DevicePodDO;
+import com.alibaba.chaosblade.box.dao.repository.DeviceNodeRepository;
+import com.alibaba.chaosblade.box.dao.repository.DevicePodRepository;
+import com.alibaba.chaosblade.box.dao.repository.DeviceRepository;
+import com.alibaba.chaosblade.box.service.model.device.ContainerBO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory cluster -> node -> pod -> container topology of the kubernetes devices.
+ * <p>
+ * The collectors put what they save, rows changed by others (other replicas, ban, experiments)
+ * are picked up by an incremental reload on gmt_modified, which is only bumped by a change.
+ * The rows are never deleted at runtime, a device gone from its cluster is only offlined.
+ * The containers of a pod are parsed when read, and again only once their json changed.
+ *
+ * @author yefei
+ */
+@Slf4j
+@Component
+public class TopologyIndex implements InitializingBean, DisposableBean {
+
+    private static final List<Byte> TYPES = Arrays.asList(DeviceType.NODE.getCode(), DeviceType.POD.getCode());
+
+    /**
+     * rows are written with both the application and the database clock
+     */
+    private static final int CLOCK_SKEW_SECONDS = 10;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceNodeRepository deviceNodeRepository;
+
+    @Autowired
+    private DevicePodRepository devicePodRepository;
+
+    @Value("${chaos.collector.topologyRefresh:30}")
+    private Integer refresh;
+
+    private final Map<Long, DeviceDO> devices = new ConcurrentHashMap<>();
+
+    private final Map<Long, DeviceNodeDO> nodes = new ConcurrentHashMap<>();
+
+    private final Map<Long, DevicePodDO> pods = new ConcurrentHashMap<>();
+
+    private final Map<Long, Containers> containers = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> nodePods = new ConcurrentHashMap<>();
+
+    private volatile Date lastRefreshTime;
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("topology index refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(this::refresh, 0, refresh, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * false until the first full load is done
+     */
+    public boolean isReady() {
+        return lastRefreshTime != null;
+    }
+
+    public void putNodes(List<DeviceNodeDO> deviceNodes) {
+        deviceNodes.forEach(node -> {
+            nodes.put(node.getId(), node);
+            online(node.getDeviceId());
+        });
+    }
+
+    public void putPods(List<DevicePodDO> devicePods) {
+        devicePods.forEach(pod -> {
+            putPod(pod);
+            online(pod.getDeviceId());
+        });
+    }
+
+    public void putContainers(Long podId, String json, List<ContainerBO> list) {
+        if (pods.containsKey(podId)) {
+            containers.put(podId, new Containers(json, list));
+        }
+    }
+
+    public void offline(Collection<Long> deviceIds) {
+        deviceIds.forEach(deviceId -> {
+            DeviceDO deviceDO = devices.get(deviceId);
+            if (deviceDO != null) {
+                deviceDO.setStatus(DeviceStatus.OFFLINE.getStatus());
+            }
+        });
+    }
+
+    public DeviceDO device(Long deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public DeviceNodeDO node(Long nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    public List<ContainerBO> containers(Long podId) {
+        Containers list = containers.get(podId);
+        return list == null ? Collections.emptyList() : list.get();
+    }
+
+    /**
+     * @return matched nodes ordered by id
+     */
+    public List<DeviceNodeDO> nodes(Predicate<DeviceNodeDO> predicate) {
+        return nodes.values().stream()
+                .filter(predicate)
+                .sorted(Comparator.comparing(DeviceNodeDO::getId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return matched pods of the nodes ordered by id
+     */
+    public List<DevicePodDO> pods(Collection<Long> nodeIds, Predicate<DevicePodDO> predicate) {
+        return nodeIds.stream()
+                .flatMap(nodeId -> nodePods.getOrDefault(nodeId, Collections.emptySet()).stream())
+                .map(pods::get)
+                .filter(Objects::nonNull)
+                .filter(predicate)
+                .sorted(Comparator.comparing(DevicePodDO::getId))
+                .collect(Collectors.toList());
+    }
+
+    public long deviceCount(DeviceType deviceType) {
+        return devices.values().stream().filter(deviceDO -> deviceType.getCode().equals(deviceDO.getType())).count();
+    }
+
+    public long namespaceCount() {
+        return pods.values().stream().map(DevicePodDO::getNamespace).distinct().count();
+    }
+
+    public long containerCount() {
+        return containers.values().stream().mapToLong(list -> list.get().size()).sum();
+    }
+
+    private void refresh() {
+        try {
+            Date start = DateUtil.date();
+            Date since = lastRefreshTime == null ? null
+                    : DateUtil.offset(lastRefreshTime, DateField.SECOND, -CLOCK_SKEW_SECONDS);
+
+            deviceRepository.selectModifiedSince(TYPES, since).forEach(deviceDO -> devices.put(deviceDO.getId(), deviceDO));
+            deviceNodeRepository.selectModifiedSince(since).forEach(node -> nodes.put(node.getId(), node));
+            devicePodRepository.selectModifiedSince(since).forEach(this::putPod);
+
+            if (lastRefreshTime == null) {
+                log.info("topology index loaded, nodes: {}, pods: {}", nodes.size(), pods.size());
+            }
+            lastRefreshTime = start;
+        } catch (Exception e) {
+            log.error("refresh topology index fail", e);
+        }
+    }
+
+    private void putPod(DevicePodDO pod) {
+        String json = pod.getContainers();
+        if (StrUtil.isNotBlank(json)) {
+            Containers previous = containers.get(pod.getId());
+            if (previous == null || !json.equals(previous.json)) {
+                containers.put(pod.getId(), new Containers(json, null));
+            }
+            // kept once, by the containers
+            pod.setContainers(null);
+        }
+        DevicePodDO previous = pods.put(pod.getId(), pod);
+        if (previous != null && !Objects.equals(previous.getNodeId(), pod.getNodeId())) {
+            Set<Long> ids = nodePods.get(previous.getNodeId());
+            if (ids != null) {
+                ids.remove(pod.getId());
+            }
+        }
+        nodePods.computeIfAbsent(pod.getNodeId(), k -> ConcurrentHashMap.newKeySet()).add(pod.getId());
+    }
+
+    private void online(Long deviceId) {
+        DeviceDO deviceDO = devices.get(deviceId);
+        if (deviceDO != null) {
+            Date now = DateUtil.date();
+            deviceDO.setStatus(DeviceStatus.ONLINE.getStatus());
+            deviceDO.setLastPingTime(now);
+            deviceDO.setLastOnlineTime(now);
+        }
+    }
+
+    /**
+     * containers json of a pod, parsed on first read
+     */
+    private static class Containers {
+
+        private final String json;
+
+        private volatile List<ContainerBO> list;
+
+        Containers(String json, List<ContainerBO> list) {
+            this.json = json;
+            this.list = list;
+        }
+
+        List<ContainerBO> get() {
+            List<ContainerBO> parsed = list;
+            if (parsed == null) {
+                parsed = JsonUtils.readValue(new TypeReference<List<ContainerBO>>() {
+                }, json);
+                list = parsed;
+            }
+            return parsed;
+        }
+    }
+}
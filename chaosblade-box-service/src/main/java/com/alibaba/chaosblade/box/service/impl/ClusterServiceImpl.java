@@ -2,22 +2,25 @@ package com.alibaba.chaosblade.box.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.io.FileUtil;
-import com.alibaba.chaosblade.box.collector.model.Query;
 import com.alibaba.chaosblade.box.common.exception.BizException;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientRegistry;
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientStats;
 import com.alibaba.chaosblade.box.common.utils.SystemPropertiesUtils;
 import com.alibaba.chaosblade.box.dao.model.ClusterDO;
 import com.alibaba.chaosblade.box.dao.page.PageUtils;
 import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
 import com.alibaba.chaosblade.box.service.ClusterService;
+import com.alibaba.chaosblade.box.service.collect.ClusterLeaseManager;
+import com.alibaba.chaosblade.box.service.collect.CollectorMetrics;
 import com.alibaba.chaosblade.box.service.collect.CollectorTimer;
 import com.alibaba.chaosblade.box.service.model.cluster.ClusterBO;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -29,7 +32,7 @@ import static com.alibaba.chaosblade.box.common.exception.ExceptionMessageEnum.C
  */
 @Slf4j
 @Service
-public class ClusterServiceImpl implements ClusterService, InitializingBean {
+public class ClusterServiceImpl implements ClusterService {
 
     @Autowired
     private ClusterRepository clusterRepository;
@@ -37,20 +40,15 @@ public class ClusterServiceImpl implements ClusterService, InitializingBean {
     @Autowired
     private CollectorTimer collectorTimer;
 
+    @Autowired
+    private ClusterLeaseManager clusterLeaseManager;
+
+    @Autowired
+    private CollectorMetrics collectorMetrics;
+
     @Value("${spring.application.name}")
     private String applicationName;
 
-    @Override
-    public void afterPropertiesSet() {
-        List<ClusterDO> clusters = clusterRepository.selectList(ClusterDO.builder()
-                .isCollector(true)
-                .build());
-        clusters.forEach(cluster -> collectorTimer.collect(Query.builder()
-                .config(cluster.getConfig())
-                .clusterId(cluster.getId())
-                .build()));
-    }
-
     @Override
     public void addCluster(ClusterBO clusterBO) {
 
@@ -99,10 +97,7 @@ public class ClusterServiceImpl implements ClusterService, InitializingBean {
                 .isCollector(true)
                 .build());
 
-        collectorTimer.collect(Query.builder()
-                .config(cluster.getConfig())
-                .clusterId(cluster.getId())
-                .build());
+        clusterLeaseManager.acquire(cluster);
     }
 
     @Override
@@ -112,13 +107,8 @@ public class ClusterServiceImpl implements ClusterService, InitializingBean {
                 .isCollector(false)
                 .build());
 
-        Optional<ClusterDO> clusterDO = clusterRepository.selectById(clusterBO.getId());
-        ClusterDO cluster = clusterDO.get();
-
-        collectorTimer.stop(Query.builder()
-                .config(cluster.getConfig())
-                .clusterId(cluster.getId())
-                .build());
+        // the owning replica, if not this one, releases it on its next renewal
+        clusterLeaseManager.release(clusterBO.getId());
     }
 
     @Override
@@ -136,6 +126,9 @@ public class ClusterServiceImpl implements ClusterService, InitializingBean {
                 .config(clusterBO.getConfig())
                 .build();
         clusterRepository.updateByPrimaryKey(clusterBO.getId(), clusterDO);
+        KubeClientRegistry.invalidate(clusterBO.getId());
+        // the replica owning it collects it again on its next renewal, this one right now
+        clusterLeaseManager.reload(clusterBO.getId());
 
         String home = SystemPropertiesUtils.getPropertiesValue("user.home");
         FileUtil.writeString(clusterBO.getConfig(),
@@ -157,4 +150,16 @@ public class ClusterServiceImpl implements ClusterService, InitializingBean {
         }
         return kubeconfig;
     }
+
+    @Override
+    public List<CollectorMetrics.ClusterMetrics> getCollectorMetrics() {
+        return collectorMetrics.clusters().stream()
+                .sorted(Comparator.comparing(CollectorMetrics.ClusterMetrics::getClusterId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<KubeClientStats> getKubeClientStats() {
+        return KubeClientRegistry.stats();
+    }
 }
@@ -36,6 +36,7 @@ import com.alibaba.chaosblade.box.dao.model.*;
 import com.alibaba.chaosblade.box.dao.page.PageUtils;
 import com.alibaba.chaosblade.box.dao.repository.*;
 import com.alibaba.chaosblade.box.service.DeviceService;
+import com.alibaba.chaosblade.box.service.collect.TopologyIndex;
 import com.alibaba.chaosblade.box.service.model.device.*;
 import com.alibaba.chaosblade.box.service.model.tools.ToolsResponse;
 import com.alibaba.chaosblade.box.service.probes.ProbesInstallSuccessEvent;
@@ -91,6 +92,9 @@ public class DeviceServiceImpl implements DeviceService {
     @Autowired
     private Heartbeats heartbeats;
 
+    @Autowired
+    private TopologyIndex topologyIndex;
+
     @Autowired
     private ApplicationContext applicationContext;
 
@@ -170,6 +174,7 @@ public class DeviceServiceImpl implements DeviceService {
                                     .status(DeviceStatus.ONLINE.getStatus())
                                     .version(deviceRegisterRequest.getAgentVersion())
                                     .build());
+                    probesRepository.selectById(id).ifPresent(heartbeats::recheck);
                 } else {
                     ProbesDO probesDO = probesRepository.selectByDeviceId(deviceId).orElseGet(() -> {
                         ProbesDO probes = ProbesDO.builder()
@@ -187,7 +192,7 @@ public class DeviceServiceImpl implements DeviceService {
                         probesRepository.insert(probes);
                         return probes;
                     });
-                    heartbeats.addHeartbeats(probesDO);
+                    heartbeats.recheck(probesDO);
                 }
                 applicationContext.publishEvent(new ProbesInstallSuccessEvent(deviceId));
                 break;
@@ -208,10 +213,15 @@ public class DeviceServiceImpl implements DeviceService {
                             return probes;
                         });
 
-                heartbeats.addHeartbeats(probesDO);
+                heartbeats.recheck(probesDO);
         }
     }
 
+    @Override
+    public void deviceHeartbeat(Map<String, String> param) {
+        heartbeats.report(param.get("agentId"), param.get("ip"));
+    }
+
     @Override
     public List<DeviceResponse> getMachinesForHost(DeviceRequest deviceRequest) {
         if (deviceRequest.getProbeId() != null) {
@@ -265,6 +275,14 @@ public class DeviceServiceImpl implements DeviceService {
 
     @Override
     public KubernetesStatisticsResponse getKubernetesTotalStatistics() {
+        if (topologyIndex.isReady()) {
+            return KubernetesStatisticsResponse.builder()
+                    .nodes(topologyIndex.deviceCount(DeviceType.NODE))
+                    .pods(topologyIndex.deviceCount(DeviceType.POD))
+                    .namespaces(topologyIndex.namespaceCount())
+                    .containers(topologyIndex.containerCount())
+                    .build();
+        }
         return KubernetesStatisticsResponse.builder()
                 .nodes(deviceRepository.selectHostCount(DeviceDO.builder()
                         .type(DeviceType.NODE.getCode())
@@ -290,6 +308,18 @@ public class DeviceServiceImpl implements DeviceService {
 
     @Override
     public List<DeviceNodeResponse> getMachinesForNode(DeviceNodeRequest deviceNodeRequest) {
+        if (topologyIndex.isReady()) {
+            List<DeviceNodeDO> nodes = topologyIndex.nodes(node -> {
+                DeviceDO deviceDO = topologyIndex.device(node.getDeviceId());
+                return deviceDO != null
+                        && (deviceNodeRequest.getStatus() == null || deviceNodeRequest.getStatus().equals(deviceDO.getStatus()))
+                        && like(node.getClusterName(), deviceNodeRequest.getClusterName())
+                        && like(node.getNodeName(), deviceNodeRequest.getNode());
+            });
+            return PageUtils.page(deviceNodeRequest, nodes).stream()
+                    .map(node -> toDeviceNodeResponse(node, topologyIndex.device(node.getDeviceId())))
+                    .collect(Collectors.toList());
+        }
 
         List<Long> deviceIds = deviceRepository.selectMachines(DeviceDO.builder().status(deviceNodeRequest.getStatus())
                     .type(DeviceType.NODE.getCode())
@@ -314,30 +344,51 @@ public class DeviceServiceImpl implements DeviceService {
                 .collect(Collectors.toList()))
                 .stream().collect(Collectors.toMap(DeviceDO::getId, u -> u));
 
-        return deviceNodeDOS.stream().map(deviceNodeDO ->
-                {
-                    DeviceNodeResponse deviceNodeResponse = new DeviceNodeResponse();
-
-                    deviceNodeResponse.setClusterName(deviceNodeDO.getClusterName())
-                            .setNodeName(deviceNodeDO.getNodeName())
-                            .setNodeIp(deviceNodeDO.getNodeIp())
-                            .setNodeVersion(deviceNodeDO.getNodeVersion())
-                            .setDeviceId(deviceNodeDO.getDeviceId())
-                            .setStatus(deviceDOMap.get(deviceNodeDO.getDeviceId()).getStatus())
-                            .setChaosed(deviceDOMap.get(deviceNodeDO.getDeviceId()).getIsExperimented())
-                            .setCreateTime(deviceDOMap.get(deviceNodeDO.getDeviceId()).getGmtCreate())
-                            .setHeartbeatTime(deviceDOMap.get(deviceNodeDO.getDeviceId()).getLastOnlineTime())
-                            .setChaosTime(deviceDOMap.get(deviceNodeDO.getDeviceId()).getLastExperimentTime())
-                            .setTaskId(deviceDOMap.get(deviceNodeDO.getDeviceId()).getLastTaskId())
-                            .setTaskStatus(deviceDOMap.get(deviceNodeDO.getDeviceId()).getLastTaskStatus());
-
-                    return deviceNodeResponse;
-                }
-        ).collect(Collectors.toList());
+        return deviceNodeDOS.stream()
+                .map(deviceNodeDO -> toDeviceNodeResponse(deviceNodeDO, deviceDOMap.get(deviceNodeDO.getDeviceId())))
+                .collect(Collectors.toList());
+    }
+
+    private DeviceNodeResponse toDeviceNodeResponse(DeviceNodeDO deviceNodeDO, DeviceDO deviceDO) {
+        DeviceNodeResponse deviceNodeResponse = new DeviceNodeResponse();
+
+        deviceNodeResponse.setClusterName(deviceNodeDO.getClusterName())
+                .setNodeName(deviceNodeDO.getNodeName())
+                .setNodeIp(deviceNodeDO.getNodeIp())
+                .setNodeVersion(deviceNodeDO.getNodeVersion())
+                .setDeviceId(deviceNodeDO.getDeviceId())
+                .setStatus(deviceDO.getStatus())
+                .setChaosed(deviceDO.getIsExperimented())
+                .setCreateTime(deviceDO.getGmtCreate())
+                .setHeartbeatTime(deviceDO.getLastOnlineTime())
+                .setChaosTime(deviceDO.getLastExperimentTime())
+                .setTaskId(deviceDO.getLastTaskId())
+                .setTaskStatus(deviceDO.getLastTaskStatus());
+
+        return deviceNodeResponse;
     }
 
     @Override
     public List<DevicePodResponse> getMachinesForPod(DevicePodRequest devicePodRequest) {
+        if (topologyIndex.isReady()) {
+            List<Long> nodeIds = topologyIndex.nodes(node ->
+                    like(node.getClusterName(), devicePodRequest.getClusterName())
+                            && like(node.getNodeName(), devicePodRequest.getNode())
+            ).stream().map(DeviceNodeDO::getId).collect(Collectors.toList());
+
+            List<DevicePodDO> pods = topologyIndex.pods(nodeIds, pod -> {
+                DeviceDO deviceDO = topologyIndex.device(pod.getDeviceId());
+                return deviceDO != null
+                        && (devicePodRequest.getStatus() == null || devicePodRequest.getStatus().equals(deviceDO.getStatus()))
+                        && like(pod.getNamespace(), devicePodRequest.getNamespace())
+                        && like(pod.getPodName(), devicePodRequest.getPod())
+                        && like(pod.getPodIp(), devicePodRequest.getIp());
+            });
+            return PageUtils.page(devicePodRequest, pods).stream()
+                    .map(pod -> toDevicePodResponse(topologyIndex.node(pod.getNodeId()), pod,
+                            topologyIndex.containers(pod.getId()), topologyIndex.device(pod.getDeviceId())))
+                    .collect(Collectors.toList());
+        }
 
         List<Long> deviceIds = deviceRepository.selectMachines(DeviceDO.builder().status(devicePodRequest.getStatus())
                 .type(DeviceType.POD.getCode())
@@ -372,8 +423,6 @@ public class DeviceServiceImpl implements DeviceService {
 
         return devicePodDOS.stream().map(devicePodDO ->
                 {
-                    DevicePodResponse devicePodResponse = new DevicePodResponse();
-
                     List<ContainerBO> containers;
                     if (StrUtil.isBlank(devicePodDO.getContainers())) {
                         containers = Collections.emptyList();
@@ -381,29 +430,43 @@ public class DeviceServiceImpl implements DeviceService {
                         containers = JsonUtils.readValue(new TypeReference<List<ContainerBO>>() {
                         }, devicePodDO.getContainers());
                     }
-
-                    devicePodResponse.setClusterName(nodeMap.get(devicePodDO.getNodeId()).getClusterName())
-                            .setNodeName(nodeMap.get(devicePodDO.getNodeId()).getNodeName())
-                            .setNodeIp(nodeMap.get(devicePodDO.getNodeId()).getNodeIp())
-                            .setNodeVersion(nodeMap.get(devicePodDO.getNodeId()).getNodeVersion())
-                            .setNamespace(devicePodDO.getNamespace())
-                            .setContainers(containers)
-                            .setPodName(devicePodDO.getPodName())
-                            .setPodIp(devicePodDO.getPodIp())
-                            .setDeviceId(devicePodDO.getDeviceId())
-                            .setStatus(deviceDOMap.get(devicePodDO.getDeviceId()).getStatus())
-                            .setChaosed(deviceDOMap.get(devicePodDO.getDeviceId()).getIsExperimented())
-                            .setCreateTime(deviceDOMap.get(devicePodDO.getDeviceId()).getGmtCreate())
-                            .setHeartbeatTime(deviceDOMap.get(devicePodDO.getDeviceId()).getLastOnlineTime())
-                            .setChaosTime(deviceDOMap.get(devicePodDO.getDeviceId()).getLastExperimentTime())
-                            .setTaskId(deviceDOMap.get(devicePodDO.getDeviceId()).getLastTaskId())
-                            .setTaskStatus(deviceDOMap.get(devicePodDO.getDeviceId()).getLastTaskStatus());
-
-                    return devicePodResponse;
+                    return toDevicePodResponse(nodeMap.get(devicePodDO.getNodeId()), devicePodDO, containers,
+                            deviceDOMap.get(devicePodDO.getDeviceId()));
                 }
         ).collect(Collectors.toList());
     }
 
+    private DevicePodResponse toDevicePodResponse(DeviceNodeDO deviceNodeDO, DevicePodDO devicePodDO,
+                                                  List<ContainerBO> containers, DeviceDO deviceDO) {
+        DevicePodResponse devicePodResponse = new DevicePodResponse();
+
+        devicePodResponse.setClusterName(deviceNodeDO.getClusterName())
+                .setNodeName(deviceNodeDO.getNodeName())
+                .setNodeIp(deviceNodeDO.getNodeIp())
+                .setNodeVersion(deviceNodeDO.getNodeVersion())
+                .setNamespace(devicePodDO.getNamespace())
+                .setContainers(containers)
+                .setPodName(devicePodDO.getPodName())
+                .setPodIp(devicePodDO.getPodIp())
+                .setDeviceId(devicePodDO.getDeviceId())
+                .setStatus(deviceDO.getStatus())
+                .setChaosed(deviceDO.getIsExperimented())
+                .setCreateTime(deviceDO.getGmtCreate())
+                .setHeartbeatTime(deviceDO.getLastOnlineTime())
+                .setChaosTime(deviceDO.getLastExperimentTime())
+                .setTaskId(deviceDO.getLastTaskId())
+                .setTaskStatus(deviceDO.getLastTaskStatus());
+
+        return devicePodResponse;
+    }
+
+    /**
+     * same as the sql like '%keyword%' of the database fallback
+     */
+    private static boolean like(String value, String keyword) {
+        return StrUtil.isBlank(keyword) || StrUtil.containsIgnoreCase(value, keyword);
+    }
+
     @Override
     public DeviceResponse banMachine(DeviceRequest deviceRequest) {
 
@@ -38,6 +38,7 @@ import com.alibaba.chaosblade.box.service.ExperimentMiniFlowService;
 import com.alibaba.chaosblade.box.service.model.experiment.activity.ExperimentActivityTask;
 import com.alibaba.chaosblade.box.service.model.metric.MetricModel;
 import com.alibaba.chaosblade.box.service.task.ActivityTask;
+import com.alibaba.chaosblade.box.service.task.ActivityTaskDependencies;
 import com.alibaba.chaosblade.box.service.task.ActivityTaskExecuteContext;
 import com.alibaba.chaosblade.box.service.task.ActivityTaskExecutePipeline;
 import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogType;
@@ -48,7 +49,11 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -68,6 +73,9 @@ public class ExperimentActivityTaskServiceImpl implements ExperimentActivityTask
     @Autowired
     private ExperimentActivityTaskRepository experimentActivityTaskRepository;
 
+    @Autowired
+    private ExperimentActivityTaskEdgeRepository experimentActivityTaskEdgeRepository;
+
     @Autowired
     private ExperimentMiniFlowService experimentMiniFlowService;
 
@@ -103,7 +111,25 @@ public class ExperimentActivityTaskServiceImpl implements ExperimentActivityTask
         ExperimentDO experimentDO = experimentRepository.selectById(experimentTaskDO.getExperimentId())
                 .orElseThrow(() -> new BizException(ExceptionMessageEnum.EXPERIMENT_NOT_FOUNT));
 
-        for (ExperimentActivityTaskDO experimentActivityTask : experimentActivityTasks) {
+        List<ExperimentActivityTaskDO> activityTasks = new ArrayList<>(experimentActivityTasks);
+        activityTasks.sort(Comparator.comparing(ExperimentActivityTaskDO::getId));
+
+        // the runs created before the edges were stored resolve them again
+        List<ExperimentActivityTaskEdgeDO> edges = experimentActivityTaskEdgeRepository.selectByTaskId(experimentTaskDO.getId());
+        if (edges.isEmpty()) {
+            edges = ActivityTaskDependencies.resolve(activityTasks);
+        }
+        Map<Long, List<Long>> dependencies = edges.stream().collect(Collectors.groupingBy(
+                ExperimentActivityTaskEdgeDO::getActivityTaskId,
+                Collectors.mapping(ExperimentActivityTaskEdgeDO::getPreActivityTaskId, Collectors.toList())));
+
+        String manualCheckedPhase = null;
+        for (ExperimentActivityTaskDO experimentActivityTask : activityTasks) {
+            // the phase to check manually runs as a whole
+            if (manualCheckedPhase != null && !manualCheckedPhase.equals(experimentActivityTask.getPhase())) {
+                // todo
+                break;
+            }
 
             List<DeviceMeta> deviceMetas = experimentMiniFlowService.selectExperimentDeviceByFlowId(experimentActivityTask.getFlowId());
             String activityDefinition = experimentActivityTask.getRunParam();
@@ -120,10 +146,9 @@ public class ExperimentActivityTaskServiceImpl implements ExperimentActivityTask
             activityTask.setPhase(experimentActivityTask.getPhase());
             activityTask.setExperimentDimension(EnumUtil.fromString(ExperimentDimension.class, experimentDO.getDimension().toUpperCase()));
 
-            pipeline.addLast(activityTask);
+            pipeline.add(activityTask, dependencies.getOrDefault(activityTask.getActivityTaskId(), Collections.emptyList()));
             if (activityTask.getManualChecked()) {
-                // todo
-                break;
+                manualCheckedPhase = activityTask.getPhase();
             }
         }
 
@@ -223,7 +248,9 @@ public class ExperimentActivityTaskServiceImpl implements ExperimentActivityTask
                                         ));
                                 break;
                             case POD:
-                                devicePodRepository.selectByNameAndNamespace(deviceMeta.getNamespace(), deviceMeta.getPodName())
+                                deviceNodeRepository.selectByNodeName(deviceMeta.getClusterId(), deviceMeta.getNodeName())
+                                        .flatMap(node -> devicePodRepository.selectByNameAndNamespace(node.getId(),
+                                                deviceMeta.getNamespace(), deviceMeta.getPodName()))
                                         .ifPresent(pod ->
                                                 deviceRepository.updateByPrimaryKey(pod.getDeviceId(),
                                                         DeviceDO.builder().lastExperimentTime(DateUtil.date())
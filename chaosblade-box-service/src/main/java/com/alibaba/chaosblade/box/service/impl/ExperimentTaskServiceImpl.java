@@ -42,12 +42,15 @@ import com.alibaba.chaosblade.box.service.model.scene.SceneRequest;
 import com.alibaba.chaosblade.box.service.model.scene.SceneResponse;
 import com.alibaba.chaosblade.box.service.model.scene.param.SceneParamResponse;
 import com.alibaba.chaosblade.box.service.task.ActivityTask;
+import com.alibaba.chaosblade.box.service.task.ActivityTaskDependencies;
 import com.alibaba.chaosblade.box.service.task.ActivityTaskExecuteContext;
+import com.alibaba.chaosblade.box.service.task.ExperimentTaskRecovery;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -76,6 +79,9 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
     @Autowired
     private ExperimentActivityTaskRepository experimentActivityTaskRepository;
 
+    @Autowired
+    private ExperimentActivityTaskEdgeRepository experimentActivityTaskEdgeRepository;
+
     @Autowired
     private ExperimentActivityTaskService experimentActivityTaskService;
 
@@ -94,6 +100,9 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
     @Autowired
     private ActivityTaskExecuteContext activityTaskExecuteContext;
 
+    @Autowired
+    private ExperimentTaskRecovery experimentTaskRecovery;
+
     @Override
     public ExperimentTaskResponse createExperimentTask(Long experimentId) {
         ExperimentDO experimentDO = experimentRepository.selectById(experimentId)
@@ -118,6 +127,7 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
                 .runStatus(RunStatus.READY.getValue())
                 .build();
         // ready experiment task
+        experimentTaskRecovery.lease(experimentTaskDO);
         experimentTaskRepository.insert(experimentTaskDO);
 
         experimentRepository.updateByPrimaryKey(experimentId, ExperimentDO.builder()
@@ -129,6 +139,8 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
 
         List<ExperimentActivityTaskDO> experimentActivityTasks = experimentActivityTaskRepository
                 .selectByTaskId(experimentTaskDO.getId());
+        experimentActivityTasks.sort(Comparator.comparing(ExperimentActivityTaskDO::getId));
+        experimentActivityTaskEdgeRepository.saveBatch(ActivityTaskDependencies.resolve(experimentActivityTasks));
 
         experimentActivityTaskService.executeActivityTasks(experimentActivityTasks, experimentTaskDO);
 
@@ -177,6 +189,7 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
             throw new BizException(EXPERIMENT_TASK_END);
         }
 
+        experimentTaskRecovery.own(taskId);
         experimentTaskRepository.updateByPrimaryKey(taskId, ExperimentTaskDO.builder()
                 .runStatus(RunStatus.STOPPING.getValue())
                 .build());
@@ -264,6 +277,7 @@ public class ExperimentTaskServiceImpl implements ExperimentTaskService {
         if (experimentTaskDO.getRunStatus() == RunStatus.RUNNING.getValue()) {
             List<ExperimentActivityTaskDO> experimentActivityTasks = experimentActivityTaskRepository
                     .selectByTaskId(experimentTaskDO.getId());
+            experimentTaskRecovery.own(taskId);
             experimentTaskRepository.updateByPrimaryKey(taskId,
                     ExperimentTaskDO.builder().runStatus(RunStatus.READY.getValue()).resultStatus(null).build());
 
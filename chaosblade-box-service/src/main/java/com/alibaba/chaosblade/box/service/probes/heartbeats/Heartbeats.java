@@ -16,32 +16,58 @@
 
 package com.alibaba.chaosblade.box.service.probes.heartbeats;
 
-import cn.hutool.core.date.DateField;
-import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.chaosblade.box.common.enums.AgentType;
 import com.alibaba.chaosblade.box.common.enums.DeviceStatus;
-import com.alibaba.chaosblade.box.common.utils.timer.HashedWheelTimer;
-import com.alibaba.chaosblade.box.common.utils.timer.Timer;
 import com.alibaba.chaosblade.box.dao.model.DeviceDO;
 import com.alibaba.chaosblade.box.dao.model.ProbesDO;
 import com.alibaba.chaosblade.box.dao.repository.DeviceRepository;
 import com.alibaba.chaosblade.box.dao.repository.ProbesRepository;
+import com.alibaba.chaosblade.box.invoker.http.AgentCircuitBreakers;
 import com.alibaba.chaosblade.box.invoker.http.ChaosBladePingHttpInvoker;
 import com.alibaba.chaosblade.box.invoker.http.model.reuest.HttpChannelRequest;
-import com.alibaba.chaosblade.box.invoker.ResponseCommand;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
+ * Liveness of the probes, kept in memory.
+ * <p>
+ * Heartbeats pushed by the agents are applied every {@code chaos.agent.heartbeatsFlushPeriod} seconds.
+ * Probes not heard from within a period are pinged once per period: one query loads the probes,
+ * at most {@code chaos.agent.heartbeatsConcurrency} pings are in flight.
+ * Offline probes are pinged with an exponential backoff up to {@code chaos.agent.heartbeatsMaxBackoff}
+ * seconds, forbidden probes every {@code chaos.agent.heartbeatsForbiddenPeriod} seconds.
+ * Only status transitions are written right away, the online and ping times are written
+ * every {@code chaos.agent.heartbeatsTimestampPeriod} seconds, at most half the offline threshold
+ * so the written times never look expired.
+ *
  * @author yefei
  */
+@Slf4j
 @Component
-public class Heartbeats implements InitializingBean {
+public class Heartbeats implements InitializingBean, DisposableBean {
+
+    /**
+     * an online probe not online for a minute is offline
+     */
+    private static final long OFFLINE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * timestamps within the granularity are written by one statement
+     */
+    private static final long TIMESTAMP_GRANULARITY = TimeUnit.SECONDS.toMillis(10);
 
     @Autowired
     private DeviceRepository deviceRepository;
@@ -52,91 +78,374 @@ public class Heartbeats implements InitializingBean {
     @Autowired
     private ProbesRepository probesRepository;
 
+    @Autowired
+    private AgentCircuitBreakers agentCircuitBreakers;
+
     @Value("${chaos.agent.port}")
     private int chaosAgentPort;
 
     @Value("${chaos.agent.heartbeatsEnable}")
     private boolean heartbeatsEnable;
 
-    private Timer timer;
+    @Value("${chaos.agent.heartbeatsPeriod:30}")
+    private int period;
+
+    @Value("${chaos.agent.heartbeatsConcurrency:20}")
+    private int concurrency;
+
+    @Value("${chaos.agent.heartbeatsBatchSize:500}")
+    private int batchSize;
+
+    @Value("${chaos.agent.heartbeatsFlushPeriod:5}")
+    private int flushPeriod;
+
+    @Value("${chaos.agent.heartbeatsTimestampPeriod:30}")
+    private int timestampPeriod;
 
-    private ExecutorService executorService;
+    @Value("${chaos.agent.heartbeatsMaxBackoff:600}")
+    private int maxBackoff;
+
+    @Value("${chaos.agent.heartbeatsForbiddenPeriod:300}")
+    private int forbiddenPeriod;
+
+    /**
+     * probes to ping, dropped once their status is no longer heartbeat
+     */
+    private final Map<Long, Liveness> probes = new ConcurrentHashMap<>();
+
+    /**
+     * probe id -> pushed heartbeat millis, since the last flush
+     */
+    private final Map<Long, Long> pushed = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> hostProbes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduledExecutorService;
 
     public void addHeartbeats(ProbesDO probesDO) {
         if (!heartbeatsEnable) {
             return;
         }
+        // the status is refreshed by the next sweep
+        probes.computeIfAbsent(probesDO.getId(), id -> new Liveness(probesDO));
+    }
+
+    /**
+     * the agent registers again, reset its backoff and ping it right away
+     */
+    public void recheck(ProbesDO probesDO) {
+        if (!heartbeatsEnable) {
+            return;
+        }
+        Liveness liveness = probes.computeIfAbsent(probesDO.getId(), id -> new Liveness(probesDO));
+        liveness.refresh(probesDO);
+        liveness.failures = 0;
+        liveness.nextPing = 0;
+        scheduledExecutorService.execute(() -> {
+            try {
+                check(Collections.singletonList(liveness));
+            } catch (Exception e) {
+                log.error("heartbeats recheck fail, probe: {}", liveness.probeId, e);
+            }
+        });
+    }
+
+    /**
+     * heartbeat pushed by the agent, only recorded in memory
+     *
+     * @param agentId probe id, null for the agents registered by ip
+     * @param ip
+     */
+    public void report(String agentId, String ip) {
+        if (!heartbeatsEnable) {
+            return;
+        }
+        Long probeId = NumberUtil.isLong(agentId) ? Long.valueOf(agentId) : probeIdOf(ip);
+        if (probeId == null) {
+            log.debug("heartbeat of unknown agent, agentId: {}, ip: {}", agentId, ip);
+            return;
+        }
+        pushed.put(probeId, System.currentTimeMillis());
+    }
+
+    private Long probeIdOf(String ip) {
+        if (StrUtil.isBlank(ip)) {
+            return null;
+        }
+        Long probeId = hostProbes.get(ip);
+        if (probeId == null) {
+            probeId = probesRepository.selectByHost(ip).map(ProbesDO::getId).orElse(null);
+            if (probeId != null) {
+                hostProbes.put(ip, probeId);
+            }
+        }
+        return probeId;
+    }
+
+    private static boolean isHeartbeat(Byte status) {
+        // if status in (ONLINE, OFFLINE, FORBIDDEN) , send Heartbeats
+        return status != null && (DeviceStatus.ONLINE.getStatus() == status
+                || DeviceStatus.OFFLINE.getStatus() == status
+                || DeviceStatus.FORBIDDEN.getStatus() == status);
+    }
+
+    private void flush() {
+        if (pushed.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> times = new HashMap<>(pushed);
+        times.forEach(pushed::remove);
 
-        timer.newTimeout(timeout -> {
-            executorService.execute(() -> {
+        // pushes of the probes not tracked yet, one query
+        List<Long> unknown = times.keySet().stream()
+                .filter(id -> !probes.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            Set<Long> loaded = new HashSet<>();
+            for (ProbesDO probe : probesRepository.selectByIds(unknown)) {
+                loaded.add(probe.getId());
+                if (isHeartbeat(probe.getStatus())) {
+                    // pinged once the pushes stop
+                    probes.putIfAbsent(probe.getId(), new Liveness(probe));
+                }
+            }
+            unknown.stream().filter(id -> !loaded.contains(id)).forEach(id -> hostProbes.values().remove(id));
+        }
 
+        List<Liveness> online = new ArrayList<>();
+        times.forEach((id, time) -> {
+            Liveness liveness = probes.get(id);
+            if (liveness != null) {
+                liveness.lastPushed = time;
+                liveness.lastOnline = Math.max(liveness.lastOnline, time);
+                liveness.failures = 0;
+                agentCircuitBreakers.markUp(liveness.ip);
+                if (Objects.equals(DeviceStatus.OFFLINE.getStatus(), liveness.status)) {
+                    online.add(liveness);
+                }
+            }
+        });
+        transfer(online, DeviceStatus.OFFLINE, DeviceStatus.ONLINE);
+    }
+
+    private void sweep() {
+        if (probes.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = new ArrayList<>(probes.keySet());
+        Set<Long> loaded = new HashSet<>();
+        for (ProbesDO probe : probesRepository.selectByIds(snapshot)) {
+            loaded.add(probe.getId());
+            Liveness liveness = probes.get(probe.getId());
+            if (liveness == null) {
+                continue;
+            }
+            if (isHeartbeat(probe.getStatus())) {
+                liveness.refresh(probe);
+            } else {
+                probes.remove(probe.getId());
+            }
+        }
+        // deleted probes
+        snapshot.stream().filter(id -> !loaded.contains(id)).forEach(probes::remove);
+
+        // the pushed heartbeats are fresh, no need to ping
+        long now = System.currentTimeMillis();
+        long since = now - TimeUnit.SECONDS.toMillis(period);
+        List<Liveness> candidates = probes.values().stream()
+                .filter(liveness -> isHeartbeat(liveness.status) && liveness.lastPushed <= since
+                        && liveness.nextPing <= now)
+                .collect(Collectors.toList());
+        check(candidates);
+    }
+
+    /**
+     * ping the probes, write the transitions and schedule their next ping
+     */
+    private void check(List<Liveness> candidates) {
+        // a probe is pinged by one check at a time, a recheck may run along with the sweep
+        List<Liveness> claimed = candidates.stream()
+                .filter(liveness -> liveness.checking.compareAndSet(false, true))
+                .collect(Collectors.toList());
+        if (claimed.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        claimed.forEach(liveness -> liveness.lastPing = now);
+
+        Pings pings = new Pings();
+        int started = ping(claimed, pings);
+        claimed.subList(started, claimed.size()).forEach(liveness -> liveness.checking.set(false));
+        pings.close();
+    }
+
+    /**
+     * write the transitions of the pinged probes, then release them to the next check
+     */
+    private void apply(List<Liveness> online, List<Liveness> offline) {
+        try {
+            // OFFLINE -> ONLINE
+            transfer(online.stream()
+                    .filter(liveness -> DeviceStatus.OFFLINE.getStatus() == liveness.status)
+                    .collect(Collectors.toList()), DeviceStatus.OFFLINE, DeviceStatus.ONLINE);
+
+            // ONLINE -> OFFLINE, not online for a minute
+            long expired = System.currentTimeMillis() - OFFLINE_MILLIS;
+            transfer(offline.stream()
+                    .filter(liveness -> DeviceStatus.ONLINE.getStatus() == liveness.status && liveness.lastOnline < expired)
+                    .collect(Collectors.toList()), DeviceStatus.ONLINE, DeviceStatus.OFFLINE);
+        } finally {
+            online.forEach(liveness -> {
+                liveness.failures = 0;
+                liveness.nextPing = nextPing(liveness);
+                liveness.checking.set(false);
+            });
+            offline.forEach(liveness -> {
+                liveness.failures++;
+                liveness.nextPing = nextPing(liveness);
+                liveness.checking.set(false);
+            });
+        }
+    }
+
+    /**
+     * @return 0 to ping in the next sweep
+     */
+    private long nextPing(Liveness liveness) {
+        long now = System.currentTimeMillis();
+        if (Objects.equals(DeviceStatus.FORBIDDEN.getStatus(), liveness.status)) {
+            return now + TimeUnit.SECONDS.toMillis(forbiddenPeriod);
+        }
+        // online probes keep the period until they are offline
+        if (liveness.failures == 0 || !Objects.equals(DeviceStatus.OFFLINE.getStatus(), liveness.status)) {
+            return 0;
+        }
+        long backoff = (long) period << Math.min(liveness.failures - 1, 16);
+        return now + TimeUnit.SECONDS.toMillis(Math.min(backoff, maxBackoff));
+    }
+
+    /**
+     * ping with a bounded window, returns when every ping is answered or the period is over
+     *
+     * @return the number of probes pinged, the others are left to the next check
+     */
+    private int ping(List<Liveness> candidates, Pings pings) {
+        Semaphore window = new Semaphore(concurrency);
+        CountDownLatch latch = new CountDownLatch(candidates.size());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(period);
+        int started = 0;
+        try {
+            for (Liveness liveness : candidates) {
+                if (!window.tryAcquire(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+                    log.warn("heartbeats not finished in {} seconds, probes left: {}", period, latch.getCount());
+                    return started;
+                }
                 HttpChannelRequest request = new HttpChannelRequest();
                 request.setRequestURL("/ping");
-                request.setHost(probesDO.getIp());
+                request.setHost(liveness.ip);
                 request.setPort(chaosAgentPort);
 
-                probesRepository.updateByPrimaryKey(probesDO.getId(), ProbesDO.builder()
-                        .lastPingTime(DateUtil.date())
-                        .build());
-
-                deviceRepository.updateByPrimaryKey(probesDO.getDeviceId(), DeviceDO.builder()
-                        .lastPingTime(DateUtil.date())
-                        .build());
-
-                CompletableFuture<ResponseCommand> future = chaosBladeHttpInvoker.invoke(request);
-                future.thenAccept(r -> {
-
-                    probesRepository.updateByPrimaryKey(probesDO.getId(), ProbesDO.builder()
-                            .lastOnlineTime(DateUtil.date())
-                            .build());
-
-                    // OFFLINE -> ONLINE
-                    probesRepository.selectById(probesDO.getId()).filter(
-                            probe -> DeviceStatus.OFFLINE.getStatus() == probe.getStatus())
-                            .ifPresent(probe ->
-                                    probesRepository.updateByPrimaryKey(probesDO.getId(), ProbesDO.builder()
-                                            .status(DeviceStatus.ONLINE.getStatus())
-                                            .build()));
-
-                    deviceRepository.updateByPrimaryKey(probesDO.getDeviceId(), DeviceDO.builder()
-                            .lastOnlineTime(DateUtil.date())
-                            .build());
-
-                    deviceRepository.selectById(probesDO.getDeviceId()).filter(
-                            deviceDO -> DeviceStatus.OFFLINE.getStatus() == deviceDO.getStatus())
-                            .ifPresent(deviceDO ->
-                                    deviceRepository.updateByPrimaryKey(probesDO.getDeviceId(), DeviceDO.builder()
-                                            .status(DeviceStatus.ONLINE.getStatus())
-                                            .build()));
-
-                }).exceptionally((e) -> {
-                    // ONLINE -> OFFLINE
-                    probesRepository.selectById(probesDO.getId()).filter(
-                            probe -> DeviceStatus.ONLINE.getStatus() == probe.getStatus()
-                                    && DateUtil.date().offset(DateField.MINUTE, -1).after(probe.getLastOnlineTime()))
-                            .ifPresent(probe -> probesRepository.updateByPrimaryKey(probesDO.getId(), ProbesDO.builder()
-                                    .status(DeviceStatus.OFFLINE.getStatus())
-                                    .build()));
-
-                    deviceRepository.selectById(probesDO.getDeviceId()).filter(
-                            deviceDO -> DeviceStatus.ONLINE.getStatus() == deviceDO.getStatus()
-                                    && DateUtil.date().offset(DateField.MINUTE, -1).after(deviceDO.getLastOnlineTime()))
-                            .ifPresent(deviceDO ->
-                                    deviceRepository.updateByPrimaryKey(probesDO.getDeviceId(), DeviceDO.builder()
-                                            .status(DeviceStatus.OFFLINE.getStatus())
-                                            .build()));
-                    return null;
+                started++;
+                chaosBladeHttpInvoker.invoke(request).whenComplete((r, e) -> {
+                    if (e == null) {
+                        liveness.lastOnline = System.currentTimeMillis();
+                    }
+                    pings.add(liveness, e == null);
+                    window.release();
+                    latch.countDown();
                 });
+            }
+            latch.await(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return started;
+    }
+
+    /**
+     * write the status transitions of the probes and their devices
+     */
+    private void transfer(List<Liveness> list, DeviceStatus from, DeviceStatus to) {
+        if (list.isEmpty()) {
+            return;
+        }
+        log.info("probes {} -> {}, ids: {}", from, to,
+                list.stream().map(liveness -> liveness.probeId).collect(Collectors.toList()));
+        update(from + " -> " + to, list, (ids, deviceIds) -> {
+            probesRepository.updateStatusByIds(ids, from.getStatus(), null, to.getStatus());
+            if (!deviceIds.isEmpty()) {
+                deviceRepository.updateStatusByIds(deviceIds, from.getStatus(), null, to.getStatus());
+            }
+        });
+        list.forEach(liveness -> {
+            liveness.status = to.getStatus();
+            // the invokers fail at once on the offline hosts
+            if (to == DeviceStatus.OFFLINE) {
+                agentCircuitBreakers.markDown(liveness.ip);
+            } else {
+                agentCircuitBreakers.markUp(liveness.ip);
+            }
+        });
+    }
+
+    /**
+     * write the online and ping times changed since the last write, grouped by time
+     */
+    private void flushTimestamps() {
+        Map<Long, Map<Liveness, Long>> online = new HashMap<>();
+        Map<Long, Map<Liveness, Long>> ping = new HashMap<>();
+        for (Liveness liveness : probes.values()) {
+            long lastOnline = liveness.lastOnline;
+            if (lastOnline > liveness.persistedOnline) {
+                online.computeIfAbsent(lastOnline / TIMESTAMP_GRANULARITY, k -> new HashMap<>()).put(liveness, lastOnline);
+            }
+            long lastPing = liveness.lastPing;
+            if (lastPing > liveness.persistedPing) {
+                ping.computeIfAbsent(lastPing / TIMESTAMP_GRANULARITY, k -> new HashMap<>()).put(liveness, lastPing);
+            }
+        }
+
+        online.values().forEach(group -> {
+            Date time = new Date(Collections.max(group.values()));
+            update("online time", group.keySet(), (ids, deviceIds) -> {
+                probesRepository.updateByIds(ids, ProbesDO.builder().lastOnlineTime(time).build());
+                if (!deviceIds.isEmpty()) {
+                    deviceRepository.updateByIds(deviceIds, DeviceDO.builder().lastOnlineTime(time).build());
+                }
+            });
+            group.forEach((liveness, lastOnline) -> liveness.persistedOnline = lastOnline);
+        });
+        ping.values().forEach(group -> {
+            Date time = new Date(Collections.max(group.values()));
+            update("ping time", group.keySet(), (ids, deviceIds) -> {
+                probesRepository.updateByIds(ids, ProbesDO.builder().lastPingTime(time).build());
+                if (!deviceIds.isEmpty()) {
+                    deviceRepository.updateByIds(deviceIds, DeviceDO.builder().lastPingTime(time).build());
+                }
             });
+            group.forEach((liveness, lastPing) -> liveness.persistedPing = lastPing);
+        });
+    }
 
-            // if status in (ONLINE, OFFLINE, FORBIDDEN) , send Heartbeats
-            probesRepository.selectById(probesDO.getId()).filter(probe ->
-                    DeviceStatus.ONLINE.getStatus() == probe.getStatus()
-                            || DeviceStatus.OFFLINE.getStatus() == probe.getStatus()
-                            || DeviceStatus.FORBIDDEN.getStatus() == probe.getStatus())
-                    .ifPresent(this::addHeartbeats);
+    private void update(String action, Collection<Liveness> list, BiConsumer<List<Long>, List<Long>> consumer) {
+        for (List<Liveness> batch : CollUtil.split(new ArrayList<>(list), batchSize)) {
+            try {
+                consumer.accept(batch.stream().map(liveness -> liveness.probeId).collect(Collectors.toList()),
+                        batch.stream().map(liveness -> liveness.deviceId).filter(Objects::nonNull).collect(Collectors.toList()));
+            } catch (Exception e) {
+                log.error("update heartbeats fail, action: {}", action, e);
+            }
+        }
+    }
 
-        }, 30, TimeUnit.SECONDS);
+    private void schedule(Runnable runnable, int period, String name) {
+        scheduledExecutorService.scheduleAtFixedRate(() -> {
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                log.error("heartbeats {} fail", name, e);
+            }
+        }, period, period, TimeUnit.SECONDS);
     }
 
     @Override
@@ -145,25 +454,128 @@ public class Heartbeats implements InitializingBean {
             return;
         }
 
-        timer = new HashedWheelTimer(r -> {
-            Thread thread = new Thread(r);
-            thread.setName("Heartbeats");
-            return thread;
-        });
+        List<ProbesDO> list = probesRepository.selectList(ProbesDO.builder().agentType(AgentType.HOST.getCode()).build());
+        for (ProbesDO probe : list) {
+            if (isHeartbeat(probe.getStatus())) {
+                probes.put(probe.getId(), new Liveness(probe));
+            }
+        }
 
-        executorService = Executors.newCachedThreadPool(r -> {
+        // the sweep may wait for the pings up to a period, flush on other threads
+        scheduledExecutorService = new ScheduledThreadPoolExecutor(3, r -> {
             Thread thread = new Thread(r);
             thread.setName("Heartbeats");
+            thread.setDaemon(true);
             return thread;
         });
+        schedule(this::sweep, period, "sweep");
+        schedule(this::flush, flushPeriod, "flush");
+        long maxTimestampPeriod = TimeUnit.MILLISECONDS.toSeconds(OFFLINE_MILLIS) / 2;
+        if (timestampPeriod > maxTimestampPeriod) {
+            log.warn("heartbeats timestamp period {}s above half the offline threshold, use {}s", timestampPeriod,
+                    maxTimestampPeriod);
+            timestampPeriod = (int) maxTimestampPeriod;
+        }
+        schedule(this::flushTimestamps, timestampPeriod, "flush timestamps");
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+            flush();
+            flushTimestamps();
+        }
+    }
+
+    /**
+     * results of the pings of one check, the ones answered after it closed are applied on their own
+     */
+    private class Pings {
+
+        private final List<Liveness> online = new ArrayList<>();
+
+        private final List<Liveness> offline = new ArrayList<>();
+
+        private boolean closed;
+
+        void add(Liveness liveness, boolean up) {
+            synchronized (this) {
+                if (!closed) {
+                    (up ? online : offline).add(liveness);
+                    return;
+                }
+            }
+            List<Liveness> one = Collections.singletonList(liveness);
+            scheduledExecutorService.execute(() -> apply(up ? one : Collections.emptyList(),
+                    up ? Collections.emptyList() : one));
+        }
+
+        void close() {
+            List<Liveness> answeredOnline;
+            List<Liveness> answeredOffline;
+            synchronized (this) {
+                closed = true;
+                answeredOnline = new ArrayList<>(online);
+                answeredOffline = new ArrayList<>(offline);
+            }
+            apply(answeredOnline, answeredOffline);
+        }
+    }
 
-        List<ProbesDO> probes = probesRepository.selectList(ProbesDO.builder().agentType(AgentType.HOST.getCode()).build());
-        for (ProbesDO probe : probes) {
-            if (DeviceStatus.ONLINE.getStatus() == probe.getStatus()
-                    || DeviceStatus.OFFLINE.getStatus() == probe.getStatus()
-                    || DeviceStatus.FORBIDDEN.getStatus() == probe.getStatus()) {
-                addHeartbeats(probe);
+    /**
+     * liveness of a probe, the status is refreshed from the table by each sweep
+     */
+    static class Liveness {
+
+        final Long probeId;
+
+        volatile Long deviceId;
+
+        volatile String ip;
+
+        volatile Byte status;
+
+        volatile long lastOnline;
+
+        volatile long lastPing;
+
+        volatile long lastPushed;
+
+        volatile long persistedOnline;
+
+        volatile long persistedPing;
+
+        /**
+         * continuous ping failures
+         */
+        volatile int failures;
+
+        /**
+         * not pinged before, 0 for the next sweep
+         */
+        volatile long nextPing;
+
+        /**
+         * a ping is in flight
+         */
+        final AtomicBoolean checking = new AtomicBoolean();
+
+        Liveness(ProbesDO probe) {
+            this.probeId = probe.getId();
+            refresh(probe);
+            if (probe.getLastOnlineTime() != null) {
+                lastOnline = persistedOnline = probe.getLastOnlineTime().getTime();
+            }
+            if (probe.getLastPingTime() != null) {
+                lastPing = persistedPing = probe.getLastPingTime().getTime();
             }
         }
+
+        void refresh(ProbesDO probe) {
+            deviceId = probe.getDeviceId();
+            ip = probe.getIp();
+            status = probe.getStatus();
+        }
     }
 }
@@ -53,6 +53,11 @@ public class ActivityTask {
 
     private Long nextActivityTaskId;
 
+    /**
+     * ids of the activities waited for, null for the activity before it, empty for none
+     */
+    private List<Long> dependsOn;
+
     private Long sceneId;
 
     private String sceneCode;
@@ -69,6 +74,11 @@ public class ActivityTask {
 
     private Long waitOfAfter;
 
+    /**
+     * millis the requests of the activity may take, null for chaos.experiment.invokeTimeout
+     */
+    private Long timeout;
+
     private Map<String, String> arguments;
 
     private ExperimentDimension experimentDimension;
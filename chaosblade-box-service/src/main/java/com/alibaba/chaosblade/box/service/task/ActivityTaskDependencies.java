@@ -0,0 +1,83 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.task;
+
+import com.alibaba.chaosblade.box.common.exception.BizException;
+import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskDO;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskEdgeDO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the dependencies between the activity tasks of an experiment task.
+ * Without explicit dependencies a task waits for the task before it, so an experiment runs in order
+ * as before. Activities naming the ones they depend on run in parallel branches, an empty list
+ * starts a branch at once.
+ *
+ * @author yefei
+ */
+public final class ActivityTaskDependencies {
+
+    private ActivityTaskDependencies() {
+    }
+
+    /**
+     * @param activityTasks in the order of their activities
+     * @return one edge per dependency
+     */
+    public static List<ExperimentActivityTaskEdgeDO> resolve(List<ExperimentActivityTaskDO> activityTasks) {
+        List<ExperimentActivityTaskEdgeDO> edges = new ArrayList<>();
+        // activity id -> activity task id, only the ones before
+        Map<Long, Long> resolved = new HashMap<>();
+        Long previous = null;
+
+        for (ExperimentActivityTaskDO activityTask : activityTasks) {
+            List<Long> dependsOn = JsonUtils.readValue(ActivityTask.class, activityTask.getRunParam()).getDependsOn();
+            List<Long> preActivityTaskIds;
+            if (dependsOn == null) {
+                preActivityTaskIds = previous == null ? Collections.emptyList() : Collections.singletonList(previous);
+            } else {
+                preActivityTaskIds = new ArrayList<>(dependsOn.size());
+                for (Long activityId : dependsOn) {
+                    Long preActivityTaskId = resolved.get(activityId);
+                    if (preActivityTaskId == null) {
+                        throw new BizException("activity " + activityTask.getActivityId()
+                                + " depends on activity " + activityId + ", which is not before it");
+                    }
+                    preActivityTaskIds.add(preActivityTaskId);
+                }
+            }
+
+            for (Long preActivityTaskId : preActivityTaskIds) {
+                edges.add(ExperimentActivityTaskEdgeDO.builder()
+                        .experimentTaskId(activityTask.getExperimentTaskId())
+                        .activityTaskId(activityTask.getId())
+                        .preActivityTaskId(preActivityTaskId)
+                        .build());
+            }
+            resolved.put(activityTask.getActivityId(), activityTask.getId());
+            previous = activityTask.getId();
+        }
+        return edges;
+    }
+}
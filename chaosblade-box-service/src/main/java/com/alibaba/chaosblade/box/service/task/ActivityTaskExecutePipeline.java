@@ -18,16 +18,31 @@ package com.alibaba.chaosblade.box.service.task;
 
 import com.alibaba.chaosblade.box.common.exception.BizException;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
+ * The activity tasks of an experiment task and their dependencies, a directed acyclic graph.
+ * A task runs once every task it depends on is done, the tasks without dependencies between them run in parallel.
+ *
  * @author yefei
  */
 public class ActivityTaskExecutePipeline {
 
     private Long experimentTaskId;
 
+    /**
+     * in the order added, a task only depends on the tasks added before it
+     */
+    private final Map<Long, InternalActivityTaskNode> nodes = new LinkedHashMap<>();
+
     /**
      * first task
      */
@@ -39,38 +54,17 @@ public class ActivityTaskExecutePipeline {
     private InternalActivityTaskNode tail;
 
     /**
-     * current task
+     * tasks whose dependencies are done, waiting for a free slot
      */
-    private volatile TaskNode<ActivityTask> currentTask;
+    private final Deque<InternalActivityTaskNode> ready = new ArrayDeque<>();
 
-    private volatile boolean isEnd;
+    private int running;
 
-    private final static AtomicReferenceFieldUpdater<ActivityTaskExecutePipeline, TaskNode> atomicReferenceFieldUpdater
-            = AtomicReferenceFieldUpdater.newUpdater(ActivityTaskExecutePipeline.class, TaskNode.class, "currentTask");
+    private int remaining;
 
-    public TaskNode<ActivityTask> getCurrentTask() {
-        if (isEnd) {
-            return null;
-        }
-        if (currentTask == null) {
-            if (head == null) {
-                isEnd = true;
-                return null;
-            }
-            if (!atomicReferenceFieldUpdater.compareAndSet(this, null, head)) {
-                getCurrentTask();
-            }
-        } else {
-            if (!atomicReferenceFieldUpdater.compareAndSet(this, currentTask, currentTask.next())) {
-                getCurrentTask();
-            }
-            if (currentTask == null) {
-                isEnd = true;
-                return null;
-            }
-        }
-        return currentTask;
-    }
+    private boolean started;
+
+    private Throwable error;
 
     public TaskNode<ActivityTask> head() {
         return head;
@@ -80,7 +74,21 @@ public class ActivityTaskExecutePipeline {
         return tail;
     }
 
+    public Collection<? extends TaskNode<ActivityTask>> nodes() {
+        return Collections.unmodifiableCollection(nodes.values());
+    }
+
+    /**
+     * the task depends on the last task added
+     */
     public void addLast(ActivityTask activityTask) {
+        add(activityTask, tail == null ? Collections.emptyList() : Collections.singletonList(tail.activityTaskId));
+    }
+
+    /**
+     * @param dependsOn ids of the activity tasks waited for, the ones not in the pipeline are done already
+     */
+    public void add(ActivityTask activityTask, Collection<Long> dependsOn) {
         if (experimentTaskId == null) {
             experimentTaskId = activityTask.getExperimentTaskId();
         }
@@ -88,15 +96,85 @@ public class ActivityTaskExecutePipeline {
         if (activityTaskId == null) {
             throw new BizException("add activity task, task id is null");
         }
+        if (started) {
+            throw new BizException("add activity task, pipeline is started");
+        }
         activityTask.setActivityTaskExecutePipeline(this);
-        InternalActivityTaskNode TaskNode = new InternalActivityTaskNode(activityTask, activityTaskId);
+        InternalActivityTaskNode taskNode = new InternalActivityTaskNode(activityTask, activityTaskId);
+        for (Long id : dependsOn) {
+            InternalActivityTaskNode prev = nodes.get(id);
+            if (prev != null && !taskNode.prev.contains(prev)) {
+                taskNode.prev.add(prev);
+                prev.next.add(taskNode);
+            }
+        }
         if (head == null) {
-            head = TaskNode;
-        } else {
-            tail.next = TaskNode;
-            TaskNode.prev = tail;
+            head = taskNode;
         }
-        tail = TaskNode;
+        tail = taskNode;
+        nodes.put(activityTaskId, taskNode);
+    }
+
+    /**
+     * @param parallelism max tasks running at the same time
+     * @return the tasks to run, null if the pipeline is started already
+     */
+    synchronized List<TaskNode<ActivityTask>> start(int parallelism) {
+        if (started) {
+            return null;
+        }
+        started = true;
+        remaining = nodes.size();
+        for (InternalActivityTaskNode node : nodes.values()) {
+            node.waiting = node.prev.size();
+            if (node.waiting == 0) {
+                ready.add(node);
+            }
+        }
+        return poll(parallelism);
+    }
+
+    /**
+     * @param e the error of the task, its next tasks still run and check the status themselves
+     * @return the tasks to run
+     */
+    synchronized List<TaskNode<ActivityTask>> complete(TaskNode<ActivityTask> taskNode, Throwable e, int parallelism) {
+        InternalActivityTaskNode node = (InternalActivityTaskNode) taskNode;
+        if (node.done) {
+            return Collections.emptyList();
+        }
+        node.done = true;
+        running--;
+        remaining--;
+        if (e != null && error == null) {
+            error = e;
+        }
+        for (InternalActivityTaskNode next : node.next) {
+            if (--next.waiting == 0) {
+                ready.add(next);
+            }
+        }
+        return poll(parallelism);
+    }
+
+    synchronized boolean isDone() {
+        return started && remaining == 0;
+    }
+
+    /**
+     * @return the first error of the tasks
+     */
+    synchronized Throwable error() {
+        return error;
+    }
+
+    private List<TaskNode<ActivityTask>> poll(int parallelism) {
+        List<TaskNode<ActivityTask>> runnable = new ArrayList<>();
+        while (!ready.isEmpty() && running < Math.max(1, parallelism)) {
+            running++;
+            runnable.add(ready.poll());
+        }
+        return runnable;
     }
 
     private static class InternalActivityTaskNode implements TaskNode<ActivityTask> {
@@ -105,9 +183,16 @@ public class ActivityTaskExecutePipeline {
 
         private final ActivityTask activityTask;
 
-        private InternalActivityTaskNode prev;
+        private final List<InternalActivityTaskNode> prev = new ArrayList<>();
+
+        private final List<InternalActivityTaskNode> next = new ArrayList<>();
+
+        /**
+         * dependencies not done yet
+         */
+        private int waiting;
 
-        private InternalActivityTaskNode next;
+        private boolean done;
 
         public InternalActivityTaskNode(ActivityTask activityTask, Long activityTaskId) {
             this.activityTask = activityTask;
@@ -115,13 +200,13 @@ public class ActivityTaskExecutePipeline {
         }
 
         @Override
-        public TaskNode<ActivityTask> next() {
-            return next;
+        public List<TaskNode<ActivityTask>> next() {
+            return Collections.unmodifiableList(next);
         }
 
         @Override
-        public TaskNode<ActivityTask> prev() {
-            return prev;
+        public List<TaskNode<ActivityTask>> prev() {
+            return Collections.unmodifiableList(prev);
         }
 
         @Override
@@ -16,7 +16,6 @@
 
 package com.alibaba.chaosblade.box.service.task;
 
-import cn.hutool.core.collection.CollUtil;
 import com.alibaba.chaosblade.box.common.executor.ExecutorFactory;
 import com.alibaba.chaosblade.box.common.executor.ThreadPoolExecutorFactory;
 import com.alibaba.chaosblade.box.common.TaskLogRecord;
@@ -31,6 +30,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -46,6 +46,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 @TaskLogRecord
 public class DefaultActivityTaskExecuteContext implements ActivityTaskExecuteContext, InitializingBean {
 
+    /**
+     * activity tasks of one experiment task running at the same time
+     */
+    @Value("${chaos.experiment.activityParallelism:10}")
+    private int activityParallelism;
+
     private Executor executor;
 
     protected Timer timer;
@@ -82,62 +88,83 @@ public class DefaultActivityTaskExecuteContext implements ActivityTaskExecuteCon
 
     @Override
     public void fireExecute(ActivityTaskExecutePipeline activityTaskExecutePipeline) {
-        TaskNode<ActivityTask> internalTask = activityTaskExecutePipeline.getCurrentTask();
-        if (internalTask == null) {
+        List<TaskNode<ActivityTask>> runnable = activityTaskExecutePipeline.start(activityParallelism);
+        if (runnable == null) {
+            return;
+        }
+        TaskNode<ActivityTask> head = activityTaskExecutePipeline.head();
+        if (head == null) {
+            removeListeners(activityTaskExecutePipeline);
             return;
         }
+        Throwable startError = null;
         try {
-            if (internalTask == activityTaskExecutePipeline.head() &&
-                    taskStartListenerMap.get(activityTaskExecutePipeline) != null) {
-                ExperimentTaskStartListener experimentTaskStartListener = taskStartListenerMap.get(activityTaskExecutePipeline);
-                experimentTaskStartListener.notify(this, internalTask.getTask());
-            }
-            List<CompletableFuture<Void>> futures = CollUtil.newArrayList();
-            for (TaskNode<ActivityTask> node = internalTask; node != null; node = node.prev()) {
-                CompletableFuture<Void> future = node.getTask().future();
-                futures.add(future);
-            }
-
-            TaskNode<ActivityTask> next = internalTask.next();
-            if (next != null) {
-                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((r, e) -> {
-                    executeActivityTask0(next.getTask());
-                    return null;
-                });
+            ExperimentTaskStartListener experimentTaskStartListener = taskStartListenerMap.remove(activityTaskExecutePipeline);
+            if (experimentTaskStartListener != null) {
+                experimentTaskStartListener.notify(this, head.getTask());
             }
+        } catch (Throwable throwable) {
+            log.error("fireExecute error!", throwable);
+            startError = throwable;
+        }
+        for (TaskNode<ActivityTask> node : runnable) {
+            execute(activityTaskExecutePipeline, node, startError);
+        }
+    }
 
-            ActivityTask activityTask = internalTask.getTask();
-
-            if (internalTask == activityTaskExecutePipeline.tail()
-                    && taskCompleteListenerMap.get(activityTaskExecutePipeline) != null) {
-                ExperimentTaskCompleteListener experimentTaskCompleteListener = taskCompleteListenerMap.get(activityTaskExecutePipeline);
-                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handleAsync((r, e) -> {
-                    experimentTaskCompleteListener.notify(this, activityTask, e);
-                    return null;
-                }, executor).handleAsync((r, e) -> {
-                    if (e != null) {
-                        log.error("complete listener notify error!", e);
-                    }
-                    return null;
-                });
+    /**
+     * run the task, its next tasks are scheduled once it is done
+     *
+     * @param error fails the task without running it
+     */
+    private void execute(ActivityTaskExecutePipeline activityTaskExecutePipeline, TaskNode<ActivityTask> node, Throwable error) {
+        ActivityTask activityTask = node.getTask();
+        activityTask.future().whenComplete((r, e) -> {
+            List<TaskNode<ActivityTask>> runnable = activityTaskExecutePipeline.complete(node, e, activityParallelism);
+            if (activityTaskExecutePipeline.isDone()) {
+                complete(activityTaskExecutePipeline);
             }
+            runnable.forEach(next -> execute(activityTaskExecutePipeline, next, null));
+        });
+        if (error != null) {
+            activityTaskHandlerStrategyContext.postHandle(activityTask, error);
+            return;
+        }
 
-            if (internalTask.prev() != null) {
-                String prePhase = internalTask.prev().getTask().getPhase();
-                String nextPhase = internalTask.getTask().getPhase();
-                if (!prePhase.equals(nextPhase)) {
-                    TaskLogUtil.info(log, TaskLogType.EXPERIMENT_PHASE_TRANSFER, activityTask.getExperimentTaskId(),
-                            prePhase, nextPhase);
-                    return;
-                }
+        for (TaskNode<ActivityTask> prev : node.prev()) {
+            String prePhase = prev.getTask().getPhase();
+            if (!prePhase.equals(activityTask.getPhase())) {
+                TaskLogUtil.info(log, TaskLogType.EXPERIMENT_PHASE_TRANSFER, activityTask.getExperimentTaskId(),
+                        prePhase, activityTask.getPhase());
+                break;
             }
+        }
+        try {
             executeActivityTask(activityTask);
         } catch (Throwable throwable) {
             log.error("fireExecute error!", throwable);
-            activityTaskHandlerStrategyContext.postHandle(
-                    internalTask.getTask(),
-                    throwable);
+            activityTaskHandlerStrategyContext.postHandle(activityTask, throwable);
+        }
+    }
+
+    private void complete(ActivityTaskExecutePipeline activityTaskExecutePipeline) {
+        ExperimentTaskCompleteListener experimentTaskCompleteListener = taskCompleteListenerMap.remove(activityTaskExecutePipeline);
+        if (experimentTaskCompleteListener == null) {
+            return;
         }
+        ActivityTask activityTask = activityTaskExecutePipeline.tail().getTask();
+        Throwable e = activityTaskExecutePipeline.error();
+        CompletableFuture.runAsync(() -> experimentTaskCompleteListener.notify(this, activityTask, e), executor)
+                .whenComplete((r, throwable) -> {
+                    if (throwable != null) {
+                        log.error("complete listener notify error!", throwable);
+                    }
+                });
+    }
+
+    private void removeListeners(ActivityTaskExecutePipeline activityTaskExecutePipeline) {
+        taskStartListenerMap.remove(activityTaskExecutePipeline);
+        taskCompleteListenerMap.remove(activityTaskExecutePipeline);
     }
 
     @Override
@@ -0,0 +1,360 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.task;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
+import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
+import com.alibaba.chaosblade.box.common.enums.ResultStatus;
+import com.alibaba.chaosblade.box.common.enums.RunStatus;
+import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskDO;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
+import com.alibaba.chaosblade.box.dao.model.ExperimentDO;
+import com.alibaba.chaosblade.box.dao.model.ExperimentTaskDO;
+import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRecordRepository;
+import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRepository;
+import com.alibaba.chaosblade.box.dao.repository.ExperimentRepository;
+import com.alibaba.chaosblade.box.dao.repository.ExperimentTaskRepository;
+import com.alibaba.chaosblade.box.invoker.http.ChaosBladeStatusHttpInvoker;
+import com.alibaba.chaosblade.box.invoker.http.model.reuest.HttpChannelRequest;
+import com.alibaba.chaosblade.box.service.ExperimentActivityTaskService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Resumes the experiment tasks left by a stopped or crashed replica. A task is leased by the replica
+ * running it, in t_chaos_experiment_task, and the leases are renewed every third of the lease time.
+ * At startup and on every renewal, the unfinished leased tasks whose lease expired are taken over:
+ * <ul>
+ *     <li>not attacked yet, the activity tasks not finished are run again, but the recover ones</li>
+ *     <li>attacked, the faults are checked on the agents, the experiment resumes when they are all
+ *     still injected, otherwise it is stopped and recovered</li>
+ *     <li>stopping or interrupted during the attack, the recover activities are run again</li>
+ * </ul>
+ * The ready or running tasks never leased, left by a box before the leases, are marked interrupted at startup.
+ *
+ * @author yefei
+ */
+@Slf4j
+@Component
+public class ExperimentTaskRecovery implements InitializingBean, DisposableBean {
+
+    private static final String INTERRUPTED = "interrupted, the box restarted";
+
+    @Autowired
+    private ExperimentRepository experimentRepository;
+
+    @Autowired
+    private ExperimentTaskRepository experimentTaskRepository;
+
+    @Autowired
+    private ExperimentActivityTaskRepository experimentActivityTaskRepository;
+
+    @Autowired
+    private ExperimentActivityTaskRecordRepository experimentActivityTaskRecordRepository;
+
+    @Autowired
+    private ExperimentActivityTaskService experimentActivityTaskService;
+
+    @Autowired
+    private ActivityTaskExecuteContext activityTaskExecuteContext;
+
+    @Autowired
+    private ChaosBladeStatusHttpInvoker chaosBladeStatusHttpInvoker;
+
+    @Value("${chaos.experiment.leaseSeconds:30}")
+    private Integer leaseSeconds;
+
+    @Value("${chaos.agent.port}")
+    private int chaosAgentPort;
+
+    private final String replica = NetUtil.getLocalHostName() + "-" + IdUtil.fastSimpleUUID().substring(0, 8);
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("experiment task recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.execute(this::interruptUnleased);
+        scheduledExecutorService.scheduleWithFixedDelay(this::renew, 0,
+                Math.max(1, leaseSeconds / 3), TimeUnit.SECONDS);
+        log.info("experiment task replica: {}", replica);
+    }
+
+    /**
+     * the leases are not given back, the tasks still running are taken over once they expired
+     */
+    @Override
+    public void destroy() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * lease a new task to this replica, before it is inserted
+     */
+    public void lease(ExperimentTaskDO experimentTaskDO) {
+        experimentTaskDO.setLeaseOwner(replica);
+        experimentTaskDO.setLeaseExpireTime(DateUtil.offsetSecond(DateUtil.date(), leaseSeconds));
+    }
+
+    /**
+     * the task is run by this replica from now on
+     */
+    public void own(Long experimentTaskId) {
+        experimentTaskRepository.takeLease(experimentTaskId, replica, leaseSeconds);
+    }
+
+    private void renew() {
+        try {
+            experimentTaskRepository.renewLeases(replica, leaseSeconds);
+            for (Long experimentTaskId : experimentTaskRepository.selectOrphanIds()) {
+                if (!experimentTaskRepository.acquireLease(experimentTaskId, replica, leaseSeconds)) {
+                    continue;
+                }
+                try {
+                    recover(experimentTaskId);
+                } catch (Exception e) {
+                    log.error("recover experiment task fail, task: {}", experimentTaskId, e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("renew experiment task lease fail", e);
+        }
+    }
+
+    /**
+     * the tasks left by a box before the leases are not known to be resumable, they are marked interrupted
+     * instead of attacked again
+     */
+    private void interruptUnleased() {
+        try {
+            for (Long experimentTaskId : experimentTaskRepository.selectUnleasedIds()) {
+                log.info("interrupt experiment task not leased, task: {}", experimentTaskId);
+                for (ExperimentActivityTaskDO activityTask : experimentActivityTaskRepository.selectByTaskId(experimentTaskId)) {
+                    if (RunStatus.FINISHED.getValue() != activityTask.getRunStatus()) {
+                        finish(activityTask);
+                    }
+                }
+                experimentTaskRepository.updateByPrimaryKey(experimentTaskId, ExperimentTaskDO.builder()
+                        .runStatus(RunStatus.FINISHED.getValue())
+                        .resultStatus(ResultStatus.ERROR.getValue())
+                        .errorMessage(INTERRUPTED)
+                        .gmtEnd(DateUtil.date())
+                        .build());
+            }
+        } catch (Exception e) {
+            log.error("interrupt experiment tasks not leased fail", e);
+        }
+    }
+
+    private void recover(Long experimentTaskId) {
+        ExperimentTaskDO experimentTask = experimentTaskRepository.selectById(experimentTaskId).orElse(null);
+        if (experimentTask == null || RunStatus.FINISHED.getValue() == experimentTask.getRunStatus()) {
+            return;
+        }
+        List<ExperimentActivityTaskDO> activityTasks = experimentActivityTaskRepository.selectByTaskId(experimentTaskId);
+
+        if (RunStatus.STOPPING.getValue() == experimentTask.getRunStatus()) {
+            log.info("resume recovering experiment task, task: {}", experimentTaskId);
+            execute(experimentTask, activityTasks.stream().filter(this::isRecover).collect(Collectors.toList()));
+            return;
+        }
+
+        List<ExperimentActivityTaskDO> attacks = activityTasks.stream()
+                .filter(activityTask -> ChaosConstant.PHASE_ATTACK.equals(activityTask.getPhase()))
+                .filter(activityTask -> RunStatus.READY.getValue() != activityTask.getRunStatus())
+                .collect(Collectors.toList());
+        if (attacks.isEmpty()) {
+            log.info("resume experiment task, not attacked yet, task: {}", experimentTaskId);
+            resume(experimentTask, activityTasks);
+            return;
+        }
+        if (attacks.stream().anyMatch(this::isRunning)) {
+            log.info("recover experiment task, interrupted during the attack, task: {}", experimentTaskId);
+            stop(experimentTask, activityTasks);
+            return;
+        }
+
+        injected(experimentTask, attacks).thenAcceptAsync(injected -> {
+            if (injected) {
+                log.info("resume experiment task, faults still injected, task: {}", experimentTaskId);
+                resume(experimentTask, activityTasks);
+            } else {
+                log.info("recover experiment task, faults not injected any more, task: {}", experimentTaskId);
+                stop(experimentTask, activityTasks);
+            }
+        }, activityTaskExecuteContext.executor()).exceptionally(e -> {
+            log.error("recover experiment task fail, task: {}", experimentTaskId, e);
+            return null;
+        });
+    }
+
+    /**
+     * whether every fault of the attacks is still injected, asked to the agents of the hosts,
+     * the ones of kubernetes are kept by the cluster
+     */
+    private CompletableFuture<Boolean> injected(ExperimentTaskDO experimentTask, List<ExperimentActivityTaskDO> attacks) {
+        String dimension = experimentRepository.selectById(experimentTask.getExperimentId())
+                .map(ExperimentDO::getDimension)
+                .orElse(null);
+        if (!ExperimentDimension.HOST.name().equalsIgnoreCase(dimension)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        List<CompletableFuture<Boolean>> futures = attacks.stream()
+                .flatMap(attack -> experimentActivityTaskRecordRepository.selectActivityTaskId(attack.getId()).stream())
+                .filter(record -> Boolean.TRUE.equals(record.getSuccess()) && StrUtil.isNotBlank(record.getResult()))
+                .map(this::injected)
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    private CompletableFuture<Boolean> injected(ExperimentActivityTaskRecordDO record) {
+        HttpChannelRequest request = new HttpChannelRequest();
+        request.setHost(record.getIp());
+        request.setPort(chaosAgentPort);
+        request.setType("create");
+        request.setName(record.getResult());
+        request.setDeadline(System.currentTimeMillis() + leaseSeconds * 1000L);
+        return chaosBladeStatusHttpInvoker.invoke(request).handle((response, e) -> {
+            if (e != null || !response.isSuccess()) {
+                log.warn("fault status unknown, host: {}, uid: {}", record.getIp(), record.getResult(), e);
+                return false;
+            }
+            try {
+                Map<String, Object> status = JsonUtils.readValue(new TypeReference<Map<String, Object>>() {
+                }, response.getResult());
+                return "Success".equals(status.get("Status"));
+            } catch (Exception exception) {
+                log.warn("fault status unknown, host: {}, uid: {}, result: {}", record.getIp(), record.getResult(),
+                        response.getResult());
+                return false;
+            }
+        });
+    }
+
+    /**
+     * stop the experiment task, its recover activities destroy the faults
+     */
+    private void stop(ExperimentTaskDO experimentTask, List<ExperimentActivityTaskDO> activityTasks) {
+        experimentTaskRepository.updateByPrimaryKey(experimentTask.getId(), ExperimentTaskDO.builder()
+                .runStatus(RunStatus.STOPPING.getValue())
+                .build());
+        experimentTask.setRunStatus(RunStatus.STOPPING.getValue());
+
+        for (ExperimentActivityTaskDO activityTask : activityTasks) {
+            if (isRecover(activityTask) || RunStatus.FINISHED.getValue() == activityTask.getRunStatus()) {
+                continue;
+            }
+            finish(activityTask);
+        }
+        execute(experimentTask, activityTasks.stream().filter(this::isRecover).collect(Collectors.toList()));
+    }
+
+    /**
+     * the running activity task is interrupted, the ready one skipped
+     */
+    private void finish(ExperimentActivityTaskDO activityTask) {
+        boolean running = isRunning(activityTask);
+        if (running) {
+            interrupt(activityTask);
+        }
+        experimentActivityTaskRepository.updateByPrimaryKey(activityTask.getId(), ExperimentActivityTaskDO.builder()
+                .runStatus(RunStatus.FINISHED.getValue())
+                .resultStatus(running ? ResultStatus.ERROR.getValue() : ResultStatus.REJECTED.getValue())
+                .errorMessage(running ? INTERRUPTED : null)
+                .gmtEnd(running ? DateUtil.date() : null)
+                .build());
+    }
+
+    /**
+     * run the activity tasks not finished before the recover phase again, the task stays running and leased
+     * until it is stopped, the recover phase only runs then
+     */
+    private void resume(ExperimentTaskDO experimentTask, List<ExperimentActivityTaskDO> activityTasks) {
+        execute(experimentTask, activityTasks.stream()
+                .filter(activityTask -> !isRecover(activityTask))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * run the activity tasks not finished again, the ones interrupted first
+     */
+    private void execute(ExperimentTaskDO experimentTask, List<ExperimentActivityTaskDO> activityTasks) {
+        List<ExperimentActivityTaskDO> unfinished = activityTasks.stream()
+                .filter(activityTask -> RunStatus.FINISHED.getValue() != activityTask.getRunStatus())
+                .collect(Collectors.toList());
+        for (ExperimentActivityTaskDO activityTask : unfinished) {
+            if (isRunning(activityTask)) {
+                interrupt(activityTask);
+                experimentActivityTaskRepository.updateByPrimaryKey(activityTask.getId(), ExperimentActivityTaskDO.builder()
+                        .runStatus(RunStatus.READY.getValue())
+                        .build());
+                activityTask.setRunStatus(RunStatus.READY.getValue());
+            }
+        }
+        if (!unfinished.isEmpty()) {
+            experimentActivityTaskService.executeActivityTasks(unfinished, experimentTask);
+        }
+    }
+
+    /**
+     * the records without result are not known to have succeeded, their faults are destroyed by flags
+     */
+    private void interrupt(ExperimentActivityTaskDO activityTask) {
+        for (ExperimentActivityTaskRecordDO record : experimentActivityTaskRecordRepository.selectActivityTaskId(activityTask.getId())) {
+            if (record.getSuccess() == null) {
+                experimentActivityTaskRecordRepository.updateByPrimaryKey(record.getId(), ExperimentActivityTaskRecordDO.builder()
+                        .success(false)
+                        .errorMessage(INTERRUPTED)
+                        .gmtEnd(DateUtil.date())
+                        .build());
+            }
+        }
+    }
+
+    private boolean isRecover(ExperimentActivityTaskDO activityTask) {
+        return ChaosConstant.PHASE_RECOVER.equals(activityTask.getPhase());
+    }
+
+    private boolean isRunning(ExperimentActivityTaskDO activityTask) {
+        return RunStatus.RUNNING.getValue() == activityTask.getRunStatus();
+    }
+}
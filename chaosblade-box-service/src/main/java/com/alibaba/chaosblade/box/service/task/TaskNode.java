@@ -16,6 +16,8 @@
 
 package com.alibaba.chaosblade.box.service.task;
 
+import java.util.List;
+
 /**
  * @author yefei
  */
@@ -23,15 +25,15 @@ public interface TaskNode<T> {
 
     /**
      *
-     * @return
+     * @return the tasks depending on this one
      */
-    TaskNode<T> next();
+    List<TaskNode<T>> next();
 
     /**
      *
-     * @return
+     * @return the tasks this one depends on
      */
-    TaskNode<T> prev();
+    List<TaskNode<T>> prev();
 
     /**
      *
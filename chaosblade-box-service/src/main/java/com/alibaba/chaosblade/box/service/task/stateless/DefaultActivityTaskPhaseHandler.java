@@ -35,6 +35,8 @@ import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRepositor
 import com.alibaba.chaosblade.box.dao.repository.ExperimentTaskRepository;
 import com.alibaba.chaosblade.box.invoker.http.model.reuest.HttpChannelRequest;
 import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategyContext;
+import com.alibaba.chaosblade.box.invoker.Deadlines;
+import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.invoker.ResponseCommand;
 import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogType;
 import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogUtil;
@@ -44,9 +46,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.alibaba.chaosblade.box.common.exception.ExceptionMessageEnum.EXPERIMENT_SUB_TASK_NOT_FOUNT;
 import static com.alibaba.chaosblade.box.common.exception.ExceptionMessageEnum.EXPERIMENT_TASK_NOT_FOUNT;
@@ -71,6 +80,15 @@ public class DefaultActivityTaskPhaseHandler implements ActivityTaskHandler {
     @Value("${chaos.agent.port}")
     protected int chaosAgentPort;
 
+    @Value("${chaos.experiment.invokeConcurrency:100}")
+    protected int invokeConcurrency;
+
+    /**
+     * seconds, the default budget of an activity task
+     */
+    @Value("${chaos.experiment.invokeTimeout:300}")
+    protected long invokeTimeout;
+
     @Autowired
     protected ChaosInvokerStrategyContext chaosInvokerStrategyContext;
 
@@ -131,11 +149,10 @@ public class DefaultActivityTaskPhaseHandler implements ActivityTaskHandler {
             return;
         }
 
-        List<CompletableFuture<ResponseCommand>> futures = CollUtil.newArrayList();
-
+        List<ExperimentActivityTaskRecordDO> records = CollUtil.newArrayList();
+        List<RequestCommand> requests = CollUtil.newArrayList();
         for (DeviceMeta deviceMeta : activityTask.getDeviceMetas()) {
-
-            final ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO = ExperimentActivityTaskRecordDO.builder()
+            records.add(ExperimentActivityTaskRecordDO.builder()
                     .ip(deviceMeta.getIp())
                     .deviceId(deviceMeta.getDeviceId())
                     .hostname(deviceMeta.getHostname())
@@ -145,8 +162,7 @@ public class DefaultActivityTaskPhaseHandler implements ActivityTaskHandler {
                     .sceneCode(activityTask.getSceneCode())
                     .gmtStart(DateUtil.date())
                     .phase(activityTask.getPhase())
-                    .build();
-            experimentActivityTaskRecordRepository.insert(experimentActivityTaskRecordDO);
+                    .build());
 
             ExperimentDimension experimentDimension = activityTask.getExperimentDimension();
             HttpChannelRequest requestCommand = new HttpChannelRequest();
@@ -157,67 +173,104 @@ public class DefaultActivityTaskPhaseHandler implements ActivityTaskHandler {
             requestCommand.setPort(chaosAgentPort);
             requestCommand.setPhase(activityTask.getPhase());
             requestCommand.setSceneCode(activityTask.getSceneCode());
-
-            CompletableFuture<ResponseCommand> invoke = chaosInvokerStrategyContext.invoke(requestCommand);
-            futures.add(invoke.handleAsync((result, e) -> {
-                ExperimentActivityTaskRecordDO record = ExperimentActivityTaskRecordDO.builder().gmtEnd(DateUtil.date()).build();
-                if (e != null) {
-                    record.setSuccess(false);
-                    record.setErrorMessage(e.getMessage());
-                } else {
-                    record.setSuccess(result.isSuccess());
-                    record.setCode(result.getCode());
-                    record.setResult(result.getResult());
-                    record.setErrorMessage(result.getError());
-
-                    if (!result.isSuccess()) {
-                        if (StrUtil.isNotBlank(result.getError())) {
-                            e = new BizException(result.getError());
-                        } else {
-                            e = new BizException(result.getResult());
-                        }
-                    }
-                }
-                experimentActivityTaskRecordRepository.updateByPrimaryKey(experimentActivityTaskRecordDO.getId(), record);
-                TaskLogUtil.info(log, TaskLogType.SUB_EXECUTE_EXECUTING, activityTask.getExperimentTaskId(),
-                        activityTask.getPhase(),
-                        String.valueOf(activityTask.getActivityTaskId()),
-                        deviceMeta.getHostname() + "-" + deviceMeta.getIp(),
-                        String.valueOf(record.getSuccess()),
-                        record.getErrorMessage()
-                );
-
-                if (e != null) {
-                    AnyThrow.throwUnchecked(e);
-                }
-                return null;
-            }, activityTaskExecuteContext.executor()));
+            requests.add(requestCommand);
         }
 
-        CompletableFuture<Void> future = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        CompletableFuture<Void> future = invokeAll(activityTask, records, requests);
 
         future.handleAsync((r, e) -> {
             postHandle(activityTask, e);
             return null;
         }, activityTaskExecuteContext.executor());
+    }
 
-        // 执行后等待, 同步执行后续所有任务
-        Long waitOfAfter = activityTask.getWaitOfAfter();
-        if (waitOfAfter != null) {
+    /**
+     * insert the records in batches, then invoke the requests through a bounded window,
+     * each record is updated as its response arrives
+     *
+     * @param records  one record per request, in the same order
+     * @param requests
+     * @return completes exceptionally if any request fails or misses the deadline
+     */
+    protected CompletableFuture<Void> invokeAll(ActivityTask activityTask,
+                                                List<ExperimentActivityTaskRecordDO> records,
+                                                List<RequestCommand> requests) {
+        Map<RequestCommand, List<ExperimentActivityTaskRecordDO>> recordMap = new IdentityHashMap<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            recordMap.put(requests.get(i), Collections.singletonList(records.get(i)));
+        }
+        return invokeAll(activityTask, recordMap);
+    }
 
-            TaskLogUtil.info(log, TaskLogType.EXPERIMENT_WAIT_OF_AFTER, activityTask.getExperimentTaskId(),
+    /**
+     * the same as above, but several records may share one request and all take its response
+     *
+     * @param recordMap the records of each request
+     */
+    protected CompletableFuture<Void> invokeAll(ActivityTask activityTask,
+                                                Map<RequestCommand, List<ExperimentActivityTaskRecordDO>> recordMap) {
+        experimentActivityTaskRecordRepository.insertBatch(recordMap.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
+
+        List<RequestCommand> requests = new ArrayList<>(recordMap.keySet());
+        long deadline = deadline(activityTask);
+        requests.forEach(request -> request.setDeadline(deadline));
+
+        Queue<CompletableFuture<Void>> updates = new ConcurrentLinkedQueue<>();
+        CompletableFuture<Void> invoked = chaosInvokerStrategyContext.invokeAll(requests, invokeConcurrency,
+                Math.max(1, Deadlines.remaining(deadline)),
+                (request, result, e) -> updates.add(CompletableFuture.runAsync(() ->
+                                complete(activityTask, recordMap.get(request), result, e),
+                        activityTaskExecuteContext.executor())));
+
+        return invoked.thenCompose(v -> CompletableFuture.allOf(updates.toArray(new CompletableFuture[0])));
+    }
+
+    /**
+     * the budget of the activity task starts when its requests are sent
+     *
+     * @return epoch millis
+     */
+    protected long deadline(ActivityTask activityTask) {
+        long budget = activityTask.getTimeout() != null ? activityTask.getTimeout() : TimeUnit.SECONDS.toMillis(invokeTimeout);
+        return System.currentTimeMillis() + budget;
+    }
+
+    private void complete(ActivityTask activityTask, List<ExperimentActivityTaskRecordDO> records,
+                          ResponseCommand result, Throwable e) {
+        ExperimentActivityTaskRecordDO record = ExperimentActivityTaskRecordDO.builder().gmtEnd(DateUtil.date()).build();
+        if (e != null) {
+            record.setSuccess(false);
+            record.setErrorMessage(e.getMessage());
+        } else {
+            record.setSuccess(result.isSuccess());
+            record.setCode(result.getCode());
+            record.setResult(result.getResult());
+            record.setErrorMessage(result.getError());
+
+            if (!result.isSuccess()) {
+                if (StrUtil.isNotBlank(result.getError())) {
+                    e = new BizException(result.getError());
+                } else {
+                    e = new BizException(result.getResult());
+                }
+            }
+        }
+        for (ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO : records) {
+            experimentActivityTaskRecordRepository.updateByPrimaryKey(experimentActivityTaskRecordDO.getId(), record);
+
+            TaskLogUtil.info(log, TaskLogType.SUB_EXECUTE_EXECUTING, activityTask.getExperimentTaskId(),
+                    activityTask.getPhase(),
                     String.valueOf(activityTask.getActivityTaskId()),
-                    String.valueOf(waitOfAfter)
+                    experimentActivityTaskRecordDO.getHostname() + "-" + experimentActivityTaskRecordDO.getIp(),
+                    String.valueOf(record.getSuccess()),
+                    record.getErrorMessage()
             );
+        }
 
-            activityTaskExecuteContext.timer().newTimeout(timeout ->
-                            future.thenRunAsync(
-                                    () -> activityTaskExecuteContext.fireExecute(activityTask.getActivityTaskExecutePipeline()),
-                                    activityTaskExecuteContext.executor()),
-                    waitOfAfter,
-                    TimeUnit.MILLISECONDS);
-        } else {
-            activityTaskExecuteContext.fireExecute(activityTask.getActivityTaskExecutePipeline());
+        if (e != null) {
+            AnyThrow.throwUnchecked(e);
         }
     }
 
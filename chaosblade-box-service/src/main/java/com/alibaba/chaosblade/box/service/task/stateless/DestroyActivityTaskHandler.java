@@ -27,11 +27,10 @@ import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
 import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
 import com.alibaba.chaosblade.box.common.enums.RunStatus;
 import com.alibaba.chaosblade.box.common.exception.BizException;
-import com.alibaba.chaosblade.box.common.utils.AnyThrow;
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
 import com.alibaba.chaosblade.box.dao.model.ExperimentTaskDO;
 import com.alibaba.chaosblade.box.invoker.http.model.reuest.HttpChannelRequest;
-import com.alibaba.chaosblade.box.invoker.ResponseCommand;
+import com.alibaba.chaosblade.box.invoker.RequestCommand;
 import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogType;
 import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -79,9 +78,10 @@ public class DestroyActivityTaskHandler extends DefaultActivityTaskPhaseHandler
                 sceneCode.replace(".stop", "")
         );
 
-        List<CompletableFuture<ResponseCommand>> futures = CollUtil.newArrayList();
+        List<ExperimentActivityTaskRecordDO> recoverRecords = CollUtil.newArrayList();
+        List<RequestCommand> requests = CollUtil.newArrayList();
         for (ExperimentActivityTaskRecordDO record : records) {
-            final ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO = ExperimentActivityTaskRecordDO.builder()
+            recoverRecords.add(ExperimentActivityTaskRecordDO.builder()
                     .ip(record.getIp())
                     .deviceId(record.getDeviceId())
                     .hostname(record.getHostname())
@@ -91,8 +91,7 @@ public class DestroyActivityTaskHandler extends DefaultActivityTaskPhaseHandler
                     .sceneCode(activityTask.getSceneCode())
                     .gmtStart(DateUtil.date())
                     .phase(activityTask.getPhase())
-                    .build();
-            experimentActivityTaskRecordRepository.insert(experimentActivityTaskRecordDO);
+                    .build());
 
             ExperimentDimension experimentDimension = activityTask.getExperimentDimension();
             HttpChannelRequest requestCommand = new HttpChannelRequest();
@@ -106,52 +105,15 @@ public class DestroyActivityTaskHandler extends DefaultActivityTaskPhaseHandler
             if (record.getSuccess()) {
                 requestCommand.setName(record.getResult());
             }
-
-            CompletableFuture<ResponseCommand> invoke = chaosInvokerStrategyContext.invoke(requestCommand);
-            futures.add(invoke.handleAsync((result, e) -> {
-                ExperimentActivityTaskRecordDO recordDO = ExperimentActivityTaskRecordDO.builder().gmtEnd(DateUtil.date()).build();
-                if (e != null) {
-                    recordDO.setSuccess(false);
-                    recordDO.setErrorMessage(e.getMessage());
-                } else {
-                    recordDO.setSuccess(result.isSuccess());
-                    recordDO.setCode(result.getCode());
-                    recordDO.setResult(result.getResult());
-                    recordDO.setErrorMessage(result.getError());
-
-                    if (!result.isSuccess()) {
-                        if (StrUtil.isNotBlank(result.getError())) {
-                            e = new BizException(result.getError());
-                        } else {
-                            e = new BizException(result.getResult());
-                        }
-                    }
-                }
-                experimentActivityTaskRecordRepository.updateByPrimaryKey(experimentActivityTaskRecordDO.getId(), recordDO);
-
-                TaskLogUtil.info(log, TaskLogType.SUB_EXECUTE_EXECUTING, activityTask.getExperimentTaskId(),
-                        activityTask.getPhase(),
-                        String.valueOf(activityTask.getActivityTaskId()),
-                        record.getHostname() + "-" + record.getIp(),
-                        String.valueOf(record.getSuccess()),
-                        record.getErrorMessage()
-                );
-
-                if (e != null) {
-                    AnyThrow.throwUnchecked(e);
-                }
-                return null;
-            }, activityTaskExecuteContext.executor()));
+            requests.add(requestCommand);
         }
 
-        CompletableFuture<Void> future = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        CompletableFuture<Void> future = invokeAll(activityTask, recoverRecords, requests);
 
         future.handleAsync((r, e) -> {
             postHandle(activityTask, e);
             return null;
         }, activityTaskExecuteContext.executor());
-
-        activityTaskExecuteContext.fireExecute(activityTask.getActivityTaskExecutePipeline());
     }
 
     @Override
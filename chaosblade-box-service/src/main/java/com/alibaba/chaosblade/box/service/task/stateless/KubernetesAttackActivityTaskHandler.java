@@ -16,30 +16,28 @@
 
 package com.alibaba.chaosblade.box.service.task.stateless;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.chaosblade.box.dao.model.ClusterDO;
-import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
-import com.alibaba.chaosblade.box.service.task.ActivityTask;
-import com.alibaba.chaosblade.box.service.task.ActivityTaskExecuteContext;
+import com.alibaba.chaosblade.box.common.DeviceMeta;
 import com.alibaba.chaosblade.box.common.TaskLogRecord;
 import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
 import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
-import com.alibaba.chaosblade.box.common.exception.BizException;
-import com.alibaba.chaosblade.box.common.utils.JsonUtils;
+import com.alibaba.chaosblade.box.dao.model.ClusterDO;
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRecordRepository;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRepository;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentTaskRepository;
-import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategyContext;
+import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
-import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogType;
-import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogUtil;
-import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.alibaba.chaosblade.box.service.task.ActivityTask;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author yefei
  */
@@ -53,21 +51,6 @@ import org.springframework.stereotype.Component;
 })
 public class KubernetesAttackActivityTaskHandler extends AttackActivityTaskHandler {
 
-    @Autowired
-    protected ExperimentActivityTaskRecordRepository experimentActivityTaskRecordRepository;
-
-    @Autowired
-    protected ExperimentActivityTaskRepository experimentActivityTaskRepository;
-
-    @Autowired
-    protected ExperimentTaskRepository experimentTaskRepository;
-
-    @Autowired
-    private ChaosInvokerStrategyContext chaosInvokerStrategyContext;
-
-    @Autowired
-    private ActivityTaskExecuteContext activityTaskExecuteContext;
-
     @Autowired
     private ClusterRepository clusterRepository;
 
@@ -76,8 +59,17 @@ public class KubernetesAttackActivityTaskHandler extends AttackActivityTaskHandl
         if (!activityTask.canExecuted()) {
             return;
         }
-        activityTask.getDeviceMetas().forEach((deviceMeta -> {
-            ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO = ExperimentActivityTaskRecordDO.builder()
+
+        String config = clusterRepository
+                .selectById(activityTask.getDeviceMetas().get(0).getClusterId())
+                .map(ClusterDO::getConfig)
+                .orElse(null);
+
+        Map<RequestCommand, List<ExperimentActivityTaskRecordDO>> recordMap = new IdentityHashMap<>();
+        List<ExperimentActivityTaskRecordDO> shared = CollUtil.newArrayList();
+        boolean each = activityTask.getDeviceMetas().stream().allMatch(deviceMeta -> StrUtil.isNotBlank(name(activityTask, deviceMeta)));
+        for (DeviceMeta deviceMeta : activityTask.getDeviceMetas()) {
+            ExperimentActivityTaskRecordDO record = ExperimentActivityTaskRecordDO.builder()
                     .experimentTaskId(activityTask.getExperimentTaskId())
                     .flowId(activityTask.getFlowId())
                     .deviceId(deviceMeta.getDeviceId())
@@ -88,61 +80,57 @@ public class KubernetesAttackActivityTaskHandler extends AttackActivityTaskHandl
                     .gmtStart(DateUtil.date())
                     .phase(activityTask.getPhase())
                     .build();
-            experimentActivityTaskRecordRepository.insert(experimentActivityTaskRecordDO);
-        }));
+            if (each) {
+                recordMap.put(request(activityTask, arguments(activityTask, deviceMeta), config), Collections.singletonList(record));
+            } else {
+                shared.add(record);
+            }
+        }
+        // a device without a name can not be matched alone, the activity is sent as one request
+        if (!shared.isEmpty()) {
+            recordMap.put(request(activityTask, activityTask.getArguments(), config), shared);
+        }
+
+        invokeAll(activityTask, recordMap).handleAsync((r, e) -> {
+            postHandle(activityTask, e);
+            return null;
+        }, activityTaskExecuteContext.executor());
+    }
 
-        ExperimentDimension experimentDimension = activityTask.getExperimentDimension();
+    private RequestCommand request(ActivityTask activityTask, Map<String, String> arguments, String config) {
         RequestCommand requestCommand = new RequestCommand();
-        requestCommand.setScope(experimentDimension.name().toLowerCase());
+        requestCommand.setScope(activityTask.getExperimentDimension().name().toLowerCase());
         requestCommand.setPhase(activityTask.getPhase());
         requestCommand.setSceneCode(activityTask.getSceneCode());
-        requestCommand.setArguments(activityTask.getArguments());
-        requestCommand.setConfig(clusterRepository
-                .selectById(activityTask.getDeviceMetas().get(0).getClusterId())
-                .map(ClusterDO::getConfig)
-                .orElse(null));
-
-        chaosInvokerStrategyContext.invoke(requestCommand).handleAsync((result, e) -> {
-            try {
-                ExperimentActivityTaskRecordDO record = ExperimentActivityTaskRecordDO.builder().gmtEnd(DateUtil.date()).build();
-                if (e != null) {
-                    record.setSuccess(false);
-                    record.setErrorMessage(e.getMessage());
-                } else {
-                    record.setSuccess(result.isSuccess());
-                    record.setCode(result.getCode());
-                    record.setResult(result.getResult());
-                    record.setErrorMessage(result.getError());
-
-                    if (!result.isSuccess()) {
-                        if (StrUtil.isNotBlank(result.getError())) {
-                            e = new BizException(result.getError());
-                        } else {
-                            e = new BizException(result.getResult());
-                        }
-                    }
-                }
-                UpdateWrapper<ExperimentActivityTaskRecordDO> wrapper = new UpdateWrapper<>();
-                wrapper.lambda().eq(ExperimentActivityTaskRecordDO::getActivityTaskId, activityTask.getActivityTaskId());
-                experimentActivityTaskRecordRepository.update(record, wrapper);
-
-                TaskLogUtil.info(log, TaskLogType.SUB_EXECUTE_EXECUTING, activityTask.getExperimentTaskId(),
-                        activityTask.getPhase(),
-                        String.valueOf(activityTask.getActivityTaskId()),
-                        JsonUtils.writeValueAsString(activityTask.getDeviceMetas()),
-                        String.valueOf(record.getSuccess()),
-                        record.getErrorMessage()
-                );
+        requestCommand.setArguments(arguments);
+        // the requests of this activity share a ChaosBlade, its recover activity deletes it
+        requestCommand.setCoalesceKey(String.valueOf(activityTask.getActivityTaskId()));
+        requestCommand.setConfig(config);
+        return requestCommand;
+    }
 
-            } catch (Exception exception) {
-                e = exception;
-            } finally {
-                postHandle(activityTask, e);
+    /**
+     * the arguments of the activity, matching only this device
+     */
+    private Map<String, String> arguments(ActivityTask activityTask, DeviceMeta deviceMeta) {
+        Map<String, String> arguments = new HashMap<>();
+        if (activityTask.getArguments() != null) {
+            arguments.putAll(activityTask.getArguments());
+        }
+        arguments.put("names", name(activityTask, deviceMeta));
+        if (activityTask.getExperimentDimension() != ExperimentDimension.NODE) {
+            if (StrUtil.isNotBlank(deviceMeta.getNamespace())) {
+                arguments.put("namespace", deviceMeta.getNamespace());
             }
-            return null;
-        }, activityTaskExecuteContext.executor());
+            if (StrUtil.isNotBlank(deviceMeta.getContainerName())) {
+                arguments.put("container-names", deviceMeta.getContainerName());
+            }
+        }
+        return arguments;
+    }
 
-        activityTaskExecuteContext.fireExecute(activityTask.getActivityTaskExecutePipeline());
+    private String name(ActivityTask activityTask, DeviceMeta deviceMeta) {
+        return activityTask.getExperimentDimension() == ExperimentDimension.NODE ? deviceMeta.getNodeName() : deviceMeta.getPodName();
     }
 
 }
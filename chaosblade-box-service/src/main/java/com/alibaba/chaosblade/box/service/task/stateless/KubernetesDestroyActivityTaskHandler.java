@@ -18,29 +18,23 @@ package com.alibaba.chaosblade.box.service.task.stateless;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.chaosblade.box.common.utils.JsonUtils;
-import com.alibaba.chaosblade.box.dao.model.ClusterDO;
-import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
-import com.alibaba.chaosblade.box.service.task.ActivityTask;
-import com.alibaba.chaosblade.box.service.task.ActivityTaskExecuteContext;
 import com.alibaba.chaosblade.box.common.TaskLogRecord;
 import com.alibaba.chaosblade.box.common.constants.ChaosConstant;
 import com.alibaba.chaosblade.box.common.enums.ExperimentDimension;
-import com.alibaba.chaosblade.box.common.exception.BizException;
+import com.alibaba.chaosblade.box.dao.model.ClusterDO;
 import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskRecordDO;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRecordRepository;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentActivityTaskRepository;
-import com.alibaba.chaosblade.box.dao.repository.ExperimentTaskRepository;
-import com.alibaba.chaosblade.box.invoker.ChaosInvokerStrategyContext;
+import com.alibaba.chaosblade.box.dao.repository.ClusterRepository;
 import com.alibaba.chaosblade.box.invoker.RequestCommand;
-import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogType;
-import com.alibaba.chaosblade.box.service.task.log.i18n.TaskLogUtil;
-import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.alibaba.chaosblade.box.service.task.ActivityTask;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author yefei
@@ -55,21 +49,6 @@ import java.util.List;
 })
 public class KubernetesDestroyActivityTaskHandler extends DestroyActivityTaskHandler {
 
-    @Autowired
-    protected ExperimentActivityTaskRecordRepository experimentActivityTaskRecordRepository;
-
-    @Autowired
-    protected ExperimentActivityTaskRepository experimentActivityTaskRepository;
-
-    @Autowired
-    protected ExperimentTaskRepository experimentTaskRepository;
-
-    @Autowired
-    private ChaosInvokerStrategyContext chaosInvokerStrategyContext;
-
-    @Autowired
-    private ActivityTaskExecuteContext activityTaskExecuteContext;
-
     @Autowired
     private ClusterRepository clusterRepository;
 
@@ -85,75 +64,43 @@ public class KubernetesDestroyActivityTaskHandler extends DestroyActivityTaskHan
                 sceneCode.replace(".stop", "")
         );
 
-        records.forEach(record -> {
-            ExperimentActivityTaskRecordDO experimentActivityTaskRecordDO = ExperimentActivityTaskRecordDO.builder()
-                    .experimentTaskId(activityTask.getExperimentTaskId())
-                    .deviceId(record.getDeviceId())
-                    .flowId(activityTask.getFlowId())
-                    .ip(record.getIp())
-                    .hostname(record.getHostname())
-                    .activityTaskId(activityTask.getActivityTaskId())
-                    .sceneCode(activityTask.getSceneCode())
-                    .gmtStart(DateUtil.date())
-                    .phase(activityTask.getPhase())
-                    .build();
-            experimentActivityTaskRecordRepository.insert(experimentActivityTaskRecordDO);
-        });
-
-        ExperimentDimension experimentDimension = activityTask.getExperimentDimension();
-        RequestCommand requestCommand = new RequestCommand();
-        requestCommand.setScope(experimentDimension.name().toLowerCase());
-        requestCommand.setPhase(activityTask.getPhase());
-        requestCommand.setSceneCode(activityTask.getSceneCode());
-        requestCommand.setArguments(activityTask.getArguments());
-        requestCommand.setName(records.get(0).getResult());
-        requestCommand.setConfig(clusterRepository
+        String config = clusterRepository
                 .selectById(activityTask.getDeviceMetas().get(0).getClusterId())
                 .map(ClusterDO::getConfig)
-                .orElse(null));
-
-        chaosInvokerStrategyContext.invoke(requestCommand).handleAsync((result, e) -> {
-            try {
-                ExperimentActivityTaskRecordDO record = ExperimentActivityTaskRecordDO.builder().gmtEnd(DateUtil.date()).build();
-                if (e != null) {
-                    record.setSuccess(false);
-                    record.setErrorMessage(e.getMessage());
-                } else {
-                    record.setSuccess(result.isSuccess());
-                    record.setCode(result.getCode());
-                    record.setResult(result.getResult());
-                    record.setErrorMessage(result.getError());
-
-                    if (!result.isSuccess()) {
-                        if (StrUtil.isNotBlank(result.getError())) {
-                            e = new BizException(result.getError());
-                        } else {
-                            e = new BizException(result.getResult());
-                        }
-                    }
-                }
-
-                UpdateWrapper<ExperimentActivityTaskRecordDO> wrapper = new UpdateWrapper<>();
-                wrapper.lambda().eq(ExperimentActivityTaskRecordDO::getActivityTaskId, activityTask.getActivityTaskId());
-                experimentActivityTaskRecordRepository.update(record, wrapper);
-
-                TaskLogUtil.info(log, TaskLogType.SUB_EXECUTE_EXECUTING, activityTask.getExperimentTaskId(),
-                        activityTask.getPhase(),
-                        String.valueOf(activityTask.getActivityTaskId()),
-                        JsonUtils.writeValueAsString(activityTask.getDeviceMetas()),
-                        String.valueOf(record.getSuccess()),
-                        record.getErrorMessage()
-                );
+                .orElse(null);
+
+        // the attacks of one activity may share a ChaosBlade, each one is deleted once
+        Map<String, List<ExperimentActivityTaskRecordDO>> names = new LinkedHashMap<>();
+        records.stream().filter(record -> StrUtil.isNotBlank(record.getResult())).forEach(record ->
+                names.computeIfAbsent(record.getResult(), k -> new ArrayList<>()).add(
+                        ExperimentActivityTaskRecordDO.builder()
+                                .experimentTaskId(activityTask.getExperimentTaskId())
+                                .deviceId(record.getDeviceId())
+                                .flowId(activityTask.getFlowId())
+                                .ip(record.getIp())
+                                .hostname(record.getHostname())
+                                .activityTaskId(activityTask.getActivityTaskId())
+                                .sceneCode(activityTask.getSceneCode())
+                                .gmtStart(DateUtil.date())
+                                .phase(activityTask.getPhase())
+                                .build()));
+
+        Map<RequestCommand, List<ExperimentActivityTaskRecordDO>> recordMap = new IdentityHashMap<>(names.size());
+        names.forEach((name, recoverRecords) -> {
+            RequestCommand requestCommand = new RequestCommand();
+            requestCommand.setScope(activityTask.getExperimentDimension().name().toLowerCase());
+            requestCommand.setPhase(activityTask.getPhase());
+            requestCommand.setSceneCode(activityTask.getSceneCode());
+            requestCommand.setArguments(activityTask.getArguments());
+            requestCommand.setName(name);
+            requestCommand.setConfig(config);
+            recordMap.put(requestCommand, recoverRecords);
+        });
 
-            } catch (Exception exception) {
-                e = exception;
-            } finally {
-                postHandle(activityTask, e);
-            }
+        invokeAll(activityTask, recordMap).handleAsync((r, e) -> {
+            postHandle(activityTask, e);
             return null;
         }, activityTaskExecuteContext.executor());
-
-        activityTaskExecuteContext.fireExecute(activityTask.getActivityTaskExecutePipeline());
     }
 
 }
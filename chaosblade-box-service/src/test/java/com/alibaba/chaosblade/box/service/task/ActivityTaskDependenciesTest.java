@@ -0,0 +1,87 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.task;
+
+import com.alibaba.chaosblade.box.common.exception.BizException;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskDO;
+import com.alibaba.chaosblade.box.dao.model.ExperimentActivityTaskEdgeDO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author yefei
+ */
+public class ActivityTaskDependenciesTest {
+
+    @Test
+    public void testLinearByDefault() {
+        List<ExperimentActivityTaskEdgeDO> edges = ActivityTaskDependencies.resolve(Arrays.asList(
+                activityTask(11L, 1L, "{}"),
+                activityTask(12L, 2L, "{}"),
+                activityTask(13L, 3L, "{}")));
+
+        Assert.assertEquals(Arrays.asList("12<-11", "13<-12"), format(edges));
+    }
+
+    @Test
+    public void testDependsOn() {
+        // 1 -> (2, 3) -> 4, 5 starts a branch of its own
+        List<ExperimentActivityTaskEdgeDO> edges = ActivityTaskDependencies.resolve(Arrays.asList(
+                activityTask(11L, 1L, "{}"),
+                activityTask(12L, 2L, "{\"dependsOn\":[1]}"),
+                activityTask(13L, 3L, "{\"dependsOn\":[1]}"),
+                activityTask(14L, 4L, "{\"dependsOn\":[2,3]}"),
+                activityTask(15L, 5L, "{\"dependsOn\":[]}")));
+
+        Assert.assertEquals(Arrays.asList("12<-11", "13<-11", "14<-12", "14<-13"), format(edges));
+    }
+
+    @Test(expected = BizException.class)
+    public void testDependsOnLaterActivity() {
+        ActivityTaskDependencies.resolve(Arrays.asList(
+                activityTask(11L, 1L, "{\"dependsOn\":[2]}"),
+                activityTask(12L, 2L, "{}")));
+    }
+
+    @Test(expected = BizException.class)
+    public void testDependsOnUnknownActivity() {
+        ActivityTaskDependencies.resolve(Arrays.asList(
+                activityTask(11L, 1L, "{}"),
+                activityTask(12L, 2L, "{\"dependsOn\":[100]}")));
+    }
+
+    private static ExperimentActivityTaskDO activityTask(Long id, Long activityId, String runParam) {
+        ExperimentActivityTaskDO activityTask = ExperimentActivityTaskDO.builder()
+                .experimentTaskId(1L)
+                .activityId(activityId)
+                .runParam(runParam)
+                .build();
+        activityTask.setId(id);
+        return activityTask;
+    }
+
+    private static List<String> format(List<ExperimentActivityTaskEdgeDO> edges) {
+        return edges.stream()
+                .map(edge -> edge.getActivityTaskId() + "<-" + edge.getPreActivityTaskId())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.chaosblade.box.service.task;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author yefei
+ */
+public class ActivityTaskExecutePipelineTest {
+
+    @Test
+    public void testJoin() {
+        // 1 -> (2, 3) -> 4
+        ActivityTaskExecutePipeline pipeline = new ActivityTaskExecutePipeline();
+        pipeline.add(task(1L), Collections.emptyList());
+        pipeline.add(task(2L), Collections.singletonList(1L));
+        pipeline.add(task(3L), Collections.singletonList(1L));
+        pipeline.add(task(4L), Arrays.asList(2L, 3L));
+
+        List<TaskNode<ActivityTask>> runnable = pipeline.start(10);
+        Assert.assertEquals(Collections.singletonList(1L), ids(runnable));
+        Assert.assertNull(pipeline.start(10));
+
+        runnable = pipeline.complete(runnable.get(0), null, 10);
+        Assert.assertEquals(Arrays.asList(2L, 3L), ids(runnable));
+
+        // 4 waits for both branches
+        Assert.assertTrue(pipeline.complete(runnable.get(0), null, 10).isEmpty());
+        List<TaskNode<ActivityTask>> last = pipeline.complete(runnable.get(1), null, 10);
+        Assert.assertEquals(Collections.singletonList(4L), ids(last));
+        Assert.assertFalse(pipeline.isDone());
+
+        pipeline.complete(last.get(0), null, 10);
+        Assert.assertTrue(pipeline.isDone());
+        Assert.assertNull(pipeline.error());
+    }
+
+    @Test
+    public void testParallelism() {
+        ActivityTaskExecutePipeline pipeline = new ActivityTaskExecutePipeline();
+        for (long i = 1; i <= 5; i++) {
+            pipeline.add(task(i), Collections.emptyList());
+        }
+
+        List<TaskNode<ActivityTask>> runnable = pipeline.start(2);
+        Assert.assertEquals(Arrays.asList(1L, 2L), ids(runnable));
+
+        // a slot frees, one more task runs
+        Assert.assertEquals(Collections.singletonList(3L), ids(pipeline.complete(runnable.get(0), null, 2)));
+        // completing twice frees no slot
+        Assert.assertTrue(pipeline.complete(runnable.get(0), null, 2).isEmpty());
+        Assert.assertEquals(Collections.singletonList(4L), ids(pipeline.complete(runnable.get(1), null, 2)));
+    }
+
+    @Test
+    public void testAddLastAndError() {
+        ActivityTaskExecutePipeline pipeline = new ActivityTaskExecutePipeline();
+        pipeline.addLast(task(1L));
+        pipeline.addLast(task(2L));
+        // unknown dependencies are done already
+        pipeline.add(task(3L), Arrays.asList(2L, 100L));
+
+        List<TaskNode<ActivityTask>> runnable = pipeline.start(10);
+        Assert.assertEquals(Collections.singletonList(1L), ids(runnable));
+
+        // the next tasks still run after a failure, the first error is kept
+        IllegalStateException error = new IllegalStateException();
+        runnable = pipeline.complete(runnable.get(0), error, 10);
+        Assert.assertEquals(Collections.singletonList(2L), ids(runnable));
+        runnable = pipeline.complete(runnable.get(0), new IllegalArgumentException(), 10);
+        Assert.assertEquals(Collections.singletonList(3L), ids(runnable));
+        pipeline.complete(runnable.get(0), null, 10);
+
+        Assert.assertTrue(pipeline.isDone());
+        Assert.assertSame(error, pipeline.error());
+        Assert.assertEquals(Long.valueOf(1L), pipeline.head().getTask().getActivityTaskId());
+        Assert.assertEquals(Long.valueOf(3L), pipeline.tail().getTask().getActivityTaskId());
+    }
+
+    private static ActivityTask task(Long activityTaskId) {
+        ActivityTask activityTask = new ActivityTask();
+        activityTask.setExperimentTaskId(1L);
+        activityTask.setActivityTaskId(activityTaskId);
+        return activityTask;
+    }
+
+    private static List<Long> ids(List<TaskNode<ActivityTask>> nodes) {
+        return nodes.stream().map(node -> node.getTask().getActivityTaskId()).collect(Collectors.toList());
+    }
+}
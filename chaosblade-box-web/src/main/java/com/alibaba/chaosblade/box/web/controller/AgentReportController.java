@@ -48,6 +48,7 @@ public class AgentReportController {
     @ResponseBody
     public void agentHeartBeat(@RequestBody Map<String, String> param) {
         log.debug(JsonUtils.writeValueAsString(param));
+        deviceService.deviceHeartbeat(param);
     }
 
     @RequestMapping("/chaos/AgentClosed")
@@ -1,6 +1,8 @@
 package com.alibaba.chaosblade.box.web.controller;
 
+import com.alibaba.chaosblade.box.common.kubernetes.KubeClientStats;
 import com.alibaba.chaosblade.box.service.ClusterService;
+import com.alibaba.chaosblade.box.service.collect.CollectorMetrics;
 import com.alibaba.chaosblade.box.service.model.cluster.ClusterBO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -43,4 +45,14 @@ public class ClusterController {
     public void closeCollect(@RequestBody ClusterBO clusterBO) throws Exception {
         clusterService.closeCollect(clusterBO);
     }
+
+    @RequestMapping("/GetCollectorMetrics")
+    public List<CollectorMetrics.ClusterMetrics> getCollectorMetrics() {
+        return clusterService.getCollectorMetrics();
+    }
+
+    @RequestMapping("/GetKubeClientStats")
+    public List<KubeClientStats> getKubeClientStats() {
+        return clusterService.getKubeClientStats();
+    }
 }
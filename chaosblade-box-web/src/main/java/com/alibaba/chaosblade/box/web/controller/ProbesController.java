@@ -16,6 +16,8 @@
 
 package com.alibaba.chaosblade.box.web.controller;
 
+import com.alibaba.chaosblade.box.invoker.http.AgentCircuitBreakers;
+import com.alibaba.chaosblade.box.invoker.http.AgentHttpTransport;
 import com.alibaba.chaosblade.box.service.collect.CollectorTimer;
 import com.alibaba.chaosblade.box.service.probes.ProbesService;
 import com.alibaba.chaosblade.box.service.probes.model.InstallProbesRequest;
@@ -46,6 +48,12 @@ public class ProbesController {
     @Autowired
     private CollectorTimer collectorTimer;
 
+    @Autowired
+    private AgentHttpTransport agentHttpTransport;
+
+    @Autowired
+    private AgentCircuitBreakers agentCircuitBreakers;
+
     @PostMapping("/GetAnsibleHosts")
     public List<ProbesResponse> getMachinesForHost() {
         return probesService.getAnsibleHosts();
@@ -103,4 +111,14 @@ public class ProbesController {
         return enableCollect;
     }
 
+    @PostMapping("/GetAgentTransportStats")
+    public AgentHttpTransport.TransportStats getAgentTransportStats() {
+        return agentHttpTransport.stats();
+    }
+
+    @PostMapping("/GetAgentOpenCircuits")
+    public List<String> getAgentOpenCircuits() {
+        return agentCircuitBreakers.openHosts();
+    }
+
 }
@@ -91,7 +91,9 @@ create table if not exists t_chaos_device
     last_experiment_time datetime               null comment 'last experiment time',
     last_task_id         bigint                 null comment 'last task id',
     last_task_status     tinyint                null comment 'last task status',
-    key `INX_DEVICE_IP` (ip)
+    key `INX_DEVICE_IP` (ip),
+    key `INX_DEVICE_TYPE_STATUS_ONLINE_TIME` (type, status, last_online_time),
+    key `INX_DEVICE_GMT_MODIFIED` (gmt_modified)
 )
     ENGINE = InnoDB
     comment 'device'
@@ -109,7 +111,9 @@ create table if not exists t_chaos_device_node
     node_name    varchar(256) not null comment 'node name',
     node_ip      varchar(128) null comment 'node ip',
     node_version varchar(128) null comment 'node version',
-    key `INX_DEVICE_NODE_DEVICE_ID` (device_id)
+    constraint `DEVICE_NODE_CLUSTER_ID_NODE_NAME` unique (cluster_id(32), node_name(220)),
+    key `INX_DEVICE_NODE_DEVICE_ID` (device_id),
+    key `INX_DEVICE_NODE_GMT_MODIFIED` (gmt_modified)
 )
     ENGINE = InnoDB
     comment 'k8s-node'
@@ -127,7 +131,9 @@ create table if not exists t_chaos_device_pod
     pod_name     varchar(128)    not null comment 'pod name',
     pod_ip       varchar(128)    null comment 'pod ip',
     containers   longtext        null comment 'containers, json',
-    key `INX_DEVICE_POD_DEVICE_ID` (device_id)
+    constraint `DEVICE_POD_NODE_ID_NAMESPACE_POD_NAME` unique (node_id, namespace(64), pod_name),
+    key `INX_DEVICE_POD_DEVICE_ID` (device_id),
+    key `INX_DEVICE_POD_GMT_MODIFIED` (gmt_modified)
 )
     ENGINE = InnoDB
     comment 'k8s-pod'
@@ -201,6 +207,21 @@ create table if not exists t_chaos_experiment_activity_task
     comment 'experiment activity task'
     DEFAULT CHARSET = utf8;
 
+create table if not exists t_chaos_experiment_activity_task_edge
+(
+    id                   bigint unsigned auto_increment comment 'primary key'
+        primary key,
+    gmt_create           datetime        null comment 'create time',
+    gmt_modified         datetime        null comment 'modified time',
+    experiment_task_id   bigint unsigned not null comment 'experiment task id',
+    activity_task_id     bigint unsigned not null comment 'activity task id',
+    pre_activity_task_id bigint unsigned not null comment 'activity task id waited for',
+    key `INX_EXPERIMENT_ACTIVITY_TASK_EDGE_TASK_ID` (experiment_task_id)
+)
+    ENGINE = InnoDB
+    comment 'dependency of experiment activity tasks'
+    DEFAULT CHARSET = utf8;
+
 create table if not exists t_chaos_experiment_activity_task_record
 (
     id                 bigint unsigned auto_increment comment 'primary key'
@@ -271,7 +292,10 @@ create table if not exists t_chaos_experiment_task
     error_message    text               null comment 'error message',
     duration         int(255) default 0 not null comment 'duration',
     metric           longtext           null comment 'metric config',
-    key `INX_EXPERIMENT_TASK_EXP_ID` (experiment_id)
+    lease_owner       varchar(128)       null comment 'replica running the task',
+    lease_expire_time datetime           null comment 'run lease expire time',
+    key `INX_EXPERIMENT_TASK_EXP_ID` (experiment_id),
+    key `INX_EXPERIMENT_TASK_RUN_STATUS` (run_status)
 )
     comment 'experiment task' DEFAULT CHARSET = utf8;
 
@@ -430,6 +454,18 @@ create table if not exists `t_chaos_cluster`
     `is_collector`      longtext             NULL comment 'is_collector',
     `last_collect_time` datetime             NULL comment 'last collect time',
     `status`            tinyint unsigned     NULL comment 'status',
+    `lease_owner`       varchar(128)         NULL comment 'replica owning the collect lease',
+    `lease_expire_time` datetime             NULL comment 'collect lease expire time',
     PRIMARY KEY (`id`)
 ) ENGINE = InnoDB COMMENT 'cluster info'
   DEFAULT CHARSET = utf8;
+
+create table if not exists `t_chaos_collector_replica`
+(
+    `replica`      varchar(128) NOT NULL comment 'replica id',
+    `gmt_create`   datetime     NOT NULL comment 'create time',
+    `gmt_modified` datetime     NOT NULL comment 'modified time',
+    `expire_time`  datetime     NOT NULL comment 'expire time',
+    PRIMARY KEY (`replica`)
+) ENGINE = InnoDB COMMENT 'collector replicas'
+  DEFAULT CHARSET = utf8;
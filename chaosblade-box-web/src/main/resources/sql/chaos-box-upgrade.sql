@@ -0,0 +1,167 @@
+/*
+ * Copyright 1999-2021 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+USE chaosblade;
+
+-- Upgrades a schema created by an earlier version, create table if not exists leaves its tables as they are.
+-- Each change checks information_schema first, the script runs on every start of every replica, one at a time.
+-- Duplicate node and pod rows are dropped before their unique keys are added, their device rows are kept
+-- offline as experiment records and task history may point at them.
+select get_lock('chaos-box-upgrade', 300);
+
+-- t_chaos_experiment_task, run lease
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+                  and table_name = 't_chaos_experiment_task' and column_name = 'lease_owner') = 0,
+              'alter table t_chaos_experiment_task add column lease_owner varchar(128) null comment ''replica running the task''',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+                  and table_name = 't_chaos_experiment_task' and column_name = 'lease_expire_time') = 0,
+              'alter table t_chaos_experiment_task add column lease_expire_time datetime null comment ''run lease expire time''',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database()
+                  and table_name = 't_chaos_experiment_task' and index_name = 'INX_EXPERIMENT_TASK_RUN_STATUS') = 0,
+              'alter table t_chaos_experiment_task add key `INX_EXPERIMENT_TASK_RUN_STATUS` (run_status)',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+-- t_chaos_cluster, collect lease
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+                  and table_name = 't_chaos_cluster' and column_name = 'lease_owner') = 0,
+              'alter table t_chaos_cluster add column lease_owner varchar(128) null comment ''replica owning the collect lease''',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if((select count(*) from information_schema.columns where table_schema = database()
+                  and table_name = 't_chaos_cluster' and column_name = 'lease_expire_time') = 0,
+              'alter table t_chaos_cluster add column lease_expire_time datetime null comment ''collect lease expire time''',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+-- t_chaos_device_node, unique (cluster_id, node_name) for the batch upserts,
+-- the duplicate rows are removed first, the oldest row of a node is kept and takes their pods
+set @missing = (select count(*) = 0 from information_schema.statistics where table_schema = database()
+                   and table_name = 't_chaos_device_node' and index_name = 'DEVICE_NODE_CLUSTER_ID_NODE_NAME');
+
+set @ddl = if(@missing,
+              'update t_chaos_device_pod p
+                   join t_chaos_device_node n on p.node_id = n.id
+                   join (select min(id) id, left(cluster_id, 32) cluster_id, left(node_name, 220) node_name
+                         from t_chaos_device_node where cluster_id is not null
+                         group by left(cluster_id, 32), left(node_name, 220) having count(*) > 1) k
+                       on left(n.cluster_id, 32) = k.cluster_id and left(n.node_name, 220) = k.node_name
+               set p.node_id = k.id
+               where n.id <> k.id',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(@missing,
+              'update t_chaos_device d
+                   join t_chaos_device_node n on d.id = n.device_id
+                   join (select min(id) id, left(cluster_id, 32) cluster_id, left(node_name, 220) node_name
+                         from t_chaos_device_node where cluster_id is not null
+                         group by left(cluster_id, 32), left(node_name, 220) having count(*) > 1) k
+                       on left(n.cluster_id, 32) = k.cluster_id and left(n.node_name, 220) = k.node_name
+                   join t_chaos_device_node kept on kept.id = k.id
+               set d.status = 3
+               where n.id <> k.id and d.id <> kept.device_id',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(@missing,
+              'delete n from t_chaos_device_node n
+                   join (select min(id) id, left(cluster_id, 32) cluster_id, left(node_name, 220) node_name
+                         from t_chaos_device_node where cluster_id is not null
+                         group by left(cluster_id, 32), left(node_name, 220) having count(*) > 1) k
+                       on left(n.cluster_id, 32) = k.cluster_id and left(n.node_name, 220) = k.node_name
+               where n.id <> k.id',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(@missing,
+              'alter table t_chaos_device_node add constraint `DEVICE_NODE_CLUSTER_ID_NODE_NAME` unique (cluster_id(32), node_name(220))',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+-- t_chaos_device_pod, unique (node_id, namespace, pod_name) for the batch upserts, a pod name is only
+-- unique in its cluster. The duplicate rows are removed first, the oldest row of a pod is kept
+set @ddl = if((select count(*) from information_schema.statistics where table_schema = database()
+                  and table_name = 't_chaos_device_pod' and index_name = 'DEVICE_POD_NAMESPACE_POD_NAME') > 0,
+              'alter table t_chaos_device_pod drop index `DEVICE_POD_NAMESPACE_POD_NAME`',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @missing = (select count(*) = 0 from information_schema.statistics where table_schema = database()
+                   and table_name = 't_chaos_device_pod' and index_name = 'DEVICE_POD_NODE_ID_NAMESPACE_POD_NAME');
+
+set @ddl = if(@missing,
+              'update t_chaos_device d
+                   join t_chaos_device_pod p on d.id = p.device_id
+                   join (select min(id) id, node_id, left(namespace, 64) namespace, pod_name
+                         from t_chaos_device_pod where namespace is not null
+                         group by node_id, left(namespace, 64), pod_name having count(*) > 1) k
+                       on p.node_id = k.node_id and left(p.namespace, 64) = k.namespace and p.pod_name = k.pod_name
+                   join t_chaos_device_pod kept on kept.id = k.id
+               set d.status = 3
+               where p.id <> k.id and d.id <> kept.device_id',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(@missing,
+              'delete p from t_chaos_device_pod p
+                   join (select min(id) id, node_id, left(namespace, 64) namespace, pod_name
+                         from t_chaos_device_pod where namespace is not null
+                         group by node_id, left(namespace, 64), pod_name having count(*) > 1) k
+                       on p.node_id = k.node_id and left(p.namespace, 64) = k.namespace and p.pod_name = k.pod_name
+               where p.id <> k.id',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(@missing,
+              'alter table t_chaos_device_pod add constraint `DEVICE_POD_NODE_ID_NAMESPACE_POD_NAME` unique (node_id, namespace(64), pod_name)',
+              'select 1');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+select release_lock('chaos-box-upgrade');